@@ -50,6 +50,24 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+
+    // PipelineBenchmark (debug builds only) scores the golden-corpus clips - one copy, kept with the tests
+    sourceSets {
+        getByName("debug") {
+            assets.srcDir("src/test/resources/golden")
+        }
+    }
+
+    // Local unit tests run classes that log via android.util.Log
+    testOptions {
+        unitTests.isReturnDefaultValues = true
+        unitTests.all {
+            // GoldenCorpusTest: corpus and model paths, and -Dgolden.update=true to retake the snapshot
+            it.systemProperty("speak.golden", file("src/test/resources/golden").absolutePath)
+            it.systemProperty("speak.assets", file("src/main/assets").absolutePath)
+            it.systemProperty("golden.update", System.getProperty("golden.update", "false"))
+        }
+    }
     
     // Disable lint to allow build
     lint {
@@ -58,6 +76,7 @@ android {
     }
     buildFeatures {
         mlModelBinding = true
+        buildConfig = true // BuildConfig.DEBUG gates debug logging
     }
 }
 
@@ -99,11 +118,12 @@ dependencies {
     // Security - Encrypted SharedPreferences
     implementation("androidx.security:security-crypto:1.1.0-alpha06")
     
-    // TarsosDSP for MFCC extraction (pure Java, Android-compatible)
-    // Using local JAR from libs/ for stability
-    implementation(files("libs/TarsosDSP-latest.jar"))
+    // DSP, feature extraction and audio formats (pure Java, brings in TarsosDSP)
+    implementation(project(":speech-core"))
     
     testImplementation(libs.junit)
+    // Desktop ONNX Runtime (with JVM native libraries) so GoldenCorpusTest runs the real forest
+    testImplementation("com.microsoft.onnxruntime:onnxruntime:1.16.3")
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
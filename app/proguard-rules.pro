@@ -18,6 +18,14 @@
 # Keep exceptions
 -keepattributes Exceptions
 
+# ===== Logging =====
+# Release builds drop SpeechLog debug and verbose calls, including lambda message suppliers
+# (android.util.Log is stripped under "Remove Logging in Release" below)
+-assumenosideeffects class com.example.speak.SpeechLog {
+    public static void v(...);
+    public static void d(...);
+}
+
 # ===== Firebase =====
 -keep class com.google.firebase.** { *; }
 -keep class com.google.android.gms.** { *; }
@@ -28,6 +36,10 @@
 -keepclassmembers class com.example.speak.Student { *; }
 -keepclassmembers class com.example.speak.ReadingSession { *; }
 -keepclassmembers class com.example.speak.Passage { *; }
+-keepclassmembers class com.example.speak.PipelineMetrics$StageSummary { *; }
+-keepclassmembers class com.example.speak.RealTimeMonitor$Snapshot { *; }
+-keepclassmembers class com.example.speak.AllocationMonitor$Summary { *; }
+-keepclassmembers class com.example.speak.AllocationMonitor$StageAllocation { *; }
 
 # ===== TensorFlow Lite =====
 -keep class org.tensorflow.lite.** { *; }
@@ -0,0 +1,169 @@
+package com.example.speak;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Benchmark DistilBERT inference backends
+ * Runs the same comprehension analysis under each backend configuration and
+ * reports load time and per-call latency, so we can pick the fastest setup per tablet.
+ * Part 3 of PipelineBenchmark's report (debug builds).
+ *
+ * Must be called from a background thread - each configuration loads the full model
+ */
+public class DistilBERTBenchmark {
+    private static final String TAG = "DistilBERTBenchmark";
+
+    private static final int WARMUP_RUNS = 3;
+    private static final int TIMED_RUNS = 20;
+
+    // Realistic passage-length inputs
+    private static final String EXPECTED_TEXT =
+        "The snail had the biggest house in the garden. Every day he carried it with him " +
+        "wherever he went, and all the other snails wished they had a house like his.";
+    private static final String SPOKEN_TEXT =
+        "The snail had the biggest house in the garden every day he carried it with him";
+
+    /**
+     * Latency result for a single backend configuration
+     */
+    public static class Result {
+        public final DistilBERTTextAnalyzer.InferenceConfig config;
+        public final long loadTimeMs;
+        public final float meanMs;
+        public final float p50Ms;
+        public final float p90Ms;
+
+        Result(DistilBERTTextAnalyzer.InferenceConfig config, long loadTimeMs, float meanMs, float p50Ms, float p90Ms) {
+            this.config = config;
+            this.loadTimeMs = loadTimeMs;
+            this.meanMs = meanMs;
+            this.p50Ms = p50Ms;
+            this.p90Ms = p90Ms;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[%s] load=%dms mean=%.1fms p50=%.1fms p90=%.1fms",
+                config, loadTimeMs, meanMs, p50Ms, p90Ms);
+        }
+    }
+
+    /**
+     * Told after each configuration is measured (or skipped)
+     */
+    public interface ProgressListener {
+        void onProgress(int done, int total);
+    }
+
+    /**
+     * Configurations to compare: model variant x thread count x XNNPACK
+     */
+    public static List<DistilBERTTextAnalyzer.InferenceConfig> candidateConfigs() {
+        int defaultThreads = DistilBERTTextAnalyzer.InferenceConfig.defaultThreadCount();
+        int[] threadCounts = defaultThreads > 2 ? new int[]{1, 2, defaultThreads} : new int[]{1, 2};
+        String[] models = {
+            DistilBERTTextAnalyzer.MODEL_PATH_FP16,
+            DistilBERTTextAnalyzer.MODEL_PATH_INT8
+        };
+
+        List<DistilBERTTextAnalyzer.InferenceConfig> configs = new ArrayList<>();
+        for (String model : models) {
+            for (int threads : threadCounts) {
+                configs.add(new DistilBERTTextAnalyzer.InferenceConfig(model, threads, false));
+                configs.add(new DistilBERTTextAnalyzer.InferenceConfig(model, threads, true));
+            }
+        }
+        return configs;
+    }
+
+    /**
+     * Run all candidate configurations and log a latency table
+     *
+     * @param listener Progress per configuration, or null
+     */
+    public static List<Result> runBenchmark(Context context, ProgressListener listener) {
+        Log.d(TAG, "=== DISTILBERT BACKEND BENCHMARK ===");
+        Log.d(TAG, "Available cores: " + Runtime.getRuntime().availableProcessors());
+
+        List<DistilBERTTextAnalyzer.InferenceConfig> configs = candidateConfigs();
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < configs.size(); i++) {
+            Result result = benchmarkConfig(context, configs.get(i));
+            if (result != null) {
+                results.add(result);
+                Log.d(TAG, result.toString());
+            }
+            if (listener != null) {
+                listener.onProgress(i + 1, configs.size());
+            }
+        }
+
+        Result fastest = fastest(results);
+        if (fastest != null) {
+            Log.d(TAG, "✅ Fastest configuration: " + fastest.config);
+        }
+
+        Log.d(TAG, "=== BENCHMARK COMPLETE ===");
+        return results;
+    }
+
+    /**
+     * Result with the lowest median latency, or null if none
+     */
+    public static Result fastest(List<Result> results) {
+        Result fastest = null;
+        for (Result result : results) {
+            if (fastest == null || result.p50Ms < fastest.p50Ms) {
+                fastest = result;
+            }
+        }
+        return fastest;
+    }
+
+    /**
+     * Measure one configuration, returns null if the model could not be loaded
+     */
+    public static Result benchmarkConfig(Context context, DistilBERTTextAnalyzer.InferenceConfig config) {
+        long loadStart = System.nanoTime();
+        DistilBERTTextAnalyzer analyzer = new DistilBERTTextAnalyzer(context, config);
+        long loadTimeMs = (System.nanoTime() - loadStart) / 1_000_000;
+
+        try {
+            if (!analyzer.isReady()) {
+                Log.w(TAG, "⚠️ Skipping [" + config + "] - model failed to load");
+                return null;
+            }
+
+            // Skip variants that fell back to a model we already measure
+            if (!analyzer.getConfig().modelPath.equals(config.modelPath)) {
+                Log.w(TAG, "⚠️ Skipping [" + config + "] - model variant not bundled");
+                return null;
+            }
+
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                analyzer.analyzeComprehension(SPOKEN_TEXT, EXPECTED_TEXT);
+            }
+
+            float[] latencies = new float[TIMED_RUNS];
+            float total = 0;
+            for (int i = 0; i < TIMED_RUNS; i++) {
+                long start = System.nanoTime();
+                analyzer.analyzeComprehension(SPOKEN_TEXT, EXPECTED_TEXT);
+                latencies[i] = (System.nanoTime() - start) / 1_000_000f;
+                total += latencies[i];
+            }
+
+            Arrays.sort(latencies);
+            return new Result(config, loadTimeMs, total / TIMED_RUNS,
+                latencies[TIMED_RUNS / 2], latencies[(int) (TIMED_RUNS * 0.9f)]);
+
+        } finally {
+            analyzer.release();
+        }
+    }
+}
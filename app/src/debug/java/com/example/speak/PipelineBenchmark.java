@@ -0,0 +1,372 @@
+package com.example.speak;
+
+import android.content.Context;
+import android.os.Build;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * On-device benchmark of the scoring pipeline, run before a tablet model goes to classrooms
+ *
+ * Three parts, the first two over the golden-corpus word clips (NN_word.wav, raw 16 kHz
+ * mono), which debug builds bundle as assets/clips from src/test/resources/golden:
+ *   1. Stages - every clip through preprocessing, MFCC, statistics and inference, repeatedly,
+ *      timed per stage with PipelineMetrics (p50/p95/p99) plus clips/s for the whole path
+ *   2. Recognizer - the clips joined into a passage and replayed from a WAV file through
+ *      MFCCPronunciationRecognizer (segmentation included), as fast as it will go
+ *   3. Comprehension - DistilBERTBenchmark's load time and latency for every backend
+ *      configuration, to pick the comprehension setup per tablet
+ *
+ * The scorer is built without the feature cache, so repeated clips are really extracted.
+ * The JSON report (device, session config, stage summaries, throughput) is written to
+ * getExternalFilesDir("benchmarks"). Runs on its own thread; callbacks come from it.
+ */
+public class PipelineBenchmark {
+    private static final String TAG = "PipelineBenchmark";
+
+    private static final String CLIPS_ASSET_DIR = "clips";
+    private static final int SAMPLE_RATE = 16000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 20;
+    private static final int RECOGNIZER_RUNS = 3;
+    private static final int PASSAGE_GAP_MS = 800; // Silence between words - enough to end each word
+    private static final long RECOGNIZER_TIMEOUT_SECONDS = 120;
+
+    public interface ProgressCallback {
+        void onProgress(String phase, int current, int total);
+        void onComplete(JSONObject report, File reportFile);
+        void onError(String error);
+    }
+
+    /**
+     * One bundled word clip
+     */
+    private static class Clip {
+        final String word;
+        final short[] audio;
+
+        Clip(String word, short[] audio) {
+            this.word = word;
+            this.audio = audio;
+        }
+    }
+
+    private final Context context;
+    private final ProgressCallback callback;
+
+    public PipelineBenchmark(Context context, ProgressCallback callback) {
+        this.context = context.getApplicationContext();
+        this.callback = callback;
+    }
+
+    public void start() {
+        new Thread(this::run, "PipelineBenchmark").start();
+    }
+
+    private void run() {
+        ONNXRandomForestScorer scorer = null;
+        try {
+            List<Clip> clips = loadClips();
+            ONNXRandomForestScorer.SessionConfig sessionConfig = ONNXRandomForestScorer.SessionConfig.forThisDevice();
+            scorer = new ONNXRandomForestScorer(readAsset(ONNXRandomForestScorer.MODEL_PATH), sessionConfig);
+            if (!scorer.isReady()) {
+                callback.onError("ONNX model failed to load");
+                return;
+            }
+
+            JSONObject report = new JSONObject();
+            report.put("timestamp", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ", Locale.US).format(new Date()));
+            report.put("device", describeDevice());
+            report.put("sessionConfig", sessionConfig.toString());
+            report.put("clips", clips.size());
+            report.put("stages", benchmarkStages(scorer, clips));
+            report.put("recognizer", benchmarkRecognizer(scorer, clips));
+            scorer = null; // Released with the recognizer
+            report.put("comprehension", benchmarkComprehension());
+
+            File reportFile = writeReport(report);
+            SpeechLog.i(TAG, "📊 Benchmark report: " + reportFile.getAbsolutePath());
+            callback.onComplete(report, reportFile);
+        } catch (Exception e) {
+            SpeechLog.e(TAG, "❌ Benchmark failed", e);
+            callback.onError(e.getMessage());
+        } finally {
+            if (scorer != null) {
+                scorer.release();
+            }
+        }
+    }
+
+    /**
+     * Part 1: each stage and the whole word path, clip by clip
+     */
+    private JSONObject benchmarkStages(ONNXRandomForestScorer scorer, List<Clip> clips) throws JSONException {
+        // The recognizer is only used for its preprocessing chain here; both record into its metrics
+        MFCCPronunciationRecognizer recognizer =
+            new MFCCPronunciationRecognizer(context, scorer, new ReadingLevelClassifier(context));
+        PipelineMetrics metrics = recognizer.getPipelineMetrics();
+
+        int rounds = WARMUP_ROUNDS + MEASURED_ROUNDS;
+        long measuredNanos = 0;
+        for (int round = 0; round < rounds; round++) {
+            if (round == WARMUP_ROUNDS) {
+                metrics.reset(); // Drop JIT warm-up
+            }
+            long roundStart = System.nanoTime();
+            for (Clip clip : clips) {
+                long wordStart = System.nanoTime();
+                scorer.scorePronunciation(recognizer.preprocessWord(clip.audio), clip.word);
+                metrics.lap(PipelineMetrics.Stage.TOTAL, wordStart);
+            }
+            if (round >= WARMUP_ROUNDS) {
+                measuredNanos += System.nanoTime() - roundStart;
+            }
+            callback.onProgress("Stages", round + 1, rounds);
+        }
+
+        JSONObject stages = new JSONObject();
+        for (Map.Entry<String, PipelineMetrics.StageSummary> stage : metrics.snapshot().entrySet()) {
+            stages.put(stage.getKey(), toJson(stage.getValue()));
+        }
+        JSONObject result = new JSONObject();
+        result.put("rounds", MEASURED_ROUNDS);
+        result.put("clipsPerSecond", MEASURED_ROUNDS * clips.size() / (measuredNanos / 1e9));
+        result.put("latency", stages);
+        return result;
+    }
+
+    /**
+     * Part 3: the post-session comprehension model under each DistilBERT backend configuration
+     */
+    private JSONObject benchmarkComprehension() throws JSONException {
+        List<DistilBERTBenchmark.Result> results = DistilBERTBenchmark.runBenchmark(context,
+            (done, total) -> callback.onProgress("Comprehension", done, total));
+
+        JSONArray configs = new JSONArray();
+        for (DistilBERTBenchmark.Result result : results) {
+            JSONObject json = new JSONObject();
+            json.put("config", result.config.toString());
+            json.put("loadMs", result.loadTimeMs);
+            json.put("meanMs", result.meanMs);
+            json.put("p50Ms", result.p50Ms);
+            json.put("p90Ms", result.p90Ms);
+            configs.put(json);
+        }
+        DistilBERTBenchmark.Result fastest = DistilBERTBenchmark.fastest(results);
+
+        JSONObject result = new JSONObject();
+        result.put("configs", configs);
+        result.put("fastest", fastest != null ? fastest.config.toString() : JSONObject.NULL);
+        return result;
+    }
+
+    /**
+     * Part 2: the full recognizer replaying the clips as one passage from a WAV file
+     */
+    private JSONObject benchmarkRecognizer(ONNXRandomForestScorer scorer, List<Clip> clips) throws Exception {
+        String[] words = new String[clips.size()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = clips.get(i).word;
+        }
+        File passage = writePassage(clips);
+        long passageSamples = (clips.size() + 1L) * SAMPLE_RATE * PASSAGE_GAP_MS / 1000;
+        for (Clip clip : clips) {
+            passageSamples += clip.audio.length;
+        }
+        double audioSeconds = (double) passageSamples / SAMPLE_RATE;
+
+        MFCCPronunciationRecognizer recognizer =
+            new MFCCPronunciationRecognizer(context, scorer, new ReadingLevelClassifier(context));
+        LatencyHistogram wallTimes = new LatencyHistogram();
+        int wordsScored = 0;
+        JSONObject lastRun = null;
+        try {
+            for (int run = 0; run < RECOGNIZER_RUNS; run++) {
+                final int[] scored = {0};
+                final String[] error = {null};
+                CountDownLatch done = new CountDownLatch(1);
+
+                long start = System.nanoTime();
+                recognizer.startRecognition(ReplayAudioSource.fromWav(passage), words, null,
+                    "benchmark", "Benchmark", "Benchmark", new MFCCPronunciationRecognizer.RecognitionCallback() {
+                        @Override
+                        public void onReady() {
+                        }
+
+                        @Override
+                        public void onWordDetected(int wordIndex, String expectedWord) {
+                        }
+
+                        @Override
+                        public void onWordScored(int wordIndex, String expectedWord, float score, boolean isCorrect) {
+                            scored[0]++;
+                        }
+
+                        @Override
+                        public void onComplete(float overallAccuracy, float averagePronunciation,
+                                               float comprehensionScore, ReadingLevelClassifier.ReadingLevelResult readingLevel) {
+                            done.countDown();
+                        }
+
+                        @Override
+                        public void onError(String message) {
+                            error[0] = message;
+                            done.countDown();
+                        }
+                    });
+                boolean finished = done.await(RECOGNIZER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                long wallNanos = System.nanoTime() - start;
+                recognizer.stopRecognition(); // Joins the threads and closes the replayed file
+                if (!finished) {
+                    throw new IOException("Recognizer replay timed out");
+                }
+                if (error[0] != null) {
+                    throw new IOException("Recognizer replay failed: " + error[0]);
+                }
+                wallTimes.record(wallNanos);
+                wordsScored = scored[0];
+                callback.onProgress("Recognizer", run + 1, RECOGNIZER_RUNS);
+
+                // Per-word latency and real-time factor of the last run, as a session would save them
+                lastRun = new JSONObject();
+                lastRun.put("wordLatency", toJson(recognizer.getPipelineMetrics().snapshot()
+                    .get(PipelineMetrics.Stage.TOTAL.key)));
+                lastRun.put("realTime", recognizer.getRealTimeMonitor().snapshot().toString());
+            }
+        } finally {
+            recognizer.release(); // Also releases the scorer - this is its last use
+        }
+
+        double medianSeconds = wallTimes.getValueAtPercentile(50) / 1e9;
+        JSONObject result = new JSONObject();
+        result.put("runs", RECOGNIZER_RUNS);
+        result.put("audioSeconds", audioSeconds);
+        result.put("expectedWords", words.length);
+        result.put("wordsScored", wordsScored);
+        result.put("medianWallSeconds", medianSeconds);
+        result.put("speedupOverRealTime", audioSeconds / medianSeconds);
+        result.put("lastRun", lastRun);
+        return result;
+    }
+
+    private List<Clip> loadClips() throws IOException {
+        String[] names = context.getAssets().list(CLIPS_ASSET_DIR);
+        if (names == null || names.length == 0) {
+            throw new IOException("No benchmark clips in assets/" + CLIPS_ASSET_DIR);
+        }
+        Arrays.sort(names);
+
+        List<Clip> clips = new ArrayList<>();
+        File dir = new File(context.getCacheDir(), CLIPS_ASSET_DIR);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        for (String name : names) {
+            if (!name.endsWith(".wav")) {
+                continue;
+            }
+            // WavReader maps files, so copy the asset out first
+            File file = new File(dir, name);
+            try (OutputStream out = new FileOutputStream(file)) {
+                out.write(readAsset(CLIPS_ASSET_DIR + "/" + name));
+            }
+            try (WavReader reader = WavReader.open(file, SAMPLE_RATE, 1)) {
+                String word = name.substring(name.indexOf('_') + 1, name.length() - 4);
+                clips.add(new Clip(word, reader.readSamples()));
+            }
+        }
+        return clips;
+    }
+
+    /**
+     * Clips joined with silence, written as a WAV for ReplayAudioSource
+     */
+    private File writePassage(List<Clip> clips) throws IOException {
+        short[] gap = new short[SAMPLE_RATE * PASSAGE_GAP_MS / 1000];
+        File file = new File(context.getCacheDir(), CLIPS_ASSET_DIR + "/passage.wav");
+        try (WavWriter writer = new WavWriter(file, SAMPLE_RATE, 1)) {
+            writer.write(gap);
+            for (Clip clip : clips) {
+                writer.write(clip.audio);
+                writer.write(gap);
+            }
+        }
+        return file;
+    }
+
+    private byte[] readAsset(String path) throws IOException {
+        try (InputStream in = context.getAssets().open(path)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static JSONObject describeDevice() throws JSONException {
+        JSONObject device = new JSONObject();
+        device.put("manufacturer", Build.MANUFACTURER);
+        device.put("model", Build.MODEL);
+        device.put("sdk", Build.VERSION.SDK_INT);
+        device.put("abi", Build.SUPPORTED_ABIS.length > 0 ? Build.SUPPORTED_ABIS[0] : "");
+        device.put("cores", Runtime.getRuntime().availableProcessors());
+        device.put("maxHeapMb", Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        device.put("deviceClass", ONNXRandomForestScorer.SessionConfig.detectDeviceClass().name());
+        return device;
+    }
+
+    private static JSONObject toJson(PipelineMetrics.StageSummary summary) throws JSONException {
+        JSONObject json = new JSONObject();
+        if (summary == null) {
+            return json;
+        }
+        json.put("count", summary.getCount());
+        json.put("meanUs", summary.getMeanUs());
+        json.put("p50Us", summary.getP50Us());
+        json.put("p95Us", summary.getP95Us());
+        json.put("p99Us", summary.getP99Us());
+        json.put("maxUs", summary.getMaxUs());
+        return json;
+    }
+
+    private File writeReport(JSONObject report) throws IOException, JSONException {
+        File dir = context.getExternalFilesDir("benchmarks");
+        if (dir == null) {
+            dir = new File(context.getFilesDir(), "benchmarks");
+        }
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        String name = String.format(Locale.US, "pipeline_%s_%s.json",
+            Build.MODEL.replaceAll("[^A-Za-z0-9]+", "-"),
+            new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date()));
+        File file = new File(dir, name);
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(report.toString(2));
+        }
+        return file;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.speak;
+
+import android.os.Bundle;
+import android.view.WindowManager;
+import android.widget.Button;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+import androidx.appcompat.app.AppCompatActivity;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+
+/**
+ * Runs PipelineBenchmark and shows its JSON report
+ * Debug builds only. Run on every new tablet model before it goes to classrooms, then pull the report:
+ *   adb shell am start -n com.example.speak/.PipelineBenchmarkActivity
+ *   adb pull /sdcard/Android/data/com.example.speak/files/benchmarks/
+ */
+public class PipelineBenchmarkActivity extends AppCompatActivity {
+
+    private Button btnStart;
+    private ProgressBar progressBar;
+    private TextView tvProgress;
+    private TextView tvReport;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_pipeline_benchmark);
+
+        btnStart = findViewById(R.id.btnStart);
+        progressBar = findViewById(R.id.progressBar);
+        tvProgress = findViewById(R.id.tvProgress);
+        tvReport = findViewById(R.id.tvReport);
+
+        btnStart.setOnClickListener(v -> startBenchmark());
+        tvReport.setText("Scores the bundled word clips stage by stage, then replays them " +
+            "through the full recognizer.\n\n" +
+            "Close other apps and keep the tablet plugged in for stable numbers.");
+    }
+
+    private void startBenchmark() {
+        btnStart.setEnabled(false);
+        progressBar.setProgress(0);
+        tvProgress.setText("🚀 Starting...");
+        tvReport.setText("");
+        // Screen-off would throttle the CPU mid-run
+        getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+
+        new PipelineBenchmark(this, new PipelineBenchmark.ProgressCallback() {
+            @Override
+            public void onProgress(String phase, int current, int total) {
+                runOnUiThread(() -> {
+                    progressBar.setMax(total);
+                    progressBar.setProgress(current);
+                    tvProgress.setText(phase + ": " + current + " / " + total);
+                });
+            }
+
+            @Override
+            public void onComplete(JSONObject report, File reportFile) {
+                String text;
+                try {
+                    text = report.toString(2);
+                } catch (JSONException e) {
+                    text = report.toString();
+                }
+                final String reportText = text;
+                runOnUiThread(() -> {
+                    finishRun();
+                    tvProgress.setText("✅ Saved: " + reportFile.getAbsolutePath());
+                    tvReport.setText(reportText);
+                });
+            }
+
+            @Override
+            public void onError(String error) {
+                runOnUiThread(() -> {
+                    finishRun();
+                    tvProgress.setText("❌ Error: " + error);
+                });
+            }
+        }).start();
+    }
+
+    private void finishRun() {
+        btnStart.setEnabled(true);
+        getWindow().clearFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.speak;
+
+import android.util.Log;
+
+/**
+ * Routes SpeechLog messages from the speech core to logcat
+ */
+public class AndroidLogSink implements SpeechLog.Sink {
+
+    @Override
+    public void log(int priority, String tag, String message, Throwable error) {
+        // SpeechLog priorities are the android.util.Log values
+        Log.println(priority, tag, error == null ? message : message + '\n' + Log.getStackTraceString(error));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.speak;
+
+import android.os.Debug;
+
+/**
+ * Reads ART's GC counters (Debug.getRuntimeStat) and heap use for AllocationMonitor
+ * Counters the runtime does not report read as 0.
+ */
+public class ArtRuntimeSampler implements AllocationMonitor.Sampler {
+
+    private final Runtime runtime = Runtime.getRuntime();
+
+    @Override
+    public void sample(AllocationMonitor.Sample into) {
+        into.gcCount = stat("art.gc.gc-count");
+        into.gcTimeMs = stat("art.gc.gc-time");
+        into.blockingGcCount = stat("art.gc.blocking-gc-count");
+        into.blockingGcTimeMs = stat("art.gc.blocking-gc-time");
+        into.bytesAllocated = stat("art.gc.bytes-allocated");
+        into.heapUsedBytes = runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long stat(String name) {
+        String value = Debug.getRuntimeStat(name);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -6,12 +6,7 @@ import android.media.MediaRecorder;
 import android.util.Log;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Enhanced audio recorder for Android
@@ -19,9 +14,9 @@ import java.util.List;
  * 
  * Features:
  * - Live microphone input recording
- * - Save to WAV files
+ * - Save to WAV files (or stream straight to disk during capture)
  * - Convert to float arrays (like numpy)
- * - Real-time audio level monitoring
+ * - Real-time audio level monitoring (callbacks, or a polled AudioLevelMeter)
  */
 public class AudioRecorder {
     private static final String TAG = "AudioRecorder";
@@ -31,25 +26,48 @@ public class AudioRecorder {
     private static final int CHANNEL_CONFIG = AudioFormat.CHANNEL_IN_MONO;
     private static final int AUDIO_FORMAT = AudioFormat.ENCODING_PCM_16BIT;
     private static final int BYTES_PER_SAMPLE = 2; // 16-bit = 2 bytes
+    private static final int INITIAL_CAPTURE_SECONDS = 10; // Capture buffer doubles past this
+    private static final int RING_SECONDS = 2; // Capture -> consumer handoff; consumer may lag this much
+    private static final long CONSUMER_POLL_MS = 100;
     
     // Recording state
+    // The capture thread only reads the mic into the ring; the consumer thread stores,
+    // streams and reports it, so disk writes and callbacks never delay AudioRecord.read()
     private AudioRecord audioRecord;
     private Thread recordingThread;
-    private boolean isRecording = false;
+    private Thread consumerThread;
+    private PcmRingBuffer ring;
+    private volatile boolean isRecording = false;
+    private volatile long droppedSamples = 0;
     private int bufferSize;
     
-    // Audio data storage
-    private List<short[]> audioChunks = new ArrayList<>();
+    // Audio data storage - one preallocated buffer, appended to by the consumer thread only.
+    // Read after stopRecording() has joined that thread, which makes the writes visible.
+    private short[] capturedAudio = new short[0];
+    private int capturedLength = 0;
     private RecordingCallback callback;
     
+    // Level metering: always published; in metering mode the per-read callbacks are skipped
+    private final AudioLevelMeter levelMeter = new AudioLevelMeter();
+    private volatile boolean levelMeteringMode = false;
+    
+    // Streaming mode: samples go straight to disk instead of capturedAudio
+    private WavWriter streamWriter;
+    private File streamFile;
+    
     /**
      * Callback interface for recording events
      */
     public interface RecordingCallback {
-        void onAudioData(short[] audioData, int length);
+        void onAudioData(short[] audioData, int length); // Buffer is reused - copy to keep
         void onAudioLevel(float rms, float db);
         void onRecordingComplete(float[] audioArray, int sampleRate);
         void onError(String error);
+        
+        /**
+         * Called instead of onRecordingComplete when recording was streamed to a file
+         */
+        default void onRecordingSaved(File outputFile, long numSamples, int sampleRate) {}
     }
     
     public AudioRecorder() {
@@ -70,9 +88,25 @@ public class AudioRecorder {
      * Similar to sounddevice.InputStream()
      */
     public boolean startRecording(RecordingCallback callback) {
+        return startRecording(callback, null);
+    }
+    
+    /**
+     * Start recording and stream samples to a WAV file as they are captured
+     * Nothing is kept in memory, so long sessions use constant memory.
+     * stopRecording() then returns an empty array and reports via onRecordingSaved().
+     * 
+     * @param outputFile WAV file to stream to, or null to keep audio in memory
+     */
+    public boolean startRecording(RecordingCallback callback, File outputFile) {
         this.callback = callback;
         
         try {
+            if (outputFile != null) {
+                streamWriter = new WavWriter(outputFile, SAMPLE_RATE, 1);
+                streamFile = outputFile;
+            }
+            
             audioRecord = new AudioRecord(
                 MediaRecorder.AudioSource.VOICE_RECOGNITION,
                 SAMPLE_RATE,
@@ -83,17 +117,26 @@ public class AudioRecorder {
             
             if (audioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
                 Log.e(TAG, "AudioRecord not initialized");
+                closeStreamWriter();
                 if (callback != null) {
                     callback.onError("Failed to initialize audio recording");
                 }
                 return false;
             }
             
-            audioChunks.clear();
+            if (streamWriter == null && capturedAudio.length == 0) {
+                capturedAudio = new short[SAMPLE_RATE * INITIAL_CAPTURE_SECONDS];
+            }
+            capturedLength = 0;
+            droppedSamples = 0;
+            levelMeter.reset();
+            ring = new PcmRingBuffer(SAMPLE_RATE * RING_SECONDS);
             audioRecord.startRecording();
             isRecording = true;
             
-            recordingThread = new Thread(this::recordAudioStream);
+            consumerThread = new Thread(this::consumeAudio, "AudioRecorder-consumer");
+            consumerThread.start();
+            recordingThread = new Thread(this::recordAudioStream, "AudioRecorder-capture");
             recordingThread.start();
             
             Log.d(TAG, "Audio recording started at " + SAMPLE_RATE + "Hz");
@@ -101,6 +144,7 @@ public class AudioRecorder {
             
         } catch (Exception e) {
             Log.e(TAG, "Failed to start recording", e);
+            closeStreamWriter();
             if (callback != null) {
                 callback.onError("Failed to start recording: " + e.getMessage());
             }
@@ -109,33 +153,110 @@ public class AudioRecorder {
     }
     
     /**
-     * Record audio stream (runs in background thread)
+     * Level metering mode for live level displays
+     * 
+     * When enabled, no onAudioData()/onAudioLevel() calls are made: audio is only
+     * stored and levels are published to getLevelMeter(), which the UI
+     * polls at display refresh rate (e.g. from a Choreographer frame callback).
+     * Can be switched while recording.
+     */
+    public void setLevelMeteringMode(boolean enabled) {
+        this.levelMeteringMode = enabled;
+    }
+    
+    /**
+     * Latest RMS/peak levels - safe to read from any thread
+     */
+    public AudioLevelMeter getLevelMeter() {
+        return levelMeter;
+    }
+    
+    /**
+     * Capture loop (runs in background thread)
+     * Only reads the mic, publishes levels and hands samples to the ring - no
+     * allocation, I/O or callbacks. Samples the consumer has no room for are dropped.
      */
     private void recordAudioStream() {
         short[] buffer = new short[bufferSize];
+        PcmRingBuffer ring = this.ring;
         
-        while (isRecording) {
-            int read = audioRecord.read(buffer, 0, buffer.length);
-            
-            if (read > 0) {
-                // Store audio chunk
-                short[] chunk = new short[read];
-                System.arraycopy(buffer, 0, chunk, 0, read);
-                audioChunks.add(chunk);
+        try {
+            while (isRecording) {
+                int read = audioRecord.read(buffer, 0, buffer.length);
+                
+                if (read > 0) {
+                    // Publish RMS/peak for pollers
+                    levelMeter.update(buffer, 0, read);
+                    
+                    int written = ring.write(buffer, 0, read);
+                    if (written < read) {
+                        droppedSamples += read - written; // Only this thread writes it
+                    }
+                }
+            }
+        } finally {
+            ring.close();
+        }
+    }
+    
+    /**
+     * Consumer loop (runs in background thread)
+     * Drains the ring into the capture buffer or WAV stream and notifies the callback.
+     * Exits once the capture thread has closed the ring and everything is drained.
+     */
+    private void consumeAudio() {
+        short[] chunk = new short[bufferSize];
+        PcmRingBuffer ring = this.ring;
+        
+        try {
+            int read;
+            while ((read = ring.read(chunk, 0, chunk.length, CONSUMER_POLL_MS)) >= 0) {
+                if (read == 0) {
+                    continue;
+                }
                 
-                // Calculate audio level (RMS and dB)
-                float rms = calculateRMS(buffer, read);
-                float db = 20 * (float) Math.log10(rms / 32768.0f); // Convert to dB
+                if (streamWriter != null) {
+                    // Append to the WAV file - nothing is retained
+                    try {
+                        streamWriter.write(chunk, 0, read);
+                    } catch (IOException e) {
+                        Log.e(TAG, "Failed to stream audio to file", e);
+                        if (callback != null) {
+                            callback.onError("Failed to write recording: " + e.getMessage());
+                        }
+                        isRecording = false;
+                        break;
+                    }
+                } else {
+                    appendCaptured(chunk, read);
+                }
                 
                 // Notify callback
-                if (callback != null) {
+                if (!levelMeteringMode && callback != null) {
+                    float rms = levelMeter.getRms();
                     callback.onAudioData(chunk, read);
-                    callback.onAudioLevel(rms, db);
+                    callback.onAudioLevel(rms, AudioLevelMeter.toDb(rms));
                 }
             }
+        } catch (InterruptedException e) {
+            Log.w(TAG, "Audio consumer interrupted");
+            Thread.currentThread().interrupt();
         }
     }
     
+    /**
+     * Copy a read into the capture buffer, doubling it only when full
+     */
+    private void appendCaptured(short[] buffer, int length) {
+        if (capturedLength + length > capturedAudio.length) {
+            short[] grown = new short[Math.max(capturedAudio.length * 2, capturedLength + length)];
+            System.arraycopy(capturedAudio, 0, grown, 0, capturedLength);
+            capturedAudio = grown;
+        }
+        System.arraycopy(buffer, 0, capturedAudio, capturedLength, length);
+        capturedLength += length;
+    }
+    
     /**
      * Stop recording and return audio as float array
      * Similar to sounddevice.stop() + numpy array conversion
@@ -161,6 +282,40 @@ public class AudioRecorder {
             audioRecord = null;
         }
         
+        // The capture thread closes the ring on exit; wait for the consumer to drain it.
+        // Joining is what makes capturedAudio safe to read here without locks.
+        if (consumerThread != null) {
+            try {
+                consumerThread.join(2000);
+            } catch (InterruptedException e) {
+                Log.e(TAG, "Error waiting for consumer thread", e);
+            }
+            if (consumerThread.isAlive()) {
+                Log.e(TAG, "Audio consumer did not finish - discarding recording");
+                consumerThread = null;
+                if (callback != null) {
+                    callback.onError("Recording did not finish");
+                }
+                return new float[0];
+            }
+            consumerThread = null;
+        }
+        if (droppedSamples > 0) {
+            Log.w(TAG, "Dropped " + droppedSamples + " samples - consumer fell behind capture");
+        }
+        
+        if (streamWriter != null) {
+            long numSamples = streamWriter.getSamplesWritten();
+            File savedFile = streamFile;
+            boolean saved = closeStreamWriter();
+            
+            if (saved && callback != null) {
+                callback.onRecordingSaved(savedFile, numSamples, SAMPLE_RATE);
+            }
+            Log.d(TAG, "Recording stopped. Streamed " + numSamples + " samples to " + savedFile);
+            return new float[0];
+        }
+        
         // Convert to float array (like numpy)
         float[] audioArray = convertToFloatArray();
         
@@ -172,26 +327,36 @@ public class AudioRecorder {
         return audioArray;
     }
     
+    /**
+     * Finish the streamed WAV file (patches the header sizes)
+     * @return true if the file was closed cleanly
+     */
+    private boolean closeStreamWriter() {
+        if (streamWriter == null) {
+            return false;
+        }
+        boolean closed = true;
+        try {
+            streamWriter.close();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to finish WAV file", e);
+            closed = false;
+        }
+        streamWriter = null;
+        streamFile = null;
+        return closed;
+    }
+    
     /**
      * Convert recorded audio to float array (normalized -1.0 to 1.0)
      * Similar to numpy array conversion in Python
      */
     private float[] convertToFloatArray() {
-        // Calculate total samples
-        int totalSamples = 0;
-        for (short[] chunk : audioChunks) {
-            totalSamples += chunk.length;
-        }
-        
-        // Create float array
-        float[] audioArray = new float[totalSamples];
-        int offset = 0;
+        float[] audioArray = new float[capturedLength];
         
         // Convert short to float (normalize to -1.0 to 1.0)
-        for (short[] chunk : audioChunks) {
-            for (short sample : chunk) {
-                audioArray[offset++] = sample / 32768.0f;
-            }
+        for (int i = 0; i < capturedLength; i++) {
+            audioArray[i] = capturedAudio[i] / 32768.0f;
         }
         
         return audioArray;
@@ -202,9 +367,16 @@ public class AudioRecorder {
      * Similar to soundfile.write() in Python
      */
     public boolean saveToWav(File outputFile) {
-        try {
-            float[] audioData = convertToFloatArray();
-            return saveToWav(outputFile, audioData, SAMPLE_RATE);
+        if (isRecording || consumerThread != null) {
+            Log.e(TAG, "Cannot save while recording - call stopRecording() first");
+            return false;
+        }
+        
+        // Write the capture buffer directly - no intermediate float/short copies
+        try (WavWriter writer = new WavWriter(outputFile, SAMPLE_RATE, 1)) {
+            writer.write(capturedAudio, 0, capturedLength);
+            Log.d(TAG, "Saved WAV file: " + outputFile.getAbsolutePath());
+            return true;
         } catch (Exception e) {
             Log.e(TAG, "Failed to save WAV file", e);
             return false;
@@ -216,23 +388,8 @@ public class AudioRecorder {
      * Similar to soundfile.write(file, data, samplerate)
      */
     public static boolean saveToWav(File outputFile, float[] audioData, int sampleRate) {
-        try (FileOutputStream fos = new FileOutputStream(outputFile)) {
-            // Convert float to short
-            short[] shortData = new short[audioData.length];
-            for (int i = 0; i < audioData.length; i++) {
-                shortData[i] = (short) (audioData[i] * 32767.0f);
-            }
-            
-            // Write WAV header
-            writeWavHeader(fos, shortData.length, sampleRate);
-            
-            // Write audio data
-            ByteBuffer buffer = ByteBuffer.allocate(shortData.length * 2);
-            buffer.order(ByteOrder.LITTLE_ENDIAN);
-            for (short sample : shortData) {
-                buffer.putShort(sample);
-            }
-            fos.write(buffer.array());
+        try (WavWriter writer = new WavWriter(outputFile, sampleRate, 1)) {
+            writer.write(audioData, 0, audioData.length);
             
             Log.d(TAG, "Saved WAV file: " + outputFile.getAbsolutePath());
             return true;
@@ -248,84 +405,13 @@ public class AudioRecorder {
      * Similar to soundfile.read() in Python
      */
     public static float[] readWavFile(File inputFile) throws IOException {
-        // TODO: Implement WAV file reading
-        // For now, return empty array
-        Log.w(TAG, "WAV file reading not yet implemented");
-        return new float[0];
-    }
-    
-    /**
-     * Write WAV file header
-     */
-    private static void writeWavHeader(FileOutputStream fos, int dataSize, int sampleRate) throws IOException {
-        int byteRate = sampleRate * BYTES_PER_SAMPLE;
-        int totalDataLen = dataSize * BYTES_PER_SAMPLE;
-        int totalSize = totalDataLen + 36;
-        
-        byte[] header = new byte[44];
-        
-        // RIFF chunk
-        header[0] = 'R';
-        header[1] = 'I';
-        header[2] = 'F';
-        header[3] = 'F';
-        header[4] = (byte) (totalSize & 0xff);
-        header[5] = (byte) ((totalSize >> 8) & 0xff);
-        header[6] = (byte) ((totalSize >> 16) & 0xff);
-        header[7] = (byte) ((totalSize >> 24) & 0xff);
-        header[8] = 'W';
-        header[9] = 'A';
-        header[10] = 'V';
-        header[11] = 'E';
-        
-        // fmt chunk
-        header[12] = 'f';
-        header[13] = 'm';
-        header[14] = 't';
-        header[15] = ' ';
-        header[16] = 16; // fmt chunk size
-        header[17] = 0;
-        header[18] = 0;
-        header[19] = 0;
-        header[20] = 1; // PCM format
-        header[21] = 0;
-        header[22] = 1; // Mono
-        header[23] = 0;
-        header[24] = (byte) (sampleRate & 0xff);
-        header[25] = (byte) ((sampleRate >> 8) & 0xff);
-        header[26] = (byte) ((sampleRate >> 16) & 0xff);
-        header[27] = (byte) ((sampleRate >> 24) & 0xff);
-        header[28] = (byte) (byteRate & 0xff);
-        header[29] = (byte) ((byteRate >> 8) & 0xff);
-        header[30] = (byte) ((byteRate >> 16) & 0xff);
-        header[31] = (byte) ((byteRate >> 24) & 0xff);
-        header[32] = BYTES_PER_SAMPLE; // Block align
-        header[33] = 0;
-        header[34] = 16; // Bits per sample
-        header[35] = 0;
-        
-        // data chunk
-        header[36] = 'd';
-        header[37] = 'a';
-        header[38] = 't';
-        header[39] = 'a';
-        header[40] = (byte) (totalDataLen & 0xff);
-        header[41] = (byte) ((totalDataLen >> 8) & 0xff);
-        header[42] = (byte) ((totalDataLen >> 16) & 0xff);
-        header[43] = (byte) ((totalDataLen >> 24) & 0xff);
-        
-        fos.write(header);
-    }
-    
-    /**
-     * Calculate RMS (Root Mean Square) audio level
-     */
-    private float calculateRMS(short[] buffer, int length) {
-        long sum = 0;
-        for (int i = 0; i < length; i++) {
-            sum += buffer[i] * buffer[i];
+        try (WavReader wav = WavReader.open(inputFile)) {
+            if (wav.getChannels() != 1 || wav.getSampleRate() != SAMPLE_RATE) {
+                Log.w(TAG, "WAV format differs from recorder: " + wav.getSampleRate() + " Hz, "
+                    + wav.getChannels() + " channel(s)");
+            }
+            return wav.readFloatSamples();
         }
-        return (float) Math.sqrt(sum / (double) length);
     }
     
     /**
@@ -347,6 +433,7 @@ public class AudioRecorder {
      */
     public void release() {
         stopRecording();
-        audioChunks.clear();
+        capturedAudio = new short[0];
+        capturedLength = 0;
     }
 }
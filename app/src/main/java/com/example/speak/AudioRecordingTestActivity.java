@@ -4,6 +4,7 @@ import android.Manifest;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
 import android.util.Log;
+import android.view.Choreographer;
 import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -11,6 +12,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import java.io.File;
+import java.util.Locale;
 
 /**
  * Test activity for audio recording
@@ -27,6 +29,28 @@ public class AudioRecordingTestActivity extends AppCompatActivity {
     
     private boolean isRecording = false;
     
+    // Polls the recorder's level meter once per display frame while recording
+    private final Choreographer.FrameCallback levelPoller = new Choreographer.FrameCallback() {
+        private long lastUpdateCount = -1;
+        
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!isRecording) {
+                return;
+            }
+            AudioLevelMeter meter = audioRecorder.getLevelMeter();
+            long updateCount = meter.getUpdateCount();
+            if (updateCount != lastUpdateCount && audioLevelText != null) {
+                lastUpdateCount = updateCount;
+                long snapshot = meter.getSnapshot();
+                audioLevelText.setText(String.format(Locale.US, "RMS %.1f dB | Peak %.1f dB",
+                    AudioLevelMeter.toDb(AudioLevelMeter.rmsOf(snapshot)),
+                    AudioLevelMeter.toDb(AudioLevelMeter.peakOf(snapshot))));
+            }
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    };
+    
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -62,10 +86,13 @@ public class AudioRecordingTestActivity extends AppCompatActivity {
     private void startRecording() {
         Log.d(TAG, "=== STARTING AUDIO RECORDING TEST ===");
         
+        // Levels are polled by levelPoller - the capture thread makes no per-read callbacks
+        audioRecorder.setLevelMeteringMode(true);
+        
         boolean started = audioRecorder.startRecording(new AudioRecorder.RecordingCallback() {
             @Override
             public void onAudioData(short[] audioData, int length) {
-                // Log first chunk only
+                // Not called in level metering mode
                 if (length > 0) {
                     Log.d(TAG, "Received audio chunk: " + length + " samples");
                 }
@@ -73,7 +100,7 @@ public class AudioRecordingTestActivity extends AppCompatActivity {
             
             @Override
             public void onAudioLevel(float rms, float db) {
-                // Log audio level
+                // Not called in level metering mode - see levelPoller
                 Log.d(TAG, String.format("Audio level: RMS=%.2f, dB=%.2f", rms, db));
             }
             
@@ -120,6 +147,7 @@ public class AudioRecordingTestActivity extends AppCompatActivity {
         
         if (started) {
             isRecording = true;
+            Choreographer.getInstance().postFrameCallback(levelPoller);
             Log.d(TAG, "✅ Recording started");
             Toast.makeText(this, "Recording... (will stop in 5 seconds)", Toast.LENGTH_SHORT).show();
             
@@ -136,6 +164,7 @@ public class AudioRecordingTestActivity extends AppCompatActivity {
     
     private void stopRecording() {
         Log.d(TAG, "Stopping recording...");
+        Choreographer.getInstance().removeFrameCallback(levelPoller);
         audioRecorder.stopRecording();
         isRecording = false;
     }
@@ -4,15 +4,17 @@ import android.content.Context;
 import android.os.Environment;
 import android.util.Log;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Batch Feature Extractor
@@ -23,30 +25,111 @@ public class BatchFeatureExtractor {
     private static final String TAG = "BatchExtractor";
     private static final String INPUT_DIR = "preprocessed_output_v2";
     private static final String OUTPUT_FILE = "mfcc_features.csv";
+    private static final String FEATURE_LOG_FILE = "mfcc_features" + FeatureLog.FILE_EXTENSION;
+    private static final String MANIFEST_FILE = "mfcc_features" + ExtractionManifest.FILE_EXTENSION;
+    private static final int CHECKPOINT_INTERVAL = 32; // Files written between checkpoints
+    private static final String FEATURE_CACHE_FILE = "feature_cache/batch.bin";
     
     private Context context;
-    private ONNXRandomForestScorer scorer;
-    private AudioPreProcessor audioPreProcessor;
-    private AudioDenoiser audioDenoiser;
     private ProgressCallback callback;
+    private final int workerCount;
     
     public interface ProgressCallback {
         void onProgress(int current, int total, String filename);
         void onComplete(int processed, int skipped, String outputPath);
         void onError(String error);
     }
+    
+    /**
+     * Preprocessing and MFCC state owned by a single worker thread
+     * None of these classes are thread-safe, so workers never share them
+     */
+    private static class WorkerState {
+        final AudioPreProcessor audioPreProcessor = new AudioPreProcessor(16000);
+        final AudioDenoiser audioDenoiser = new AudioDenoiser();
+        final PronunciationFeatureExtractor featureExtractor = new PronunciationFeatureExtractor();
+    }
+    
+    /**
+     * Outcome of one WAV file: its feature vector, or null features if skipped
+     */
+    private static class FileResult {
+        final String filename;
+        final long size;
+        final long lastModified;
+        final long contentHash;
+        final String word;
+        final int label;
+        final float[] features;
+        /** Content matches the manifest - nothing to write */
+        final boolean unchanged;
+        /** Failed for a reason that may not repeat (I/O error) - not recorded, retried next run */
+        final boolean failed;
+        
+        FileResult(String filename, long size, long lastModified, long contentHash,
+                   String word, int label, float[] features, boolean unchanged, boolean failed) {
+            this.filename = filename;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+            this.word = word;
+            this.label = label;
+            this.features = features;
+            this.unchanged = unchanged;
+            this.failed = failed;
+        }
+        
+        static FileResult skipped(String filename, long size, long lastModified, long contentHash) {
+            return new FileResult(filename, size, lastModified, contentHash, null, -1, null, false, false);
+        }
+        
+        static FileResult failed(String filename) {
+            return new FileResult(filename, 0, 0, 0, null, -1, null, false, true);
+        }
+    }
 
     
     public BatchFeatureExtractor(Context context, ProgressCallback callback) {
+        this(context, callback, Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * @param workerCount Number of files processed in parallel (1 = sequential)
+     */
+    public BatchFeatureExtractor(Context context, ProgressCallback callback, int workerCount) {
         this.context = context;
         this.callback = callback;
-        this.scorer = new ONNXRandomForestScorer(context);
-        this.audioPreProcessor = new AudioPreProcessor(16000);
-        this.audioDenoiser = new AudioDenoiser();
+        this.workerCount = Math.max(1, workerCount);
     }
     
+    /**
+     * Extract features, resuming the previous job and skipping unchanged files
+     */
     public void extractAll() {
+        extractAll(false);
+    }
+    
+    /**
+     * Extract features from every WAV file on a fixed worker pool
+     * 
+     * Files are processed in parallel, but rows are written by a single writer in
+     * filename order, so the output is identical for any worker count. At most
+     * 2 x workerCount files are in flight, which bounds memory on large datasets.
+     * 
+     * The job is resumable: an ExtractionManifest records each finished file (size,
+     * mtime, xxHash64 of its content) at checkpoints alongside the FeatureLog length.
+     * A rerun - after new recordings, or after the app was killed mid-run - cuts the
+     * log back to the last checkpoint and only extracts new or modified files.
+     * The CSV for the training scripts is exported from the log once at the end.
+     * 
+     * @param fullRebuild Discard the manifest and log and re-extract everything
+     */
+    public void extractAll(boolean fullRebuild) {
         new Thread(() -> {
+            ExecutorService pool = null;
+            FeatureLog featureLog = null;
+            ExtractionManifest manifest = null;
+            FeatureCache featureCache = null;
             try {
                 // Get input directory
                 File inputDir = new File(Environment.getExternalStorageDirectory(), INPUT_DIR);
@@ -64,166 +147,255 @@ public class BatchFeatureExtractor {
                     return;
                 }
                 
-                Log.i(TAG, "Found " + wavFiles.length + " WAV files");
+                // Stable order - listFiles order depends on the filesystem
+                Arrays.sort(wavFiles, (a, b) -> a.getName().compareTo(b.getName()));
+                
+                Log.i(TAG, "Found " + wavFiles.length + " WAV files, using " + workerCount + " workers");
+                long startTime = System.currentTimeMillis();
                 
-                // Create output file
                 File outputFile = new File(Environment.getExternalStorageDirectory(), OUTPUT_FILE);
-                BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile));
+                File logFile = new File(Environment.getExternalStorageDirectory(), FEATURE_LOG_FILE);
+                File manifestFile = new File(Environment.getExternalStorageDirectory(), MANIFEST_FILE);
                 
-                // Write header
-                writeHeader(writer);
-
+                // Resume from the last checkpoint, unless there is nothing consistent to resume
+                manifest = ExtractionManifest.open(manifestFile, PronunciationFeatureExtractor.CONFIG_VERSION);
+                long checkpoint = manifest.getCheckpointOffset();
+                if (fullRebuild || manifest.size() == 0 || !logFile.exists() || logFile.length() < checkpoint) {
+                    manifest.reset();
+                    if (logFile.exists() && !logFile.delete()) {
+                        throw new IOException("Cannot replace " + logFile.getAbsolutePath());
+                    }
+                    featureLog = FeatureLog.open(logFile, PronunciationFeatureExtractor.FEATURE_COUNT);
+                } else {
+                    Log.i(TAG, "Resuming: " + manifest.size() + " files in manifest");
+                    featureLog = FeatureLog.open(logFile, PronunciationFeatureExtractor.FEATURE_COUNT, checkpoint);
+                }
+                
+                // Keyed on the raw file PCM, so a hit also skips preprocessing
+                featureCache = new FeatureCache(new File(context.getFilesDir(), FEATURE_CACHE_FILE),
+                    PronunciationFeatureExtractor.FEATURE_COUNT, FeatureCache.DEFAULT_MAX_ENTRIES);
+                final FeatureCache cache = featureCache;
+                
+                pool = Executors.newFixedThreadPool(workerCount);
+                ThreadLocal<WorkerState> workerState = new ThreadLocal<WorkerState>() {
+                    @Override
+                    protected WorkerState initialValue() {
+                        return new WorkerState();
+                    }
+                };
                 
-                // Process each file
-                int processed = 0;
-                int skipped = 0;
+                // Bounded in-order queue of pending results
+                int maxInFlight = workerCount * 2;
+                ArrayDeque<Future<FileResult>> pending = new ArrayDeque<>(maxInFlight);
                 
-                for (int i = 0; i < wavFiles.length; i++) {
-                    File wavFile = wavFiles[i];
-                    String filename = wavFile.getName();
+                int[] counts = new int[3]; // processed, skipped, reused
+                int written = 0;
+                int sinceCheckpoint = 0;
+                List<String> filenames = new ArrayList<>(wavFiles.length);
+                
+                for (File wavFile : wavFiles) {
+                    filenames.add(wavFile.getName());
                     
-                    callback.onProgress(i + 1, wavFiles.length, filename);
+                    // Unchanged size and mtime - reuse without reading the file
+                    ExtractionManifest.Entry previous = manifest.get(wavFile.getName());
+                    if (previous != null && previous.matchesStat(wavFile)) {
+                        counts[previous.hasRow ? 0 : 1]++;
+                        counts[2]++;
+                        callback.onProgress(++written, wavFiles.length, wavFile.getName());
+                        continue;
+                    }
                     
-                    try {
-                        // Extract word and label from filename
-                        String word = extractWord(filename);
-                        int label = extractLabel(filename);
-                        
-                        if (label == -1) {
-                            Log.w(TAG, "Unknown label for: " + filename);
-                            skipped++;
-                            continue;
+                    if (pending.size() >= maxInFlight) {
+                        FileResult result = pending.poll().get();
+                        callback.onProgress(++written, wavFiles.length, result.filename);
+                        writeResult(featureLog, manifest, result, counts);
+                        if (++sinceCheckpoint >= CHECKPOINT_INTERVAL) {
+                            checkpoint(featureLog, manifest);
+                            sinceCheckpoint = 0;
                         }
-                        
-                        // Load audio
-                        short[] audio = loadWavFile(wavFile);
-                        if (audio == null || audio.length < 3200) {
-                            Log.w(TAG, "Invalid audio: " + filename);
-                            skipped++;
-                            continue;
-                        }
-                        
-                        // Apply preprocessing
-                        audio = audioDenoiser.applyLightweightDenoising(audio);
-                        audio = audioDenoiser.applyAGC(audio);
-                        audio = audioPreProcessor.rmsNormalize(audio);
-                        
-                        // Extract features
-                        float[] features = extractFeatures(audio);
-                        if (features == null) {
-                            Log.w(TAG, "Feature extraction failed: " + filename);
-                            skipped++;
-                            continue;
-                        }
-
-                        
-                        // Write to CSV
-                        writeFeatureRow(writer, filename, word, features, label);
-                        processed++;
-                        
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error processing " + filename + ": " + e.getMessage());
-                        skipped++;
                     }
+                    final long size = wavFile.length();
+                    final long lastModified = wavFile.lastModified();
+                    pending.add(pool.submit(() ->
+                        processFile(wavFile, size, lastModified, previous, cache, workerState.get())));
                 }
                 
-                writer.close();
+                while (!pending.isEmpty()) {
+                    FileResult result = pending.poll().get();
+                    callback.onProgress(++written, wavFiles.length, result.filename);
+                    writeResult(featureLog, manifest, result, counts);
+                }
+                checkpoint(featureLog, manifest);
+                
+                featureLog.close();
+                featureLog = null;
+                manifest.close();
+                manifest = null;
+                
+                Log.i(TAG, String.format("Extracted %d files in %d ms (%d workers, %d unchanged)",
+                    wavFiles.length - counts[2], System.currentTimeMillis() - startTime, workerCount, counts[2]));
+                
+                // CSV for the Python training scripts - newest row per current file, written
+                // beside the old CSV and swapped in so a kill mid-export keeps the previous one
+                File tempFile = new File(outputFile.getPath() + ".tmp");
+                FeatureLog.exportLatestCsv(logFile, tempFile, filenames);
+                if (!tempFile.renameTo(outputFile)) {
+                    throw new IOException("Cannot replace " + outputFile.getAbsolutePath());
+                }
                 
-                callback.onComplete(processed, skipped, outputFile.getAbsolutePath());
+                callback.onComplete(counts[0], counts[1], outputFile.getAbsolutePath());
                 
             } catch (Exception e) {
                 callback.onError("Extraction failed: " + e.getMessage());
+            } finally {
+                if (pool != null) {
+                    pool.shutdownNow();
+                }
+                if (featureLog != null) {
+                    try {
+                        featureLog.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+                if (manifest != null) {
+                    try {
+                        manifest.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+                if (featureCache != null) {
+                    try {
+                        featureCache.save();
+                    } catch (IOException e) {
+                        Log.w(TAG, "Could not save feature cache: " + e.getMessage());
+                    }
+                }
             }
         }).start();
     }
     
-    private void writeHeader(BufferedWriter writer) throws IOException {
-        StringBuilder header = new StringBuilder("filename,word,");
-        for (int i = 0; i < 39; i++) {
-            header.append("f").append(i).append(",");
-        }
-        header.append("label");
-        writer.write(header.toString());
-        writer.newLine();
-    }
-    
-    private void writeFeatureRow(BufferedWriter writer, String filename, String word, 
-                                  float[] features, int label) throws IOException {
-        StringBuilder row = new StringBuilder();
-        row.append(filename).append(",");
-        row.append(word).append(",");
-        for (float f : features) {
-            row.append(String.format("%.6f", f)).append(",");
-        }
-        row.append(label);
-        writer.write(row.toString());
-        writer.newLine();
-    }
-
-    
-    private float[] extractFeatures(short[] audio) {
+    /**
+     * Hash, load, preprocess and extract one file on a worker thread
+     * 
+     * @param previous Manifest entry from an earlier run whose size/mtime no longer
+     *                 match, or null - if the content hash still matches, nothing is extracted
+     * @param cache Features by PCM content - same audio under another name or after a
+     *              full rebuild is not extracted again
+     */
+    private FileResult processFile(File wavFile, long size, long lastModified,
+                                   ExtractionManifest.Entry previous, FeatureCache cache, WorkerState state) {
+        String filename = wavFile.getName();
         try {
-            TarsosMFCCExtractor extractor = new TarsosMFCCExtractor();
-            float[][] mfccFrames = extractor.extractFeatures(audio);
-            
-            if (mfccFrames.length == 0) {
-                return null;
+            long contentHash = hashFile(wavFile);
+            if (previous != null && previous.contentHash == contentHash) {
+                // Touched or copied, but same content
+                return new FileResult(filename, size, lastModified, contentHash,
+                    null, -1, null, true, false);
             }
             
-            // Calculate means, deltas, delta-deltas (same as ONNXRandomForestScorer)
-            int numCoeffs = mfccFrames[0].length;
-            int numFrames = mfccFrames.length;
-            
-            float[] features = new float[numCoeffs * 3];
+            // Extract word and label from filename
+            String word = extractWord(filename);
+            int label = extractLabel(filename);
             
-            // Means
-            for (int c = 0; c < numCoeffs; c++) {
-                float sum = 0;
-                for (int f = 0; f < numFrames; f++) {
-                    sum += mfccFrames[f][c];
-                }
-                features[c] = sum / numFrames;
+            if (label == -1) {
+                Log.w(TAG, "Unknown label for: " + filename);
+                return FileResult.skipped(filename, size, lastModified, contentHash);
             }
             
-            // Deltas
-            float[] deltas = computeDelta(mfccFrames, numCoeffs, numFrames);
-            System.arraycopy(deltas, 0, features, numCoeffs, numCoeffs);
+            // Load audio - other I/O errors fall through to failed and are retried next run
+            short[] audio;
+            try {
+                audio = loadWavFile(wavFile);
+            } catch (WavReader.WavFormatException e) {
+                // Wrong rate or channel count won't change on a retry - recorded, so resumed runs skip it
+                Log.w(TAG, "Unsupported WAV format: " + filename + " (" + e.getMessage() + ")");
+                return FileResult.skipped(filename, size, lastModified, contentHash);
+            }
+            if (audio.length < 3200) {
+                Log.w(TAG, "Invalid audio: " + filename);
+                return FileResult.skipped(filename, size, lastModified, contentHash);
+            }
             
-            // Delta-deltas
-            float[][] deltaFrames = new float[numFrames][numCoeffs];
-            for (int f = 0; f < numFrames; f++) {
-                for (int c = 0; c < numCoeffs; c++) {
-                    if (f == 0) {
-                        deltaFrames[f][c] = 0;
-                    } else {
-                        deltaFrames[f][c] = mfccFrames[f][c] - mfccFrames[f-1][c];
-                    }
+            long cacheKey = FeatureCache.key(audio);
+            float[] features = cache.get(cacheKey, audio.length);
+            if (features == null) {
+                int numSamples = audio.length;
+                
+                // Apply preprocessing
+                audio = state.audioDenoiser.applyLightweightDenoising(audio);
+                audio = state.audioDenoiser.applyAGC(audio);
+                audio = state.audioPreProcessor.rmsNormalize(audio);
+                
+                // Extract features
+                features = extractFeatures(state, audio);
+                if (features != null) {
+                    cache.put(cacheKey, numSamples, features);
                 }
             }
-            float[] deltaDeltas = computeDelta(deltaFrames, numCoeffs, numFrames);
-            System.arraycopy(deltaDeltas, 0, features, numCoeffs * 2, numCoeffs);
+            if (features == null) {
+                Log.w(TAG, "Feature extraction failed: " + filename);
+                return FileResult.skipped(filename, size, lastModified, contentHash);
+            }
             
-            return features;
+            return new FileResult(filename, size, lastModified, contentHash,
+                word, label, features, false, false);
             
         } catch (Exception e) {
-            Log.e(TAG, "Feature extraction error: " + e.getMessage());
-            return null;
+            Log.e(TAG, "Error processing " + filename + ": " + e.getMessage());
+            return FileResult.failed(filename);
         }
     }
-
     
-    private float[] computeDelta(float[][] frames, int numCoeffs, int numFrames) {
-        float[] deltas = new float[numCoeffs];
-        for (int c = 0; c < numCoeffs; c++) {
-            float sum = 0;
-            int count = 0;
-            for (int f = 1; f < numFrames; f++) {
-                sum += frames[f][c] - frames[f-1][c];
-                count++;
+    /**
+     * Append a result's row and queue its manifest entry
+     * 
+     * @param counts processed, skipped, reused - updated in place
+     */
+    private void writeResult(FeatureLog featureLog, ExtractionManifest manifest,
+                             FileResult result, int[] counts) throws IOException {
+        if (result.failed) {
+            counts[1]++;
+            return;
+        }
+        
+        boolean hasRow;
+        if (result.unchanged) {
+            hasRow = manifest.get(result.filename).hasRow;
+            counts[2]++;
+        } else {
+            hasRow = result.features != null;
+            if (hasRow) {
+                featureLog.append(result.word, result.filename, result.label, result.features);
             }
-            deltas[c] = (count > 0) ? (sum / count) : 0;
         }
-        return deltas;
+        counts[hasRow ? 0 : 1]++;
+        manifest.record(new ExtractionManifest.Entry(result.filename, result.size,
+            result.lastModified, result.contentHash, hasRow));
+    }
+    
+    /**
+     * Make the rows written so far durable, then commit their manifest entries
+     */
+    private void checkpoint(FeatureLog featureLog, ExtractionManifest manifest) throws IOException {
+        featureLog.sync();
+        manifest.checkpoint(featureLog.position());
+    }
+    
+    private static long hashFile(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return XxHash64.hash(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), 0);
+        }
+    }
+    
+    private float[] extractFeatures(WorkerState state, short[] audio) {
+        try {
+            // Same extraction as ONNXRandomForestScorer
+            return state.featureExtractor.extract(audio);
+        } catch (Exception e) {
+            Log.e(TAG, "Feature extraction error: " + e.getMessage());
+            return null;
+        }
     }
     
     private String extractWord(String filename) {
@@ -258,28 +430,13 @@ public class BatchFeatureExtractor {
     }
 
     
-    private short[] loadWavFile(File file) {
-        try {
-            FileInputStream fis = new FileInputStream(file);
-            
-            // Skip WAV header (44 bytes)
-            fis.skip(44);
-            
-            // Read audio data
-            byte[] audioBytes = new byte[(int) (file.length() - 44)];
-            fis.read(audioBytes);
-            fis.close();
-            
-            // Convert bytes to short[]
-            short[] audioData = new short[audioBytes.length / 2];
-            ByteBuffer.wrap(audioBytes).order(ByteOrder.LITTLE_ENDIAN)
-                      .asShortBuffer().get(audioData);
-            
-            return audioData;
-            
-        } catch (IOException e) {
-            Log.e(TAG, "Error loading WAV: " + e.getMessage());
-            return null;
+    /**
+     * @throws WavReader.WavFormatException if the clip is not 16 kHz mono
+     */
+    private short[] loadWavFile(File file) throws IOException {
+        // Training clips must match the recognizer's capture format
+        try (WavReader wav = WavReader.open(file, 16000, 1)) {
+            return wav.readSamples();
         }
     }
 }
@@ -6,13 +6,10 @@ import android.util.Log;
 
 import org.tensorflow.lite.Interpreter;
 
-import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,42 +21,101 @@ import java.util.Map;
  */
 public class DistilBERTTextAnalyzer {
     private static final String TAG = "DistilBERTAnalyzer";
-    private static final String MODEL_PATH = "distilbert_fp16.tflite";
+    public static final String MODEL_PATH_FP16 = "distilbert_fp16.tflite";
+    public static final String MODEL_PATH_INT8 = "distilbert_int8.tflite"; // Optional - falls back to fp16 if not bundled
     private static final String VOCAB_PATH = "vocab.txt";
     
+    // Embedding size of the standard DistilBERT output
+    private static final int EMBEDDING_DIM = 768;
+    
     // DistilBERT configuration
     private static final int MAX_SEQ_LENGTH = 128; // Reduced for mobile performance
-    private static final String CLS_TOKEN = "[CLS]";
-    private static final String SEP_TOKEN = "[SEP]";
-    private static final String PAD_TOKEN = "[PAD]";
-    private static final String UNK_TOKEN = "[UNK]";
     
     private Interpreter interpreter;
-    private Map<String, Integer> vocab;
+    private WordPieceTokenizer tokenizer;
     private boolean isModelLoaded = false;
+    private InferenceConfig config;
+    private int outputDim = EMBEDDING_DIM; // Resolved from the model at load time
     
     /**
-     * Constructor - loads DistilBERT model and vocabulary
+     * Inference backend configuration for the TFLite interpreter
+     * Lets us pick model variant, thread count and XNNPACK per device
+     */
+    public static class InferenceConfig {
+        public final String modelPath;
+        public final int numThreads;
+        public final boolean useXnnpack;
+        
+        public InferenceConfig(String modelPath, int numThreads, boolean useXnnpack) {
+            this.modelPath = modelPath;
+            this.numThreads = Math.max(1, numThreads);
+            this.useXnnpack = useXnnpack;
+        }
+        
+        /**
+         * Default backend: fp16 model, XNNPACK on, threads derived from available cores
+         */
+        public static InferenceConfig defaultConfig() {
+            return new InferenceConfig(MODEL_PATH_FP16, defaultThreadCount(), true);
+        }
+        
+        /**
+         * Thread count derived from available cores
+         * Tablets are big.LITTLE, so only about half the cores are fast ones.
+         * Capped at 4 because DistilBERT stops scaling beyond that on mobile.
+         */
+        public static int defaultThreadCount() {
+            int cores = Runtime.getRuntime().availableProcessors();
+            return Math.max(1, Math.min(4, cores / 2));
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%s, threads=%d, xnnpack=%s", modelPath, numThreads, useXnnpack ? "on" : "off");
+        }
+    }
+    
+    /**
+     * Constructor - loads DistilBERT model and vocabulary with the default backend
      */
     public DistilBERTTextAnalyzer(Context context) {
+        this(context, InferenceConfig.defaultConfig());
+    }
+    
+    /**
+     * Constructor - loads DistilBERT model and vocabulary with a specific backend
+     */
+    public DistilBERTTextAnalyzer(Context context, InferenceConfig config) {
         try {
-            Log.d(TAG, "Loading DistilBERT model...");
+            Log.d(TAG, "Loading DistilBERT model (" + config + ")...");
             
             // Load vocabulary
-            vocab = loadVocabulary(context);
-            Log.d(TAG, "Vocabulary loaded: " + vocab.size() + " tokens");
+            tokenizer = WordPieceTokenizer.load(context.getAssets().open(VOCAB_PATH), MAX_SEQ_LENGTH);
+            Log.d(TAG, "Vocabulary loaded: " + tokenizer.getVocabularySize() + " tokens");
+            
+            // Fall back to the fp16 model if the int8 variant is not bundled
+            if (!assetExists(context, config.modelPath)) {
+                Log.w(TAG, "⚠️ Model " + config.modelPath + " not found, falling back to " + MODEL_PATH_FP16);
+                config = new InferenceConfig(MODEL_PATH_FP16, config.numThreads, config.useXnnpack);
+            }
+            this.config = config;
             
             // Load model
-            MappedByteBuffer modelBuffer = loadModelFile(context, MODEL_PATH);
+            MappedByteBuffer modelBuffer = loadModelFile(context, config.modelPath);
             
             // Configure interpreter
             Interpreter.Options options = new Interpreter.Options();
-            options.setNumThreads(2); // Use 2 threads to balance performance
+            options.setNumThreads(config.numThreads);
+            options.setUseXNNPACK(config.useXnnpack);
             
             interpreter = new Interpreter(modelBuffer, options);
+            
+            // Resolve output shape once instead of probing on every inference
+            int[] outputShape = interpreter.getOutputTensor(0).shape();
+            outputDim = outputShape[outputShape.length - 1];
             isModelLoaded = true;
             
-            Log.d(TAG, "✅ DistilBERT model loaded successfully");
+            Log.d(TAG, "✅ DistilBERT model loaded successfully (output dim: " + outputDim + ")");
             
         } catch (Exception e) {
             Log.e(TAG, "❌ Failed to load DistilBERT model: " + e.getMessage(), e);
@@ -106,7 +162,7 @@ public class DistilBERTTextAnalyzer {
      */
     private float[] getTextEmbedding(String text) {
         // Tokenize text
-        List<Integer> tokenIds = tokenize(text);
+        List<Integer> tokenIds = tokenizer.tokenize(text);
         
         // Prepare input tensors
         int[][] inputIds = new int[1][MAX_SEQ_LENGTH];
@@ -118,109 +174,23 @@ public class DistilBERTTextAnalyzer {
             attentionMask[0][i] = 1;
         }
         
-        // Run inference to get output shape first
+        // Run inference with the output shape resolved at load time
         Object[] inputs = {inputIds, attentionMask};
         Map<Integer, Object> outputs = new HashMap<>();
+        float[][] output = new float[1][outputDim];
+        outputs.put(0, output);
+        interpreter.runForMultipleInputsOutputs(inputs, outputs);
         
-        // Try with 768 dimensions first (standard DistilBERT)
-        float[][] output768 = new float[1][768];
-        outputs.put(0, output768);
-        
-        try {
-            interpreter.runForMultipleInputsOutputs(inputs, outputs);
-            return output768[0];
-        } catch (IllegalArgumentException e) {
-            // Model outputs different shape - try with 2 dimensions (classification output)
-            Log.w(TAG, "Model outputs [1,2] instead of [1,768] - using classification output");
-            float[][] output2 = new float[1][2];
-            outputs.clear();
-            outputs.put(0, output2);
-            interpreter.runForMultipleInputsOutputs(inputs, outputs);
-            
-            // Convert 2D classification to pseudo-embedding by repeating
-            float[] embedding = new float[768];
-            for (int i = 0; i < 768; i++) {
-                embedding[i] = output2[0][i % 2];
-            }
-            return embedding;
+        if (outputDim == EMBEDDING_DIM) {
+            return output[0];
         }
-    }
-    
-    /**
-     * Tokenize text using WordPiece tokenization
-     */
-    private List<Integer> tokenize(String text) {
-        List<Integer> tokenIds = new ArrayList<>();
-        
-        // Add [CLS] token
-        tokenIds.add(vocab.getOrDefault(CLS_TOKEN, vocab.get(UNK_TOKEN)));
         
-        // Clean and split text
-        String cleanText = text.toLowerCase().trim();
-        String[] words = cleanText.split("\\s+");
-        
-        // Tokenize each word
-        for (String word : words) {
-            // Remove punctuation
-            word = word.replaceAll("[^a-z0-9]", "");
-            
-            if (word.isEmpty()) continue;
-            
-            // Try to find word in vocabulary
-            if (vocab.containsKey(word)) {
-                tokenIds.add(vocab.get(word));
-            } else {
-                // Try WordPiece subword tokenization
-                List<Integer> subwordIds = tokenizeWordPiece(word);
-                tokenIds.addAll(subwordIds);
-            }
-            
-            // Stop if we're approaching max length
-            if (tokenIds.size() >= MAX_SEQ_LENGTH - 1) break;
-        }
-        
-        // Add [SEP] token
-        tokenIds.add(vocab.getOrDefault(SEP_TOKEN, vocab.get(UNK_TOKEN)));
-        
-        return tokenIds;
-    }
-    
-    /**
-     * WordPiece subword tokenization
-     */
-    private List<Integer> tokenizeWordPiece(String word) {
-        List<Integer> subwordIds = new ArrayList<>();
-        
-        int start = 0;
-        while (start < word.length()) {
-            int end = word.length();
-            Integer tokenId = null;
-            
-            // Try to find longest matching subword
-            while (start < end) {
-                String subword = word.substring(start, end);
-                if (start > 0) {
-                    subword = "##" + subword; // WordPiece continuation marker
-                }
-                
-                if (vocab.containsKey(subword)) {
-                    tokenId = vocab.get(subword);
-                    break;
-                }
-                end--;
-            }
-            
-            if (tokenId != null) {
-                subwordIds.add(tokenId);
-                start = end;
-            } else {
-                // Unknown token
-                subwordIds.add(vocab.get(UNK_TOKEN));
-                start++;
-            }
+        // Model outputs classification logits (e.g. [1,2]) - convert to pseudo-embedding by repeating
+        float[] embedding = new float[EMBEDDING_DIM];
+        for (int i = 0; i < EMBEDDING_DIM; i++) {
+            embedding[i] = output[0][i % outputDim];
         }
-        
-        return subwordIds;
+        return embedding;
     }
     
     /**
@@ -251,27 +221,6 @@ public class DistilBERTTextAnalyzer {
         return dotProduct / (norm1 * norm2);
     }
     
-    /**
-     * Load vocabulary from assets
-     */
-    private Map<String, Integer> loadVocabulary(Context context) throws IOException {
-        Map<String, Integer> vocab = new HashMap<>();
-        
-        BufferedReader reader = new BufferedReader(
-            new InputStreamReader(context.getAssets().open(VOCAB_PATH))
-        );
-        
-        String line;
-        int index = 0;
-        while ((line = reader.readLine()) != null) {
-            vocab.put(line.trim(), index);
-            index++;
-        }
-        
-        reader.close();
-        return vocab;
-    }
-    
     /**
      * Load TFLite model from assets
      */
@@ -284,6 +233,25 @@ public class DistilBERTTextAnalyzer {
         return fileChannel.map(FileChannel.MapMode.READ_ONLY, startOffset, declaredLength);
     }
     
+    /**
+     * Check whether an asset is bundled in the APK
+     */
+    private static boolean assetExists(Context context, String path) {
+        try {
+            context.getAssets().openFd(path).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Get the backend configuration actually in use (after any model fallback)
+     */
+    public InferenceConfig getConfig() {
+        return config;
+    }
+    
     /**
      * Check if model is loaded
      */
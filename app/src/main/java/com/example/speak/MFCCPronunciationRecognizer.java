@@ -1,25 +1,28 @@
 package com.example.speak;
 
-import android.Manifest;
 import android.content.Context;
-import android.content.pm.PackageManager;
-import android.media.AudioFormat;
-import android.media.AudioRecord;
-import android.media.MediaRecorder;
-import android.util.Log;
-import androidx.core.content.ContextCompat;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * MFCC-based Pronunciation Recognizer
  * 
  * Pipeline:
- * 1. Record audio from microphone
+ * 1. Record audio from microphone (or replay a recording through an AudioSource)
  * 2. Extract MFCC features using MFCCExtractor
  * 3. Run through ONNX Random Forest model
  * 4. Get pronunciation predictions (correct/incorrect)
+ * 5. After the session, score comprehension with DistilBERT on a background thread
+ * 6. Optionally archive each word's raw audio (FLAC) for retraining, on a background thread
  * 
  * NO SPEECH-TO-TEXT - User must read the expected words in order
  */
@@ -28,9 +31,9 @@ public class MFCCPronunciationRecognizer {
     
     // Audio parameters
     private static final int SAMPLE_RATE = 16000;
-    private static final int CHANNEL_CONFIG = AudioFormat.CHANNEL_IN_MONO;
-    private static final int AUDIO_FORMAT = AudioFormat.ENCODING_PCM_16BIT;
-    private static final int BUFFER_SIZE = AudioRecord.getMinBufferSize(SAMPLE_RATE, CHANNEL_CONFIG, AUDIO_FORMAT);
+    // Segmentation frame: speech/silence is decided per frame, so it is fixed rather than
+    // taken from the device's AudioRecord buffer size, keeping results device-independent
+    private static final int FRAME_SAMPLES = 1280; // 80 ms
     
     // Word timing parameters
     private static final long WORD_TIMEOUT_MS = 3000; // 3 seconds per word
@@ -38,22 +41,52 @@ public class MFCCPronunciationRecognizer {
     private static final float SILENCE_AMPLITUDE_THRESHOLD = 0.08f; // RMS threshold (balanced)
     private static final int MIN_SPEECH_SAMPLES = 3200; // Minimum samples for valid speech (~0.2s at 16kHz)
     
+    // Capture -> processing handoff: scoring a word may lag capture by up to this much
+    private static final int RING_SECONDS = 10;
+    private static final long PROCESSING_POLL_MS = 100;
+    private static final long REPLAY_BACKOFF_NANOS = 1_000_000; // Replay waits for a full ring
+    
     private Context context;
-    private ONNXRandomForestScorer onnxScorer;
+    private PronunciationScorer pronunciationScorer;
     private AudioDenoiser audioDenoiser;
     private AudioPreProcessor audioPreProcessor;
     private ReadingLevelClassifier levelClassifier;
-    private DistilBERTTextAnalyzer textAnalyzer;
+    private DistilBERTTextAnalyzer textAnalyzer; // Loaded lazily on the comprehension executor
+    
+    // Post-session comprehension stage - single thread so the analyzer is only touched there
+    private final ExecutorService comprehensionExecutor = Executors.newSingleThreadExecutor();
     
-    private AudioRecord audioRecord;
+    // Word audio archive for retraining - the archive is only touched on archiveExecutor
+    private final ExecutorService archiveExecutor = Executors.newSingleThreadExecutor();
+    private SessionAudioArchive audioArchive;
+    private File archiveDirectory; // null = archiving disabled
+    
+    // The capture thread only moves mic audio into the ring; segmentation and scoring
+    // run on the processing thread, so a slow word never makes capture miss audio
+    private AudioSource audioSource;
     private Thread recordingThread;
-    private boolean isRecording = false;
+    private Thread processingThread;
+    private PcmRingBuffer ring;
+    private volatile boolean isRecording = false;
+    private volatile boolean abandonBacklog = false; // Set by release() - unscored audio is dropped
     
     private String[] expectedWords;
+    private String passageText;
     private int currentWordIndex = 0;
     private List<Float> pronunciationScores;
     private List<Boolean> wordCorrectness;
-    private long recognitionStartTime = 0;
+    private long samplesProcessed = 0; // Stream position of the processing thread
+    private final PipelineMetrics pipelineMetrics = new PipelineMetrics(); // Per-stage word latency, per session
+    private final RealTimeMonitor realTimeMonitor = new RealTimeMonitor(SAMPLE_RATE); // RTF and overruns, per session
+    private final AllocationMonitor allocationMonitor = new AllocationMonitor(new ArtRuntimeSampler()); // GC, per session
+    private final TraceRecorder traceRecorder = new TraceRecorder(TraceRecorder.DEFAULT_CAPACITY); // Structured events, per session
+    private final int[] traceStages = new int[PipelineMetrics.Stage.values().length];
+    private final int traceSegment = traceRecorder.register("segment", "sample");
+    private final int traceBacklog = traceRecorder.register("backlog", "ms");
+    private final int traceWordDetected = traceRecorder.register("onWordDetected", "word");
+    private final int traceWordScored = traceRecorder.register("onWordScored", "word");
+    private final int traceComplete = traceRecorder.register("onComplete");
+    private volatile ProfilingTrigger profilingTrigger; // Debug builds only
     
     private RecognitionCallback callback;
     
@@ -66,54 +99,112 @@ public class MFCCPronunciationRecognizer {
         void onWordScored(int wordIndex, String expectedWord, float score, boolean isCorrect);
         void onComplete(float overallAccuracy, float averagePronunciation, float comprehensionScore, ReadingLevelClassifier.ReadingLevelResult readingLevel);
         void onError(String error);
+        
+        /**
+         * Called from a background thread some time after onComplete,
+         * once DistilBERT comprehension analysis has finished
+         * 
+         * @param readingLevel The session reclassified with the comprehension score
+         */
+        default void onComprehensionScored(float comprehensionScore,
+                                           ReadingLevelClassifier.ReadingLevelResult readingLevel) {}
     }
     
     public MFCCPronunciationRecognizer(Context context) {
-        this.context = context;
         // Use TarsosDSP for MFCC extraction (more reliable)
         // mfccExtractor not needed here - ONNXRandomForestScorer handles it
-        this.onnxScorer = new ONNXRandomForestScorer(context);
+        this(context, new ONNXRandomForestScorer(context), new ReadingLevelClassifier(context));
+    }
+    
+    /**
+     * Recognizer with injected scoring stages - for replay tests and benchmarks off-device
+     */
+    MFCCPronunciationRecognizer(Context context, PronunciationScorer pronunciationScorer,
+                                ReadingLevelClassifier levelClassifier) {
+        this.context = context;
+        this.pronunciationScorer = pronunciationScorer;
+        this.pronunciationScorer.setPipelineMetrics(pipelineMetrics);
+        for (PipelineMetrics.Stage stage : PipelineMetrics.Stage.values()) {
+            traceStages[stage.ordinal()] = traceRecorder.register(stage.key);
+        }
+        this.pipelineMetrics.setStageListener((stage, startNanos, endNanos) -> {
+            traceRecorder.complete(traceStages[stage.ordinal()], startNanos, endNanos);
+            allocationMonitor.onStageEnd(stage, startNanos, endNanos);
+            ProfilingTrigger profiler = profilingTrigger;
+            if (profiler != null) {
+                profiler.onStageEnd(stage, startNanos, endNanos);
+            }
+        });
         this.audioDenoiser = new AudioDenoiser();
         this.audioPreProcessor = new AudioPreProcessor(SAMPLE_RATE);
-        this.levelClassifier = new ReadingLevelClassifier(context);
-        this.textAnalyzer = new DistilBERTTextAnalyzer(context);
+        this.levelClassifier = levelClassifier;
         this.pronunciationScores = new ArrayList<>();
         this.wordCorrectness = new ArrayList<>();
         
-        Log.d(TAG, "MFCC Pronunciation Recognizer initialized (using TarsosDSP)");
+        SpeechLog.d(TAG, "MFCC Pronunciation Recognizer initialized (using TarsosDSP)");
     }
     
     /**
-     * Start recognition with expected words
+     * Start recognition with expected words, listening to the microphone
      */
     public void startRecognition(String[] expectedWords, String passageText, 
                                  String studentId, String studentName, String passageTitle,
                                  RecognitionCallback callback) {
+        startRecognition(new MicrophoneAudioSource(context, SAMPLE_RATE), expectedWords, passageText,
+            studentId, studentName, passageTitle, callback);
+    }
+    
+    /**
+     * Start recognition on any audio source, e.g. a ReplayAudioSource for a recorded passage
+     * A replay that is not real-time runs as fast as words can be scored; recognition
+     * completes when all words are scored or the source ends.
+     */
+    public void startRecognition(AudioSource source, String[] expectedWords, String passageText,
+                                 String studentId, String studentName, String passageTitle,
+                                 RecognitionCallback callback) {
         if (isRecording) {
-            Log.w(TAG, "Already recording");
+            SpeechLog.w(TAG, "Already recording");
+            return;
+        }
+        
+        // Validate the source before any per-session state or telemetry is started
+        if (source.getSampleRate() != SAMPLE_RATE) {
+            callback.onError("Audio must be " + SAMPLE_RATE + " Hz, got " + source.getSampleRate() + " Hz");
             return;
         }
         
         this.expectedWords = expectedWords;
+        this.passageText = passageText;
         this.callback = callback;
         this.currentWordIndex = 0;
         this.pronunciationScores.clear();
         this.wordCorrectness.clear();
-        this.recognitionStartTime = System.currentTimeMillis();
-        
-        // Check audio permission
-        if (ContextCompat.checkSelfPermission(context, Manifest.permission.RECORD_AUDIO) 
-                != PackageManager.PERMISSION_GRANTED) {
-            callback.onError("Microphone permission not granted");
-            return;
+        this.samplesProcessed = 0;
+        this.pipelineMetrics.reset();
+        this.realTimeMonitor.reset();
+        this.allocationMonitor.start();
+        this.traceRecorder.clear();
+        ProfilingTrigger profiler = profilingTrigger;
+        if (profiler != null) {
+            profiler.startSession(studentId, passageTitle, expectedWords.length);
         }
         
         // Reset audio processors
         audioDenoiser.reset();
         audioPreProcessor.reset();
         
+        openAudioArchive(studentId, passageTitle);
+        
         // Start recording
-        startRecording();
+        if (!startRecording(source)) {
+            closeAudioArchive();
+            // No session ran - close the telemetry opened for it
+            allocationMonitor.finish();
+            if (profiler != null) {
+                profiler.finishSession();
+            }
+            return;
+        }
         
         if (callback != null) {
             callback.onReady();
@@ -122,140 +213,253 @@ public class MFCCPronunciationRecognizer {
     
     /**
      * Start audio recording and word detection
+     * 
+     * @return false if the source could not start (reported via onError)
      */
-    private void startRecording() {
+    private boolean startRecording(AudioSource source) {
         try {
-            audioRecord = new AudioRecord(
-                MediaRecorder.AudioSource.VOICE_RECOGNITION,
-                SAMPLE_RATE,
-                CHANNEL_CONFIG,
-                AUDIO_FORMAT,
-                BUFFER_SIZE * 4
-            );
-            
-            if (audioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
-                Log.e(TAG, "AudioRecord not initialized");
-                if (callback != null) {
-                    callback.onError("Failed to initialize audio recording");
-                }
-                return;
-            }
-            
-            audioRecord.startRecording();
-            isRecording = true;
-            
-            recordingThread = new Thread(() -> {
-                processAudioStream();
-            });
-            recordingThread.start();
-            
-            Log.d(TAG, "Audio recording started");
-            
+            source.start();
         } catch (Exception e) {
-            Log.e(TAG, "Failed to start recording", e);
+            SpeechLog.e(TAG, "Failed to start recording", e);
             if (callback != null) {
-                callback.onError("Failed to start recording: " + e.getMessage());
+                callback.onError(e.getMessage());
+            }
+            return false;
+        }
+        
+        audioSource = source;
+        ring = new PcmRingBuffer(SAMPLE_RATE * RING_SECONDS);
+        isRecording = true;
+        
+        processingThread = new Thread(this::processAudioStream, "MFCCPron-processing");
+        processingThread.start();
+        recordingThread = new Thread(this::captureAudio, "MFCCPron-capture");
+        recordingThread.start();
+        
+        SpeechLog.d(TAG, "Audio recording started" + (source.isRealTime() ? "" : " (replay)"));
+        return true;
+    }
+    
+    /**
+     * Capture loop: source -> ring, nothing else
+     * A real-time source (microphone) never waits - samples the ring has no room for are
+     * dropped. A replay waits for the processing thread instead, so nothing is lost.
+     * Closes the ring on exit so the processing thread knows the stream ended.
+     */
+    private void captureAudio() {
+        short[] buffer = new short[FRAME_SAMPLES];
+        PcmRingBuffer ring = this.ring;
+        AudioSource source = this.audioSource;
+        boolean realTime = source.isRealTime();
+        long droppedSamples = 0;
+        
+        try {
+            while (isRecording) {
+                int read = source.read(buffer, 0, buffer.length);
+                if (read < 0) {
+                    break; // End of a replayed recording
+                }
+                if (realTime) {
+                    realTimeMonitor.recordRead(buffer.length, read);
+                    realTimeMonitor.setLostFrames(source.getLostFrames());
+                }
+                int written = ring.write(buffer, 0, read);
+                while (!realTime && written < read && isRecording) {
+                    LockSupport.parkNanos(REPLAY_BACKOFF_NANOS);
+                    written += ring.write(buffer, written, read - written);
+                }
+                if (written < read) {
+                    droppedSamples += read - written;
+                    realTimeMonitor.recordDropped(read - written);
+                }
+            }
+        } finally {
+            ring.close();
+            if (droppedSamples > 0) {
+                SpeechLog.w(TAG, "⚠️  Dropped " + droppedSamples + " samples - word processing fell behind capture");
             }
         }
     }
     
     /**
      * Process audio stream and detect words
+     * Runs on the processing thread, reading from the ring. Timing is measured in
+     * samples, not wall-clock time, so segmentation is the same however far
+     * processing lags behind capture.
      */
     private void processAudioStream() {
-        short[] buffer = new short[BUFFER_SIZE];
-        List<Short> currentWordAudio = new ArrayList<>();
-        long lastSoundTime = System.currentTimeMillis();
-        long wordStartTime = System.currentTimeMillis();
+        short[] buffer = new short[FRAME_SAMPLES];
+        PcmRingBuffer ring = this.ring;
+        WordBuffer currentWordAudio = new WordBuffer();
+        long lastSoundTime = 0;
+        long wordStartTime = 0;
         boolean inWord = false;
         
-        while (isRecording && currentWordIndex < expectedWords.length) {
-            int read = audioRecord.read(buffer, 0, buffer.length);
-            
-            if (read > 0) {
-                // Calculate RMS (audio level)
-                float rms = calculateRMS(buffer, read);
-                
-                // Detect speech vs silence
-                boolean isSpeech = rms > SILENCE_AMPLITUDE_THRESHOLD;
-                long currentTime = System.currentTimeMillis();
+        try {
+            while (currentWordIndex < expectedWords.length && !abandonBacklog) {
+                int read = readFrame(ring, buffer);
+                if (read < 0) {
+                    break; // Recording stopped and everything captured has been processed
+                }
                 
-                if (isSpeech) {
-                    // Speech detected
-                    if (!inWord) {
-                        // Start of new word
-                        inWord = true;
-                        wordStartTime = currentTime;
-                        currentWordAudio.clear();
-                        
-                        if (callback != null && currentWordIndex < expectedWords.length) {
-                            String expectedWord = expectedWords[currentWordIndex];
-                            callback.onWordDetected(currentWordIndex, expectedWord);
-                        }
-                    }
+                if (read > 0) {
+                    samplesProcessed += read;
+                    realTimeMonitor.recordBacklog(ring.available());
                     
-                    // Add audio to current word buffer
-                    for (int i = 0; i < read; i++) {
-                        currentWordAudio.add(buffer[i]);
-                    }
+                    // Calculate RMS (audio level)
+                    float rms = calculateRMS(buffer, read);
                     
-                    lastSoundTime = currentTime;
+                    // Detect speech vs silence
+                    boolean isSpeech = rms > SILENCE_AMPLITUDE_THRESHOLD;
+                    long currentTime = samplesProcessed * 1000 / SAMPLE_RATE; // Stream time in ms
                     
-                } else if (inWord) {
-                    // Silence detected while in word
-                    long silenceDuration = currentTime - lastSoundTime;
+                    if (isSpeech) {
+                        // Speech detected
+                        if (!inWord) {
+                            // Start of new word
+                            inWord = true;
+                            wordStartTime = currentTime;
+                            currentWordAudio.clear();
+                            traceRecorder.begin(traceSegment, samplesProcessed - read);
+                            
+                            if (callback != null && currentWordIndex < expectedWords.length) {
+                                String expectedWord = expectedWords[currentWordIndex];
+                                traceRecorder.begin(traceWordDetected, currentWordIndex);
+                                callback.onWordDetected(currentWordIndex, expectedWord);
+                                traceRecorder.end(traceWordDetected);
+                            }
+                        }
+                        
+                        // Add audio to current word buffer
+                        currentWordAudio.append(buffer, read);
+                        
+                        lastSoundTime = currentTime;
+                        
+                    } else if (inWord) {
+                        // Silence detected while in word
+                        long silenceDuration = currentTime - lastSoundTime;
+                        
+                        if (silenceDuration >= SILENCE_THRESHOLD_MS) {
+                            // End of word detected
+                            traceSegmentEnd(ring);
+                            processWord(currentWordAudio.toArray());
+                            inWord = false;
+                            currentWordAudio.clear();
+                        } else {
+                            // Still in word, add silence
+                            currentWordAudio.append(buffer, read);
+                        }
+                    }
                     
-                    if (silenceDuration >= SILENCE_THRESHOLD_MS) {
-                        // End of word detected
-                        processWord(currentWordAudio);
+                    // Check for word timeout
+                    if (inWord && (currentTime - wordStartTime) > WORD_TIMEOUT_MS) {
+                        SpeechLog.w(TAG, "Word timeout - processing anyway");
+                        traceSegmentEnd(ring);
+                        processWord(currentWordAudio.toArray());
                         inWord = false;
                         currentWordAudio.clear();
-                    } else {
-                        // Still in word, add silence
-                        for (int i = 0; i < read; i++) {
-                            currentWordAudio.add(buffer[i]);
-                        }
                     }
                 }
-                
-                // Check for word timeout
-                if (inWord && (currentTime - wordStartTime) > WORD_TIMEOUT_MS) {
-                    Log.w(TAG, "Word timeout - processing anyway");
-                    processWord(currentWordAudio);
-                    inWord = false;
-                    currentWordAudio.clear();
-                }
             }
+        } catch (InterruptedException e) {
+            SpeechLog.w(TAG, "Audio processing interrupted");
+            Thread.currentThread().interrupt();
+        }
+        
+        // All words done (or stopped) - let the capture thread finish
+        isRecording = false;
+        
+        if (abandonBacklog) {
+            closeAudioArchive();
+            allocationMonitor.finish();
+            ProfilingTrigger profiler = profilingTrigger;
+            if (profiler != null) {
+                profiler.finishSession();
+            }
+            SpeechLog.d(TAG, "Recognizer released - backlog dropped");
+            return;
         }
         
         // Process any remaining audio
         if (inWord && !currentWordAudio.isEmpty()) {
-            processWord(currentWordAudio);
+            traceSegmentEnd(ring);
+            processWord(currentWordAudio.toArray());
         }
         
+        closeAudioArchive();
+        
         // Calculate final scores
         calculateFinalScores();
     }
     
+    /**
+     * Trace the end of a speech segment, with the capture backlog left behind it
+     */
+    private void traceSegmentEnd(PcmRingBuffer ring) {
+        traceRecorder.end(traceSegment, samplesProcessed);
+        traceRecorder.counter(traceBacklog, ring.available() * 1000L / SAMPLE_RATE);
+    }
+    
+    /**
+     * Read one full segmentation frame (a shorter one only at the end of the stream)
+     * 
+     * @return Samples read, or -1 once the stream has ended and is drained
+     */
+    private static int readFrame(PcmRingBuffer ring, short[] frame) throws InterruptedException {
+        int filled = 0;
+        while (filled < frame.length) {
+            int read = ring.read(frame, filled, frame.length - filled, PROCESSING_POLL_MS);
+            if (read < 0) {
+                return filled > 0 ? filled : -1;
+            }
+            filled += read;
+        }
+        return filled;
+    }
+    
+    /**
+     * Growable PCM buffer for the word being spoken
+     * Replaces List<Short>, which boxed every sample
+     */
+    private static class WordBuffer {
+        private short[] data = new short[SAMPLE_RATE * 4]; // Longer than WORD_TIMEOUT_MS, rarely grows
+        private int length = 0;
+        
+        void append(short[] samples, int count) {
+            if (length + count > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + count));
+            }
+            System.arraycopy(samples, 0, data, length, count);
+            length += count;
+        }
+        
+        void clear() {
+            length = 0;
+        }
+        
+        boolean isEmpty() {
+            return length == 0;
+        }
+        
+        short[] toArray() {
+            return Arrays.copyOf(data, length);
+        }
+    }
+    
     /**
      * Process a single word's audio
      */
-    private void processWord(List<Short> audioData) {
+    private void processWord(short[] audioArray) {
         if (currentWordIndex >= expectedWords.length) {
             return;
         }
         
         String expectedWord = expectedWords[currentWordIndex];
-        
-        // Convert List<Short> to short[]
-        short[] audioArray = new short[audioData.size()];
-        for (int i = 0; i < audioData.size(); i++) {
-            audioArray[i] = audioData.get(i);
-        }
+        long wordStart = System.nanoTime();
         
         // Check if audio is too short (likely just noise)
         if (audioArray.length < MIN_SPEECH_SAMPLES) {
-            Log.w(TAG, String.format("⚠️  Audio too short for '%s': %d samples (min %d) - skipping", 
+            SpeechLog.w(TAG, String.format("⚠️  Audio too short for '%s': %d samples (min %d) - skipping", 
                 expectedWord, audioArray.length, MIN_SPEECH_SAMPLES));
             return;
         }
@@ -266,26 +470,29 @@ public class MFCCPronunciationRecognizer {
         // Check if audio is mostly silence (reject background noise)
         float rms = calculateRMS(audioArray, audioArray.length);
         if (rms < SILENCE_AMPLITUDE_THRESHOLD) {
-            Log.w(TAG, String.format("⚠️  Audio too quiet for '%s': RMS=%.3f (threshold=%.3f) - likely silence/noise", 
+            SpeechLog.w(TAG, String.format("⚠️  Audio too quiet for '%s': RMS=%.3f (threshold=%.3f) - likely silence/noise", 
                 expectedWord, rms, SILENCE_AMPLITUDE_THRESHOLD));
             return;
         }
         
-        // Apply audio preprocessing
-        audioArray = audioDenoiser.applyLightweightDenoising(audioArray);
-        audioArray = audioDenoiser.applyAGC(audioArray);
+        // Keep the raw clip for the archive - preprocessing returns new arrays
+        short[] rawAudio = audioArray;
         
-        // Apply RMS normalization (CRITICAL for matching training data)
-        // Training data was RMS-normalized, so production audio must be too
-        audioArray = audioPreProcessor.rmsNormalize(audioArray);
+        // Apply audio preprocessing
+        allocationMonitor.onWordStart();
+        ProfilingTrigger profiler = profilingTrigger;
+        if (profiler != null) {
+            profiler.onWordStart(currentWordIndex);
+        }
+        audioArray = preprocessWord(audioArray);
         
         // Log processed audio statistics
-        Log.d(TAG, "After preprocessing + RMS normalization:");
+        SpeechLog.d(TAG, "After preprocessing + RMS normalization:");
         logAudioStatistics(audioArray, expectedWord);
         
         // Score pronunciation using ONNX Random Forest
         ONNXRandomForestScorer.PronunciationResult result = 
-            onnxScorer.scorePronunciation(audioArray, expectedWord);
+            pronunciationScorer.scorePronunciation(audioArray, expectedWord);
         
         float score = result.getScore();
         boolean isCorrect = result.isCorrect();
@@ -293,22 +500,169 @@ public class MFCCPronunciationRecognizer {
         pronunciationScores.add(score);
         wordCorrectness.add(isCorrect);
         
-        Log.d(TAG, String.format("Word %d '%s': %.0f%% (%s)", 
+        SpeechLog.d(TAG, () -> String.format("Word %d '%s': %.0f%% (%s)", 
             currentWordIndex, expectedWord, score * 100, isCorrect ? "✓" : "✗"));
         
+        long scoredAt = pipelineMetrics.lap(PipelineMetrics.Stage.TOTAL, wordStart);
+        realTimeMonitor.recordWord(scoredAt - wordStart, rawAudio.length);
         if (callback != null) {
+            traceRecorder.begin(traceWordScored, currentWordIndex);
             callback.onWordScored(currentWordIndex, expectedWord, score, isCorrect);
+            traceRecorder.end(traceWordScored);
         }
         
+        archiveWord(currentWordIndex, expectedWord, rawAudio, isCorrect, score);
+        
         currentWordIndex++;
     }
     
+    /**
+     * Per-stage scoring latency of the current (or last) session
+     * Take a snapshot() after onComplete to save it with the ReadingSession.
+     */
+    public PipelineMetrics getPipelineMetrics() {
+        return pipelineMetrics;
+    }
+    
+    /**
+     * Denoise, AGC and RMS-normalize one word's raw audio into the scorer's input
+     * Package-private so the golden-corpus suite scores clips exactly as a session would.
+     */
+    short[] preprocessWord(short[] audioArray) {
+        long stageStart = System.nanoTime();
+        audioArray = audioDenoiser.applyLightweightDenoising(audioArray);
+        stageStart = pipelineMetrics.lap(PipelineMetrics.Stage.DENOISE, stageStart);
+        audioArray = audioDenoiser.applyAGC(audioArray);
+        stageStart = pipelineMetrics.lap(PipelineMetrics.Stage.AGC, stageStart);
+        
+        // Apply RMS normalization (CRITICAL for matching training data)
+        // Training data was RMS-normalized, so production audio must be too
+        audioArray = audioPreProcessor.rmsNormalize(audioArray);
+        pipelineMetrics.lap(PipelineMetrics.Stage.RMS_NORMALIZE, stageStart);
+        return audioArray;
+    }
+    
+    /**
+     * Real-time factor and capture overruns of the current (or last) session
+     */
+    public RealTimeMonitor getRealTimeMonitor() {
+        return realTimeMonitor;
+    }
+    
+    /**
+     * GC and allocation telemetry - getSummary() is set once recognition completes
+     */
+    public AllocationMonitor getAllocationMonitor() {
+        return allocationMonitor;
+    }
+    
+    /**
+     * Trace events of the current (or last) session: speech segments, pipeline stages and
+     * callback dispatch. Callers may add their own (e.g. UI redraws); dump() on demand.
+     */
+    public TraceRecorder getTraceRecorder() {
+        return traceRecorder;
+    }
+    
+    /**
+     * Capture method traces of slow (or chosen) words - debug builds only, null to stop
+     * Takes effect from the next startRecognition().
+     */
+    public void setProfilingTrigger(ProfilingTrigger profilingTrigger) {
+        this.profilingTrigger = profilingTrigger;
+    }
+    
+    /**
+     * Enable archiving of raw word audio for retraining
+     * Each session is written to its own FLAC-compressed archive in this directory
+     * 
+     * @param directory Archive directory, or null to disable archiving
+     */
+    public void setAudioArchiveDirectory(File directory) {
+        this.archiveDirectory = directory;
+    }
+    
+    private void openAudioArchive(String studentId, String passageTitle) {
+        if (archiveDirectory == null) {
+            return;
+        }
+        
+        long startedAt = System.currentTimeMillis();
+        String safeId = studentId != null ? studentId.replaceAll("[^A-Za-z0-9_-]", "_") : "unknown";
+        File archiveFile = new File(archiveDirectory,
+            "session_" + safeId + "_" + startedAt + SessionAudioArchive.FILE_EXTENSION);
+        String sessionInfo = "student=" + studentId + ";passage=" + passageTitle + ";startedAt=" + startedAt;
+        
+        submitArchiveTask(() -> {
+            closeArchiveOnExecutor();
+            try {
+                audioArchive = SessionAudioArchive.create(archiveFile, SAMPLE_RATE, sessionInfo);
+                SpeechLog.d(TAG, "Archiving word audio to " + archiveFile.getName());
+            } catch (IOException e) {
+                SpeechLog.e(TAG, "Failed to create audio archive: " + e.getMessage());
+                audioArchive = null;
+            }
+        });
+    }
+    
+    /**
+     * Queue a word clip for FLAC encoding - keeps encoding off the capture thread
+     */
+    private void archiveWord(int wordIndex, String word, short[] rawAudio, boolean isCorrect, float score) {
+        if (archiveDirectory == null) {
+            return;
+        }
+        submitArchiveTask(() -> {
+            if (audioArchive == null) {
+                return;
+            }
+            try {
+                audioArchive.appendWord(wordIndex, word, rawAudio, isCorrect, score);
+            } catch (IOException e) {
+                SpeechLog.e(TAG, "Failed to archive word '" + word + "': " + e.getMessage());
+            }
+        });
+    }
+    
+    private void closeAudioArchive() {
+        if (archiveDirectory == null) {
+            return;
+        }
+        submitArchiveTask(this::closeArchiveOnExecutor);
+    }
+    
+    private void closeArchiveOnExecutor() {
+        if (audioArchive == null) {
+            return;
+        }
+        try {
+            audioArchive.close();
+            SpeechLog.d(TAG, String.format("Audio archive closed: %d words, %.0f%% of raw size",
+                audioArchive.getWordCount(), audioArchive.getCompressionRatio() * 100));
+        } catch (IOException e) {
+            SpeechLog.e(TAG, "Failed to close audio archive: " + e.getMessage());
+        }
+        audioArchive = null;
+    }
+    
+    private void submitArchiveTask(Runnable task) {
+        try {
+            archiveExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            SpeechLog.w(TAG, "Recognizer released - audio archive task skipped");
+        }
+    }
+    
     /**
      * Log audio statistics for debugging
      */
     private void logAudioStatistics(short[] audio, String word) {
+        // Two passes over the clip just for logging - skip when debug output is off
+        if (!SpeechLog.isLoggable(SpeechLog.DEBUG)) {
+            return;
+        }
         if (audio == null || audio.length == 0) {
-            Log.w(TAG, "Empty audio for word: " + word);
+            SpeechLog.w(TAG, "Empty audio for word: " + word);
             return;
         }
         
@@ -340,25 +694,25 @@ public class MFCCPronunciationRecognizer {
         }
         float rms = (float) Math.sqrt((double) sumSquares / audio.length);
         
-        Log.d(TAG, String.format("🎤 Audio for '%s':", word));
-        Log.d(TAG, String.format("   Samples: %d (%.2fs)", audio.length, duration));
-        Log.d(TAG, String.format("   Range: [%d, %d]", min, max));
-        Log.d(TAG, String.format("   Avg amplitude: %.1f", avgAmplitude));
-        Log.d(TAG, String.format("   RMS energy: %.1f", rms));
-        Log.d(TAG, String.format("   Silent: %.1f%%, Loud: %.1f%%", silentPercent, loudPercent));
+        SpeechLog.d(TAG, String.format("🎤 Audio for '%s':", word));
+        SpeechLog.d(TAG, String.format("   Samples: %d (%.2fs)", audio.length, duration));
+        SpeechLog.d(TAG, String.format("   Range: [%d, %d]", min, max));
+        SpeechLog.d(TAG, String.format("   Avg amplitude: %.1f", avgAmplitude));
+        SpeechLog.d(TAG, String.format("   RMS energy: %.1f", rms));
+        SpeechLog.d(TAG, String.format("   Silent: %.1f%%, Loud: %.1f%%", silentPercent, loudPercent));
         
         // Detect potential issues
         if (avgAmplitude < 100) {
-            Log.w(TAG, "   ⚠️  Very quiet audio - might be silence or too soft");
+            SpeechLog.w(TAG, "   ⚠️  Very quiet audio - might be silence or too soft");
         }
         if (silentPercent > 80) {
-            Log.w(TAG, "   ⚠️  Mostly silent - user might not have spoken");
+            SpeechLog.w(TAG, "   ⚠️  Mostly silent - user might not have spoken");
         }
         if (max < 1000) {
-            Log.w(TAG, "   ⚠️  Low maximum amplitude - check microphone");
+            SpeechLog.w(TAG, "   ⚠️  Low maximum amplitude - check microphone");
         }
         if (rms < 500) {
-            Log.w(TAG, "   ⚠️  Low energy - audio might be too quiet");
+            SpeechLog.w(TAG, "   ⚠️  Low energy - audio might be too quiet");
         }
     }
     
@@ -399,65 +753,193 @@ public class MFCCPronunciationRecognizer {
         }
         float averagePronunciation = sumPronunciation / pronunciationScores.size();
         
-        // Calculate reading time and WPM
-        long readingTimeMs = System.currentTimeMillis() - recognitionStartTime;
+        // Calculate reading time and WPM - from the audio itself, so replays report
+        // the reading speed of the recording rather than how fast it was processed
+        long readingTimeMs = samplesProcessed * 1000 / SAMPLE_RATE;
         float readingTimeMin = readingTimeMs / 60000.0f;
         float wpm = currentWordIndex / readingTimeMin;
         
         // Calculate error rate
         float errorRate = 1.0f - overallAccuracy;
         
-        // Get reading level classification with details
+        // Get reading level classification with details - reclassified once comprehension is scored
         ReadingLevelClassifier.ReadingLevelResult readingLevel = 
             levelClassifier.classifyWithDetails(
                 overallAccuracy, averagePronunciation, 0.0f, wpm, errorRate);
         
-        // Comprehension score (placeholder - would need actual comprehension questions)
+        // Comprehension is scored later by the background stage - don't block results on it
         float comprehensionScore = 0.0f;
         
-        Log.d(TAG, String.format("Recognition complete: %.0f%% accuracy, %.0f%% pronunciation",
+        SpeechLog.d(TAG, String.format("Recognition complete: %.0f%% accuracy, %.0f%% pronunciation",
             overallAccuracy * 100, averagePronunciation * 100));
+        for (Map.Entry<String, PipelineMetrics.StageSummary> stage : pipelineMetrics.snapshot().entrySet()) {
+            SpeechLog.d(TAG, "⏱️ " + stage.getKey() + ": " + stage.getValue());
+        }
+        SpeechLog.d(TAG, () -> "⏱️ " + realTimeMonitor.snapshot());
+        AllocationMonitor.Summary allocation = allocationMonitor.finish();
+        ProfilingTrigger profiler = profilingTrigger;
+        if (profiler != null) {
+            profiler.finishSession();
+        }
+        if (allocation != null && SpeechLog.isLoggable(SpeechLog.DEBUG)) {
+            SpeechLog.d(TAG, "🗑️ " + allocation);
+            for (Map.Entry<String, AllocationMonitor.StageAllocation> stage : allocation.getStages().entrySet()) {
+                SpeechLog.d(TAG, "🗑️ " + stage.getKey() + ": " + stage.getValue());
+            }
+        }
         
         if (callback != null) {
+            traceRecorder.begin(traceComplete);
             callback.onComplete(overallAccuracy, averagePronunciation, comprehensionScore, readingLevel);
+            traceRecorder.end(traceComplete);
+        }
+        
+        scheduleComprehensionAnalysis(buildSpokenText(), passageText,
+            overallAccuracy, averagePronunciation, wpm, errorRate, callback);
+    }
+    
+    /**
+     * Reconstruct what the student read from the words scored as correct
+     * There is no speech-to-text, so this is the closest proxy for the spoken text
+     */
+    private String buildSpokenText() {
+        StringBuilder spoken = new StringBuilder();
+        for (int i = 0; i < wordCorrectness.size() && i < expectedWords.length; i++) {
+            if (wordCorrectness.get(i)) {
+                if (spoken.length() > 0) spoken.append(' ');
+                spoken.append(expectedWords[i]);
+            }
+        }
+        return spoken.toString();
+    }
+    
+    /**
+     * Run DistilBERT comprehension analysis as a post-session stage
+     * The analyzer is loaded on first use, on the executor thread
+     */
+    private void scheduleComprehensionAnalysis(String spokenText, String expectedText,
+                                               float accuracy, float pronunciation, float wpm, float errorRate,
+                                               RecognitionCallback callback) {
+        if (callback == null || expectedText == null || expectedText.trim().isEmpty()) {
+            return;
+        }
+        
+        try {
+            comprehensionExecutor.execute(() -> {
+                DistilBERTTextAnalyzer analyzer = getTextAnalyzer();
+                if (!analyzer.isReady()) {
+                    SpeechLog.w(TAG, "DistilBERT not available - skipping comprehension stage");
+                    return;
+                }
+                
+                long start = System.currentTimeMillis();
+                float comprehensionScore = spokenText.isEmpty()
+                    ? 0.0f
+                    : analyzer.analyzeComprehension(spokenText, expectedText);
+                SpeechLog.d(TAG, String.format("Comprehension stage complete: %.0f%% (%d ms)",
+                    comprehensionScore * 100, System.currentTimeMillis() - start));
+                
+                ReadingLevelClassifier.ReadingLevelResult readingLevel = levelClassifier.classifyWithDetails(
+                    accuracy, pronunciation, comprehensionScore, wpm, errorRate);
+                callback.onComprehensionScored(comprehensionScore, readingLevel);
+            });
+        } catch (RejectedExecutionException e) {
+            SpeechLog.w(TAG, "Recognizer released - comprehension stage skipped");
         }
     }
     
+    /**
+     * Lazily load DistilBERT - only called on the comprehension executor thread
+     */
+    private DistilBERTTextAnalyzer getTextAnalyzer() {
+        if (textAnalyzer == null) {
+            textAnalyzer = new DistilBERTTextAnalyzer(context);
+        }
+        return textAnalyzer;
+    }
+    
     /**
      * Stop recognition
      */
     public void stopRecognition() {
         isRecording = false;
         
-        if (audioRecord != null) {
+        // Let the capture thread leave read() before the source is released
+        if (recordingThread != null) {
             try {
-                audioRecord.stop();
-                audioRecord.release();
-                audioRecord = null;
-            } catch (Exception e) {
-                Log.e(TAG, "Error stopping audio record", e);
+                recordingThread.join(1000);
+            } catch (InterruptedException e) {
+                SpeechLog.e(TAG, "Error joining recording thread", e);
             }
         }
         
-        if (recordingThread != null) {
+        if (audioSource != null) {
+            audioSource.stop();
+            audioSource = null;
+        }
+        
+        // The processing thread drains what was captured, then reports the results
+        if (processingThread != null) {
             try {
-                recordingThread.join(1000);
+                processingThread.join(1000);
             } catch (InterruptedException e) {
-                Log.e(TAG, "Error joining recording thread", e);
+                SpeechLog.e(TAG, "Error joining processing thread", e);
             }
         }
         
-        Log.d(TAG, "Recognition stopped");
+        SpeechLog.d(TAG, "Recognition stopped");
     }
     
     /**
      * Release resources
      */
     public void release() {
+        // The processing thread can be seconds behind capture - drop its backlog and wait
+        // for the word it is scoring, so the scorer is never released underneath it
+        abandonBacklog = true;
         stopRecognition();
+        joinProcessingThread();
         
-        if (onnxScorer != null) {
-            onnxScorer.release();
+        if (pronunciationScorer != null) {
+            pronunciationScorer.release();
+        }
+        
+        // Release the analyzer on its own thread, after any pending comprehension stage
+        if (!comprehensionExecutor.isShutdown()) {
+            comprehensionExecutor.execute(() -> {
+                if (textAnalyzer != null) {
+                    textAnalyzer.release();
+                    textAnalyzer = null;
+                }
+            });
+            comprehensionExecutor.shutdown();
+        }
+        
+        // Finish the archive after any queued words, then stop the archive thread
+        if (!archiveExecutor.isShutdown()) {
+            archiveExecutor.execute(this::closeArchiveOnExecutor);
+            archiveExecutor.shutdown();
+        }
+    }
+    
+    /**
+     * Wait for the processing thread to exit, however long its current word takes
+     */
+    private void joinProcessingThread() {
+        Thread thread = processingThread;
+        if (thread == null) {
+            return;
+        }
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
         }
     }
 }
@@ -0,0 +1,130 @@
+package com.example.speak;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.AudioTimestamp;
+import android.media.MediaRecorder;
+import android.util.Log;
+import androidx.core.content.ContextCompat;
+
+import java.io.IOException;
+
+/**
+ * Live microphone input via AudioRecord (16 kHz mono, VOICE_RECOGNITION source)
+ *
+ * Detects overruns from AudioRecord timestamps: frames the hardware captured beyond
+ * what was read plus what the AudioRecord buffer holds were overwritten before read().
+ */
+public class MicrophoneAudioSource implements AudioSource {
+    private static final String TAG = "MicrophoneAudioSource";
+
+    private static final int CHANNEL_CONFIG = AudioFormat.CHANNEL_IN_MONO;
+    private static final int AUDIO_FORMAT = AudioFormat.ENCODING_PCM_16BIT;
+    private static final int TIMESTAMP_CHECK_READS = 8; // Check for overruns every ~0.6 s of 80 ms reads
+
+    private final Context context;
+    private final int sampleRate;
+    private AudioRecord audioRecord;
+    
+    // Overrun detection - reset in start(), then capture thread only (Thread.start() publishes
+    // the reset); lostFrames is volatile for readers on other threads
+    private final AudioTimestamp timestamp = new AudioTimestamp();
+    private int bufferFrames;
+    private long framesRead;
+    private int readsSinceCheck;
+    private volatile long lostFrames;
+
+    public MicrophoneAudioSource(Context context, int sampleRate) {
+        this.context = context;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void start() throws IOException {
+        // Check audio permission
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.RECORD_AUDIO)
+                != PackageManager.PERMISSION_GRANTED) {
+            throw new IOException("Microphone permission not granted");
+        }
+
+        int bufferSize = AudioRecord.getMinBufferSize(sampleRate, CHANNEL_CONFIG, AUDIO_FORMAT);
+        audioRecord = new AudioRecord(
+            MediaRecorder.AudioSource.VOICE_RECOGNITION,
+            sampleRate,
+            CHANNEL_CONFIG,
+            AUDIO_FORMAT,
+            bufferSize * 4
+        );
+        bufferFrames = bufferSize * 4 / 2; // 16-bit mono
+        framesRead = 0;
+        readsSinceCheck = 0;
+        lostFrames = 0;
+
+        if (audioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
+            Log.e(TAG, "AudioRecord not initialized");
+            audioRecord.release();
+            audioRecord = null;
+            throw new IOException("Failed to initialize audio recording");
+        }
+
+        audioRecord.startRecording();
+        Log.d(TAG, "Audio recording started at " + sampleRate + "Hz");
+    }
+
+    @Override
+    public int read(short[] buffer, int offset, int length) {
+        int read = audioRecord.read(buffer, offset, length);
+        if (read <= 0) {
+            return 0; // Error codes: treat as no data, the caller polls isRecording
+        }
+        framesRead += read;
+        if (++readsSinceCheck >= TIMESTAMP_CHECK_READS) {
+            readsSinceCheck = 0;
+            checkForOverrun();
+        }
+        return read;
+    }
+    
+    private void checkForOverrun() {
+        if (audioRecord.getTimestamp(timestamp, AudioTimestamp.TIMEBASE_MONOTONIC) != AudioRecord.SUCCESS) {
+            return; // Not supported by every device
+        }
+        // Frames captured but neither read nor held in the buffer (nor counted as lost before)
+        long overwritten = timestamp.framePosition - framesRead - bufferFrames - lostFrames;
+        if (overwritten > 0) {
+            lostFrames += overwritten;
+            Log.w(TAG, "⚠️ AudioRecord overrun: " + overwritten + " frames lost");
+        }
+    }
+    
+    @Override
+    public long getLostFrames() {
+        return lostFrames;
+    }
+
+    @Override
+    public void stop() {
+        if (audioRecord != null) {
+            try {
+                audioRecord.stop();
+                audioRecord.release();
+            } catch (Exception e) {
+                Log.e(TAG, "Error stopping audio record", e);
+            }
+            audioRecord = null;
+        }
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public boolean isRealTime() {
+        return true;
+    }
+}
@@ -1,35 +1,44 @@
 package com.example.speak;
 
 import android.content.Context;
-import android.util.Log;
 
+import ai.onnxruntime.MapInfo;
+import ai.onnxruntime.NodeInfo;
+import ai.onnxruntime.OnnxJavaType;
+import ai.onnxruntime.OnnxMap;
+import ai.onnxruntime.OnnxSequence;
 import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OnnxValue;
 import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtSession;
 import ai.onnxruntime.OrtException;
+import ai.onnxruntime.SequenceInfo;
+import ai.onnxruntime.TensorInfo;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.FloatBuffer;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * ONNX Random Forest Pronunciation Scorer
  * Uses ONNX Runtime to run Random Forest models
  */
-public class ONNXRandomForestScorer {
+public class ONNXRandomForestScorer implements PronunciationScorer {
     private static final String TAG = "ONNXRFScorer";
-    private static final String MODEL_PATH = "random_forest_model_retrained.onnx"; // Using retrained model
+    static final String MODEL_PATH = "random_forest_model_retrained.onnx"; // Using retrained model
     
     // Feature logging mode for retraining
-    // Set to true to log features to CSV file, false for normal operation
+    // Set to true to log features to a binary feature log, false for normal operation
     private static final boolean LOGGING_MODE = false;
-    private static final String LOG_FILE = "mfcc_features.csv";
+    private static final String LOG_FILE = "mfcc_features" + FeatureLog.FILE_EXTENSION;
+    private static final String LOG_CSV_FILE = "mfcc_features.csv"; // exportFeatureLogCsv() output
     private int currentLabel = -1; // Set before each prediction: 1=correct, 0=incorrect
+    private FeatureLog featureLog; // Opened on first logged word
     
     public static final int INCORRECT_PRONUNCIATION = 0;
     public static final int CORRECT_PRONUNCIATION = 1;
@@ -60,57 +69,170 @@ public class ONNXRandomForestScorer {
     
     private OrtEnvironment env;
     private OrtSession session;
-    private TarsosMFCCExtractor mfccExtractor; // Using TarsosDSP
+    private OrtSession.SessionOptions sessionOptions;
+    private SessionConfig sessionConfig;
+    
+    // Bound once at load time from the model's input/output metadata
+    private String inputName;
+    private Set<String> requestedOutputs;
+    private ProbabilityExtractor probabilityExtractor;
+    
+    /**
+     * Reads [incorrectProb, correctProb] from the single requested model output
+     */
+    private interface ProbabilityExtractor {
+        boolean extract(OnnxValue output, float[] probs) throws OrtException; // false = probabilities unavailable
+    }
+    private PronunciationFeatureExtractor featureExtractor; // Shared with BatchFeatureExtractor
+    private volatile FeatureCache featureCache; // null = off; opt-in via enableFeatureCache()
+    private volatile PipelineMetrics pipelineMetrics; // null = stages not timed
+    private static final String FEATURE_CACHE_FILE = "feature_cache/scoring.bin";
     private boolean isModelLoaded = false;
     private Context context; // Store context for file logging
     
+    /**
+     * ONNX Runtime session tuning
+     * The forest is tiny (39 floats in, batch of 1), so on most tablets a single
+     * intra-op thread without spinning beats a thread pool. Presets per device class
+     * let us tune steady-state session.run latency without code changes.
+     */
+    public static class SessionConfig {
+        public enum DeviceClass { LOW_END, MID_RANGE, HIGH_END }
+        
+        public final int intraOpThreads;
+        public final int interOpThreads;
+        public final OrtSession.SessionOptions.OptLevel optLevel;
+        public final boolean memoryPatternOptimization;
+        public final boolean cpuArenaAllocator;
+        public final boolean allowSpinning;       // Busy-wait worker threads between runs
+        public final boolean cacheOptimizedModel; // Serialize the optimized graph for later launches
+        
+        public SessionConfig(int intraOpThreads, int interOpThreads, OrtSession.SessionOptions.OptLevel optLevel,
+                             boolean memoryPatternOptimization, boolean cpuArenaAllocator,
+                             boolean allowSpinning, boolean cacheOptimizedModel) {
+            this.intraOpThreads = Math.max(1, intraOpThreads);
+            this.interOpThreads = Math.max(1, interOpThreads);
+            this.optLevel = optLevel;
+            this.memoryPatternOptimization = memoryPatternOptimization;
+            this.cpuArenaAllocator = cpuArenaAllocator;
+            this.allowSpinning = allowSpinning;
+            this.cacheOptimizedModel = cacheOptimizedModel;
+        }
+        
+        public static SessionConfig forDeviceClass(DeviceClass deviceClass) {
+            switch (deviceClass) {
+                case LOW_END:
+                    // 2 GB tablets: no arena (keeps RSS low), no spinning (saves the capture thread's core)
+                    return new SessionConfig(1, 1, OrtSession.SessionOptions.OptLevel.ALL_OPT,
+                        false, false, false, true);
+                case HIGH_END:
+                    return new SessionConfig(2, 1, OrtSession.SessionOptions.OptLevel.ALL_OPT,
+                        true, true, true, true);
+                case MID_RANGE:
+                default:
+                    return new SessionConfig(1, 1, OrtSession.SessionOptions.OptLevel.ALL_OPT,
+                        true, true, false, true);
+            }
+        }
+        
+        /**
+         * Classify this device by core count
+         */
+        public static DeviceClass detectDeviceClass() {
+            int cores = Runtime.getRuntime().availableProcessors();
+            if (cores <= 4) return DeviceClass.LOW_END;
+            if (cores <= 6) return DeviceClass.MID_RANGE;
+            return DeviceClass.HIGH_END;
+        }
+        
+        public static SessionConfig forThisDevice() {
+            return forDeviceClass(detectDeviceClass());
+        }
+        
+        OrtSession.SessionOptions toSessionOptions(OrtSession.SessionOptions.OptLevel level) throws OrtException {
+            OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+            options.setIntraOpNumThreads(intraOpThreads);
+            options.setInterOpNumThreads(interOpThreads);
+            options.setOptimizationLevel(level);
+            options.setMemoryPatternOptimization(memoryPatternOptimization);
+            options.setCPUArenaAllocator(cpuArenaAllocator);
+            options.addConfigEntry("session.intra_op.allow_spinning", allowSpinning ? "1" : "0");
+            return options;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("intraOp=%d, interOp=%d, opt=%s, memPattern=%b, arena=%b, spinning=%b, cache=%b",
+                intraOpThreads, interOpThreads, optLevel, memoryPatternOptimization,
+                cpuArenaAllocator, allowSpinning, cacheOptimizedModel);
+        }
+    }
+    
     public ONNXRandomForestScorer(Context context) {
+        this(context, SessionConfig.forThisDevice());
+    }
+    
+    public ONNXRandomForestScorer(Context context, SessionConfig sessionConfig) {
+        this(context, null, sessionConfig);
+    }
+    
+    /**
+     * Scorer over model bytes already in memory - for the golden-corpus suite on the JVM
+     * No feature cache, so every clip goes through extraction.
+     */
+    ONNXRandomForestScorer(byte[] modelBytes, SessionConfig sessionConfig) {
+        this(null, modelBytes, sessionConfig);
+    }
+    
+    private ONNXRandomForestScorer(Context context, byte[] modelBytes, SessionConfig sessionConfig) {
         this.context = context;
+        this.sessionConfig = sessionConfig;
         try {
-            Log.d(TAG, "🔄 Loading ONNX Random Forest model from: " + MODEL_PATH);
+            SpeechLog.d(TAG, "🔄 Loading ONNX Random Forest model from: "
+                + (modelBytes != null ? modelBytes.length + " bytes" : MODEL_PATH));
             
             // Initialize TarsosDSP MFCC extractor
-            mfccExtractor = new TarsosMFCCExtractor();
-            Log.d(TAG, "✅ TarsosDSP MFCC extractor initialized");
+            featureExtractor = new PronunciationFeatureExtractor();
+            SpeechLog.d(TAG, "✅ TarsosDSP MFCC extractor initialized");
             
             // Create ONNX Runtime environment
             env = OrtEnvironment.getEnvironment();
-            Log.d(TAG, "✅ ONNX Runtime environment created");
-            
-            // Load model from assets
-            byte[] modelBytes = loadModelFromAssets(context, MODEL_PATH);
-            Log.d(TAG, String.format("✅ Model loaded from assets: %d bytes", modelBytes.length));
+            SpeechLog.d(TAG, "✅ ONNX Runtime environment created");
             
-            // Create ONNX session
-            session = env.createSession(modelBytes);
+            // Create ONNX session (from the optimized model cache when available)
+            SpeechLog.d(TAG, "Session config: " + sessionConfig);
+            session = modelBytes != null
+                ? createSession(modelBytes, sessionConfig)
+                : createSession(context, sessionConfig);
+            bindModelOutputs();
             isModelLoaded = true;
             
-            Log.d(TAG, "✅✅✅ ONNX Random Forest model loaded successfully and ready!");
+            SpeechLog.d(TAG, "✅✅✅ ONNX Random Forest model loaded successfully and ready!");
             logModelInfo();
             
         } catch (OrtException e) {
             // Handle ONNX-specific errors (like IR version mismatch)
             if (e.getMessage() != null && e.getMessage().contains("IR version")) {
-                Log.e(TAG, "❌ ONNX Model IR version incompatibility detected!");
-                Log.e(TAG, "   The ONNX model was exported with a newer version than supported.");
-                Log.e(TAG, "   Current ONNX Runtime: 1.16.3 (supports IR version up to 9)");
-                Log.e(TAG, "   Model requires: IR version 10+");
-                Log.e(TAG, "   Solution: Re-export the model with ONNX opset_version=13 or lower");
-                Log.w(TAG, "⚠️  Continuing WITHOUT ONNX Random Forest - using fallback scoring");
+                SpeechLog.e(TAG, "❌ ONNX Model IR version incompatibility detected!");
+                SpeechLog.e(TAG, "   The ONNX model was exported with a newer version than supported.");
+                SpeechLog.e(TAG, "   Current ONNX Runtime: 1.16.3 (supports IR version up to 9)");
+                SpeechLog.e(TAG, "   Model requires: IR version 10+");
+                SpeechLog.e(TAG, "   Solution: Re-export the model with ONNX opset_version=13 or lower");
+                SpeechLog.w(TAG, "⚠️  Continuing WITHOUT ONNX Random Forest - using fallback scoring");
             } else {
-                Log.e(TAG, "❌ ONNX Runtime error: " + e.getMessage(), e);
+                SpeechLog.e(TAG, "❌ ONNX Runtime error: " + e.getMessage(), e);
             }
             isModelLoaded = false;
         } catch (Exception e) {
-            Log.e(TAG, "❌❌❌ Failed to load ONNX model: " + e.getMessage(), e);
+            SpeechLog.e(TAG, "❌❌❌ Failed to load ONNX model: " + e.getMessage(), e);
             e.printStackTrace();
             isModelLoaded = false;
         }
         
         // Log final status
         if (!isModelLoaded) {
-            Log.w(TAG, "⚠️  ONNX Random Forest NOT available - app will use fallback pronunciation scoring");
-            Log.w(TAG, "   Speech recognition will still work, but pronunciation scoring may be less accurate");
+            SpeechLog.w(TAG, "⚠️  ONNX Random Forest NOT available - app will use fallback pronunciation scoring");
+            SpeechLog.w(TAG, "   Speech recognition will still work, but pronunciation scoring may be less accurate");
         }
     }
     
@@ -123,7 +245,7 @@ public class ONNXRandomForestScorer {
     public void setTrueLabel(int label) {
         this.currentLabel = label;
         if (LOGGING_MODE) {
-            Log.d(TAG, "True label set: " + (label == 1 ? "CORRECT" : "INCORRECT"));
+            SpeechLog.d(TAG, "True label set: " + (label == 1 ? "CORRECT" : "INCORRECT"));
         }
     }
     
@@ -131,6 +253,25 @@ public class ONNXRandomForestScorer {
         return scorePronunciation(audioSamples, expectedWord, -1);
     }
     
+    @Override
+    public void setPipelineMetrics(PipelineMetrics metrics) {
+        this.pipelineMetrics = metrics;
+    }
+    
+    /**
+     * Reuse features of clips scored before (e.g. rescoring saved session audio)
+     * Off by default: live words are never repeated, so for the recognizer the cache
+     * would only cost its load, a hash per word and several MB of entries.
+     * Loads the cache synchronously - call before scoring, off the UI thread.
+     */
+    public void enableFeatureCache() {
+        if (featureCache != null || context == null) {
+            return;
+        }
+        featureCache = new FeatureCache(new File(context.getFilesDir(), FEATURE_CACHE_FILE),
+            PronunciationFeatureExtractor.FEATURE_COUNT, FeatureCache.DEFAULT_MAX_ENTRIES);
+    }
+    
     /**
      * Score pronunciation with optional manual label for feature logging
      * 
@@ -141,27 +282,35 @@ public class ONNXRandomForestScorer {
      */
     public PronunciationResult scorePronunciation(short[] audioSamples, String expectedWord, int manualLabel) {
         if (!isModelLoaded || session == null) {
-            Log.w(TAG, "❌ Model not loaded, returning default 50% result");
+            SpeechLog.w(TAG, "❌ Model not loaded, returning default 50% result");
             return new PronunciationResult(INCORRECT_PRONUNCIATION, 0.5f, 0.5f);
         }
         
         if (audioSamples == null || audioSamples.length == 0) {
-            Log.w(TAG, "❌ Empty audio samples for word: " + expectedWord);
+            SpeechLog.w(TAG, "❌ Empty audio samples for word: " + expectedWord);
             return new PronunciationResult(INCORRECT_PRONUNCIATION, 0.0f, 1.0f);
         }
         
         try {
-            // Extract MFCC features using TarsosDSP
-            float[][] mfccFeatures = mfccExtractor.extractFeatures(audioSamples);
+            // Extract MFCC statistics (mean, delta, delta-delta) using TarsosDSP,
+            // unless this exact clip was scored before
+            FeatureCache cache = featureCache;
+            long cacheKey = cache != null ? FeatureCache.key(audioSamples) : 0;
+            float[] mfccStats = cache != null ? cache.get(cacheKey, audioSamples.length) : null;
+            if (mfccStats == null) {
+                mfccStats = featureExtractor.extract(audioSamples, pipelineMetrics);
+                if (mfccStats != null && cache != null) {
+                    cache.put(cacheKey, audioSamples.length, mfccStats);
+                }
+            } else {
+                SpeechLog.d(TAG, () -> "⚡ Cached features for: " + expectedWord);
+            }
             
-            if (mfccFeatures.length == 0) {
-                Log.w(TAG, "❌ Failed to extract MFCC features for: " + expectedWord);
+            if (mfccStats == null) {
+                SpeechLog.w(TAG, "❌ Failed to extract MFCC features for: " + expectedWord);
                 return new PronunciationResult(INCORRECT_PRONUNCIATION, 0.0f, 1.0f);
             }
             
-            // Calculate MFCC statistics (mean, delta, delta-delta)
-            float[] mfccStats = calculateMFCCStatistics(mfccFeatures);
-            
             // Log features to CSV file if in logging mode
             if (LOGGING_MODE && currentLabel != -1) {
                 logFeaturesToFile(context, mfccStats, currentLabel, expectedWord);
@@ -173,29 +322,27 @@ public class ONNXRandomForestScorer {
             FloatBuffer buffer = FloatBuffer.wrap(mfccStats);
             OnnxTensor inputTensor = OnnxTensor.createTensor(env, buffer, shape);
             
-            // Run inference - model expects input name "float_input"
-            Map<String, OnnxTensor> inputs = Collections.singletonMap("float_input", inputTensor);
-            OrtSession.Result result = session.run(inputs);
-            
-            Log.d(TAG, "📊 ONNX Model Inference for '" + expectedWord + "':");
-            
-            // Get output - handle both probability and label outputs
-            Object outputValue = result.get(0).getValue();
+            // Run inference - only the probability output is materialized
+            Map<String, OnnxTensor> inputs = Collections.singletonMap(inputName, inputTensor);
+            long inferenceStart = System.nanoTime();
+            OrtSession.Result result = session.run(inputs, requestedOutputs);
+            PipelineMetrics metrics = pipelineMetrics;
+            if (metrics != null) {
+                metrics.lap(PipelineMetrics.Stage.INFERENCE, inferenceStart);
+            }
             
-            Log.d(TAG, "   Output type: " + outputValue.getClass().getName());
+            SpeechLog.d(TAG, () -> "📊 ONNX Model Inference for '" + expectedWord + "':");
             
+            float[] probs = new float[2];
             float incorrectProb = 0.5f;
             float correctProb = 0.5f;
             int classification = INCORRECT_PRONUNCIATION;
             
-            // Check output type and handle accordingly
-            if (outputValue instanceof float[][]) {
-                // Model outputs probabilities [batch_size, num_classes]
-                float[][] output = (float[][]) outputValue;
-                incorrectProb = output[0][0];
-                correctProb = output[0][1];
+            if (probabilityExtractor.extract(result.get(0), probs)) {
+                incorrectProb = probs[0];
+                correctProb = probs[1];
                 
-                Log.d(TAG, String.format("   Raw probabilities: [%.4f, %.4f]", incorrectProb, correctProb));
+                SpeechLog.d(TAG, () -> String.format("   Raw probabilities: [%.4f, %.4f]", probs[0], probs[1]));
                 
                 // Normalize
                 float sum = incorrectProb + correctProb;
@@ -206,61 +353,25 @@ public class ONNXRandomForestScorer {
                 
                 classification = correctProb > incorrectProb ? CORRECT_PRONUNCIATION : INCORRECT_PRONUNCIATION;
                 
-                Log.d(TAG, String.format("   Normalized: Incorrect=%.1f%%, Correct=%.1f%%", 
-                    incorrectProb * 100, correctProb * 100));
-                Log.d(TAG, String.format("   ✅ Classification: %s (confidence: %.1f%%)", 
-                    classification == CORRECT_PRONUNCIATION ? "CORRECT" : "INCORRECT",
-                    Math.max(incorrectProb, correctProb) * 100));
-                
-            } else if (outputValue instanceof long[]) {
-                // Model outputs class labels [batch_size]
-                long[] output = (long[]) outputValue;
-                classification = (int) output[0];
-                
-                Log.d(TAG, String.format("   Raw class label: %d", classification));
-                
-                // For label output, use high confidence (0.8) since model is certain
-                if (classification == CORRECT_PRONUNCIATION) {
-                    correctProb = 0.8f;
-                    incorrectProb = 0.2f;
-                } else {
-                    correctProb = 0.2f;
-                    incorrectProb = 0.8f;
-                }
-                
-                Log.d(TAG, String.format("   Assigned: Incorrect=%.1f%%, Correct=%.1f%%", 
-                    incorrectProb * 100, correctProb * 100));
-                Log.d(TAG, String.format("   ✅ Classification: %s (confidence: %.1f%%)", 
-                    classification == CORRECT_PRONUNCIATION ? "CORRECT" : "INCORRECT",
-                    Math.max(incorrectProb, correctProb) * 100));
-                
-            } else if (outputValue instanceof float[]) {
-                // Model outputs flat probabilities [num_classes]
-                float[] output = (float[]) outputValue;
-                if (output.length >= 2) {
-                    incorrectProb = output[0];
-                    correctProb = output[1];
-                    
-                    Log.d(TAG, String.format("   Raw probabilities: [%.4f, %.4f]", incorrectProb, correctProb));
-                    
-                    // Normalize
-                    float sum = incorrectProb + correctProb;
-                    if (sum > 0) {
-                        incorrectProb /= sum;
-                        correctProb /= sum;
-                    }
-                    
-                    classification = correctProb > incorrectProb ? CORRECT_PRONUNCIATION : INCORRECT_PRONUNCIATION;
-                    
-                    Log.d(TAG, String.format("   Normalized: Incorrect=%.1f%%, Correct=%.1f%%", 
+                if (SpeechLog.isLoggable(SpeechLog.DEBUG)) {
+                    SpeechLog.d(TAG, String.format("   Normalized: Incorrect=%.1f%%, Correct=%.1f%%", 
                         incorrectProb * 100, correctProb * 100));
-                    Log.d(TAG, String.format("   ✅ Classification: %s (confidence: %.1f%%)", 
-                        classification == CORRECT_PRONUNCIATION ? "CORRECT" : "INCORRECT",
-                        Math.max(incorrectProb, correctProb) * 100));
                 }
+            } else if (probs[1] > probs[0]) {
+                // Label-only model: no real confidence available
+                classification = CORRECT_PRONUNCIATION;
+                correctProb = 0.8f;
+                incorrectProb = 0.2f;
             } else {
-                Log.e(TAG, "❌ Unexpected output type: " + outputValue.getClass().getName());
-                // Return default 50/50
+                classification = INCORRECT_PRONUNCIATION;
+                correctProb = 0.2f;
+                incorrectProb = 0.8f;
+            }
+            
+            if (SpeechLog.isLoggable(SpeechLog.DEBUG)) {
+                SpeechLog.d(TAG, String.format("   ✅ Classification: %s (confidence: %.1f%%)", 
+                    classification == CORRECT_PRONUNCIATION ? "CORRECT" : "INCORRECT",
+                    Math.max(incorrectProb, correctProb) * 100));
             }
             
             // Cleanup
@@ -270,7 +381,7 @@ public class ONNXRandomForestScorer {
             return new PronunciationResult(classification, correctProb, incorrectProb);
             
         } catch (Exception e) {
-            Log.e(TAG, "❌ Error during ONNX inference for '" + expectedWord + "': " + e.getMessage(), e);
+            SpeechLog.e(TAG, "❌ Error during ONNX inference for '" + expectedWord + "': " + e.getMessage(), e);
             return new PronunciationResult(INCORRECT_PRONUNCIATION, 0.5f, 0.5f);
         }
     }
@@ -284,192 +395,237 @@ public class ONNXRandomForestScorer {
         return isModelLoaded && session != null;
     }
     
-    private byte[] loadModelFromAssets(Context context, String modelPath) throws Exception {
-        InputStream inputStream = context.getAssets().open(modelPath);
-        byte[] buffer = new byte[inputStream.available()];
-        inputStream.read(buffer);
-        inputStream.close();
-        return buffer;
-    }
-    
-    private void logModelInfo() {
-        try {
-            Log.d(TAG, "ONNX Model Info:");
-            Log.d(TAG, "  Input count: " + session.getInputNames().size());
-            Log.d(TAG, "  Output count: " + session.getOutputNames().size());
-            Log.d(TAG, "  Input names: " + session.getInputNames());
-            Log.d(TAG, "  Output names: " + session.getOutputNames());
-        } catch (Exception e) {
-            Log.w(TAG, "Could not log model info: " + e.getMessage());
-        }
-    }
-    
     /**
-     * Calculate MFCC features with deltas and delta-deltas
-     * Returns: [mean_c1, mean_c2, ..., delta_c1, delta_c2, ..., deltaDelta_c1, deltaDelta_c2, ...]
-     * Total: 39 features (13 means + 13 deltas + 13 delta-deltas)
-     * 
-     * IMPORTANT: This matches the training data feature extraction:
-     * - Means: Average MFCC coefficients across all frames
-     * - Deltas: First derivative (rate of change) of means
-     * - Delta-Deltas: Second derivative (acceleration) of means
+     * Inspect the model's outputs once and bind a specialized probability reader
      * 
-     * Input audio has already been RMS-normalized in AudioPreProcessor
+     * scikit-learn exports a label output plus a probability output, either as a
+     * float tensor [N, 2] or (with ZipMap) as a sequence of {class: prob} maps.
+     * Only the probability output is requested at run time, so the label tensor
+     * is never materialized.
      */
-    private float[] calculateMFCCStatistics(float[][] mfccFeatures) {
-        int numCoeffs = mfccFeatures[0].length;
-        int numFrames = mfccFeatures.length;
+    private void bindModelOutputs() throws OrtException {
+        inputName = session.getInputNames().iterator().next();
         
-        float[] features = new float[numCoeffs * 3]; // means + deltas + delta-deltas
-        
-        // Step 1: Calculate mean for each coefficient
-        float[] means = new float[numCoeffs];
-        for (int c = 0; c < numCoeffs; c++) {
-            float sum = 0;
-            for (int f = 0; f < numFrames; f++) {
-                sum += mfccFeatures[f][c];
+        String labelOutput = null;
+        for (Map.Entry<String, NodeInfo> entry : session.getOutputInfo().entrySet()) {
+            String name = entry.getKey();
+            Object info = entry.getValue().getInfo();
+            
+            if (info instanceof SequenceInfo && ((SequenceInfo) info).isSequenceOfMaps()) {
+                MapInfo mapInfo = ((SequenceInfo) info).mapInfo;
+                probabilityExtractor = mapInfo.keyType == OnnxJavaType.STRING
+                    ? (output, probs) -> readSequenceMap(output, "0", "1", probs)
+                    : (output, probs) -> readSequenceMap(output, 0L, 1L, probs);
+                requestedOutputs = Collections.singleton(name);
+                SpeechLog.d(TAG, "Bound probability output '" + name + "' (sequence of maps)");
+                return;
             }
-            means[c] = sum / numFrames;
-        }
-        
-        // Step 2: Calculate deltas (first derivative)
-        // Delta represents the rate of change of MFCC coefficients over time
-        float[] deltas = computeDelta(mfccFeatures, numCoeffs, numFrames);
-        
-        // Step 3: Calculate delta-deltas (second derivative)
-        // Delta-delta represents the acceleration of MFCC coefficients
-        // We compute deltas of the delta coefficients
-        float[][] deltaFrames = new float[numFrames][numCoeffs];
-        for (int f = 0; f < numFrames; f++) {
-            for (int c = 0; c < numCoeffs; c++) {
-                // For delta frames, we use the instantaneous delta at each frame
-                if (f == 0) {
-                    deltaFrames[f][c] = 0; // No previous frame
-                } else {
-                    deltaFrames[f][c] = mfccFeatures[f][c] - mfccFeatures[f-1][c];
+            
+            if (info instanceof TensorInfo) {
+                TensorInfo tensorInfo = (TensorInfo) info;
+                if (tensorInfo.type == OnnxJavaType.FLOAT) {
+                    probabilityExtractor = (output, probs) -> {
+                        FloatBuffer values = ((OnnxTensor) output).getFloatBuffer();
+                        if (values.remaining() < 2) return false;
+                        probs[0] = values.get(0);
+                        probs[1] = values.get(1);
+                        return true;
+                    };
+                    requestedOutputs = Collections.singleton(name);
+                    SpeechLog.d(TAG, "Bound probability output '" + name + "' (float tensor)");
+                    return;
+                }
+                if (tensorInfo.type == OnnxJavaType.INT64 && labelOutput == null) {
+                    labelOutput = name;
                 }
             }
         }
-        float[] deltaDeltas = computeDelta(deltaFrames, numCoeffs, numFrames);
         
-        // Concatenate: means + deltas + delta-deltas
-        System.arraycopy(means, 0, features, 0, numCoeffs);
-        System.arraycopy(deltas, 0, features, numCoeffs, numCoeffs);
-        System.arraycopy(deltaDeltas, 0, features, numCoeffs * 2, numCoeffs);
+        if (labelOutput == null) {
+            throw new OrtException("Model has no usable probability or label output: " + session.getOutputNames());
+        }
         
-        // Log features for debugging
-        StringBuilder meanStr = new StringBuilder("MFCC means: [");
-        for (int i = 0; i < numCoeffs; i++) {
-            meanStr.append(String.format("%.3f", means[i]));
-            if (i < numCoeffs - 1) meanStr.append(", ");
-        }
-        meanStr.append("]");
-        Log.d(TAG, meanStr.toString());
+        // Label-only model: encode the label as a one-hot vote and report "no probabilities"
+        SpeechLog.w(TAG, "⚠️ Model has no probability output - falling back to label '" + labelOutput + "'");
+        probabilityExtractor = (output, probs) -> {
+            long label = ((OnnxTensor) output).getLongBuffer().get(0);
+            probs[0] = label == CORRECT_PRONUNCIATION ? 0f : 1f;
+            probs[1] = label == CORRECT_PRONUNCIATION ? 1f : 0f;
+            return false;
+        };
+        requestedOutputs = Collections.singleton(labelOutput);
+    }
+    
+    private static boolean readSequenceMap(OnnxValue output, Object incorrectKey, Object correctKey,
+                                           float[] probs) throws OrtException {
+        List<? extends OnnxValue> maps = ((OnnxSequence) output).getValue();
+        if (maps.isEmpty()) return false;
+        Map<? extends Object, ? extends Object> classProbs = ((OnnxMap) maps.get(0)).getValue();
+        Object incorrect = classProbs.get(incorrectKey);
+        Object correct = classProbs.get(correctKey);
+        if (incorrect == null || correct == null) return false;
+        probs[0] = ((Number) incorrect).floatValue();
+        probs[1] = ((Number) correct).floatValue();
+        return true;
+    }
+    
+    /**
+     * Create the ONNX session
+     * First launch: optimize the graph and serialize it to the cache file.
+     * Later launches: load the cached graph with optimization disabled.
+     */
+    private OrtSession createSession(Context context, SessionConfig config) throws Exception {
+        File cacheFile = config.cacheOptimizedModel ? getOptimizedModelCacheFile(context, config) : null;
         
-        StringBuilder deltaStr = new StringBuilder("MFCC deltas: [");
-        for (int i = 0; i < numCoeffs; i++) {
-            deltaStr.append(String.format("%.3f", deltas[i]));
-            if (i < numCoeffs - 1) deltaStr.append(", ");
+        if (cacheFile != null && isCacheValid(context, cacheFile)) {
+            long start = System.currentTimeMillis();
+            try {
+                sessionOptions = config.toSessionOptions(OrtSession.SessionOptions.OptLevel.NO_OPT);
+                OrtSession cached = env.createSession(cacheFile.getAbsolutePath(), sessionOptions);
+                SpeechLog.d(TAG, String.format("✅ Session created from optimized model cache in %d ms",
+                    System.currentTimeMillis() - start));
+                return cached;
+            } catch (OrtException e) {
+                SpeechLog.w(TAG, "⚠️ Optimized model cache unusable, rebuilding: " + e.getMessage());
+                sessionOptions.close();
+                sessionOptions = null;
+                cacheFile.delete();
+            }
         }
-        deltaStr.append("]");
-        Log.d(TAG, deltaStr.toString());
         
-        StringBuilder deltaDeltaStr = new StringBuilder("MFCC delta-deltas: [");
-        for (int i = 0; i < numCoeffs; i++) {
-            deltaDeltaStr.append(String.format("%.3f", deltaDeltas[i]));
-            if (i < numCoeffs - 1) deltaDeltaStr.append(", ");
+        // Load model from assets
+        byte[] modelBytes = loadModelFromAssets(context, MODEL_PATH);
+        SpeechLog.d(TAG, String.format("✅ Model loaded from assets: %d bytes", modelBytes.length));
+        if (cacheFile == null) {
+            return createSession(modelBytes, config);
         }
-        deltaDeltaStr.append("]");
-        Log.d(TAG, deltaDeltaStr.toString());
         
-        Log.d(TAG, String.format("Feature vector size: %d (from %d frames x %d coeffs)", 
-            features.length, numFrames, numCoeffs));
-        
-        // NO normalization - model was trained on raw features
-        Log.d(TAG, "Using RAW features (no normalization)");
-        
-        // Log raw features for debugging
-        StringBuilder rawStr = new StringBuilder("Raw features (first 10): [");
-        for (int i = 0; i < Math.min(10, features.length); i++) {
-            rawStr.append(String.format("%.3f", features[i]));
-            if (i < Math.min(10, features.length) - 1) rawStr.append(", ");
-        }
-        rawStr.append("...]");
-        Log.d(TAG, rawStr.toString());
-        
-        return features;
+        long start = System.currentTimeMillis();
+        sessionOptions = config.toSessionOptions(config.optLevel);
+        sessionOptions.setOptimizedModelFilePath(cacheFile.getAbsolutePath());
+        OrtSession created = env.createSession(modelBytes, sessionOptions);
+        SpeechLog.d(TAG, String.format("✅ Session created with graph optimization in %d ms (cached for next launch)",
+            System.currentTimeMillis() - start));
+        return created;
     }
     
     /**
-     * Compute delta coefficients (first derivative)
-     * Delta represents the rate of change over time
-     * 
-     * Formula: delta[c] = mean(frame[t+1][c] - frame[t][c]) for all frames
+     * Create the ONNX session straight from model bytes, without the optimized-model cache
      */
-    private float[] computeDelta(float[][] frames, int numCoeffs, int numFrames) {
-        float[] deltas = new float[numCoeffs];
-        
-        for (int c = 0; c < numCoeffs; c++) {
-            float sum = 0;
-            int count = 0;
-            
-            // Calculate differences between consecutive frames
-            for (int f = 1; f < numFrames; f++) {
-                sum += frames[f][c] - frames[f-1][c];
-                count++;
+    private OrtSession createSession(byte[] modelBytes, SessionConfig config) throws OrtException {
+        long start = System.currentTimeMillis();
+        sessionOptions = config.toSessionOptions(config.optLevel);
+        OrtSession created = env.createSession(modelBytes, sessionOptions);
+        SpeechLog.d(TAG, String.format("✅ Session created with graph optimization in %d ms",
+            System.currentTimeMillis() - start));
+        return created;
+    }
+    
+    /**
+     * Cache file for the optimized graph, keyed by model and optimization level
+     * The optimized graph may contain hardware-specific rewrites, so it lives in
+     * internal storage and is never shipped or shared between devices.
+     */
+    private File getOptimizedModelCacheFile(Context context, SessionConfig config) {
+        File dir = new File(context.getFilesDir(), "onnx_cache");
+        if (!dir.exists() && !dir.mkdirs()) {
+            return null;
+        }
+        String name = MODEL_PATH.replace(".onnx", "") + "." + config.optLevel.name().toLowerCase() + ".opt.onnx";
+        return new File(dir, name);
+    }
+    
+    /**
+     * The cache is stale once the APK (and so the bundled model) is updated
+     */
+    private boolean isCacheValid(Context context, File cacheFile) {
+        if (!cacheFile.exists() || cacheFile.length() == 0) {
+            return false;
+        }
+        try {
+            long lastUpdate = context.getPackageManager()
+                .getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+            if (cacheFile.lastModified() < lastUpdate) {
+                cacheFile.delete();
+                return false;
             }
-            
-            // Average the differences
-            deltas[c] = (count > 0) ? (sum / count) : 0;
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+    
+    public SessionConfig getSessionConfig() {
+        return sessionConfig;
+    }
+    
+    private byte[] loadModelFromAssets(Context context, String modelPath) throws Exception {
+        InputStream inputStream = context.getAssets().open(modelPath);
+        byte[] buffer = new byte[inputStream.available()];
+        inputStream.read(buffer);
+        inputStream.close();
+        return buffer;
+    }
+    
+    private void logModelInfo() {
+        try {
+            SpeechLog.d(TAG, "ONNX Model Info:");
+            SpeechLog.d(TAG, "  Input count: " + session.getInputNames().size());
+            SpeechLog.d(TAG, "  Output count: " + session.getOutputNames().size());
+            SpeechLog.d(TAG, "  Input names: " + session.getInputNames());
+            SpeechLog.d(TAG, "  Output names: " + session.getOutputNames());
+        } catch (Exception e) {
+            SpeechLog.w(TAG, "Could not log model info: " + e.getMessage());
         }
-        
-        return deltas;
     }
     
     /**
-     * Log features to CSV file for retraining
-     * Format: word,f0,f1,...,f38,label
+     * Append features to the binary feature log for retraining
+     * The log stays open between words; use exportFeatureLogCsv() for the Python scripts
      * 
      * @param context Android context for file access
-     * @param features Normalized feature vector (39 values)
+     * @param features Feature vector (39 values)
      * @param label True label: 0=incorrect, 1=correct
      * @param word Expected word
      */
     private void logFeaturesToFile(Context context, float[] features, int label, String word) {
         try {
-            File dir = context.getExternalFilesDir(null);
-            File file = new File(dir, LOG_FILE);
-            boolean writeHeader = !file.exists();
-            
-            FileWriter fw = new FileWriter(file, true); // Append mode
-            BufferedWriter bw = new BufferedWriter(fw);
-            
-            // Write header once
-            if (writeHeader) {
-                StringBuilder header = new StringBuilder("word,");
-                for (int i = 0; i < 39; i++) {
-                    header.append("f").append(i).append(",");
-                }
-                header.append("label");
-                bw.write(header.toString());
-                bw.newLine();
-                Log.i(TAG, "📝 Created CSV file: " + file.getAbsolutePath());
-            }
-            
-            // Write feature row
-            StringBuilder row = new StringBuilder(word).append(",");
-            for (float f : features) {
-                row.append(String.format("%.6f", f)).append(",");
+            if (featureLog == null) {
+                File file = new File(context.getExternalFilesDir(null), LOG_FILE);
+                featureLog = FeatureLog.open(file, PronunciationFeatureExtractor.FEATURE_COUNT);
+                SpeechLog.i(TAG, "📝 Logging features to: " + file.getAbsolutePath());
             }
-            row.append(label);
-            bw.write(row.toString());
-            bw.newLine();
-            bw.close();
+            featureLog.append(word, null, label, features);
             
-            Log.d(TAG, "✅ Logged: " + word + " (label=" + label + ") to " + LOG_FILE);
+            SpeechLog.d(TAG, "✅ Logged: " + word + " (label=" + label + ") to " + LOG_FILE);
             
         } catch (IOException e) {
-            Log.e(TAG, "❌ Failed to log features: " + e.getMessage(), e);
+            SpeechLog.e(TAG, "❌ Failed to log features: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Export the logged features as CSV (word,f0,...,f38,label) for retraining
+     * 
+     * @return The CSV file, or null if nothing has been logged
+     */
+    public File exportFeatureLogCsv() {
+        File dir = context.getExternalFilesDir(null);
+        File logFile = new File(dir, LOG_FILE);
+        if (!logFile.exists()) {
+            return null;
+        }
+        try {
+            if (featureLog != null) {
+                featureLog.flush();
+            }
+            File csvFile = new File(dir, LOG_CSV_FILE);
+            int rows = FeatureLog.exportCsv(logFile, csvFile, false);
+            SpeechLog.i(TAG, "📝 Exported " + rows + " rows to " + csvFile.getAbsolutePath());
+            return csvFile;
+        } catch (IOException e) {
+            SpeechLog.e(TAG, "❌ Failed to export feature log: " + e.getMessage(), e);
+            return null;
         }
     }
     
@@ -494,7 +650,7 @@ public class ONNXRandomForestScorer {
         csv.append(",").append(label);
         
         // Log with special tag for easy filtering
-        Log.i("FEATURE_CSV", csv.toString());
+        SpeechLog.i("FEATURE_CSV", csv.toString());
     }
     
     /**
@@ -506,7 +662,7 @@ public class ONNXRandomForestScorer {
      */
     private float[] minMaxNormalize(float[] features) {
         if (features.length != TRAINING_MIN_VALS.length) {
-            Log.e(TAG, String.format("Feature length mismatch: got %d, expected %d", 
+            SpeechLog.e(TAG, String.format("Feature length mismatch: got %d, expected %d", 
                 features.length, TRAINING_MIN_VALS.length));
             return features;
         }
@@ -529,7 +685,7 @@ public class ONNXRandomForestScorer {
             }
         }
         
-        Log.d(TAG, "Applied fixed Min-Max normalization using training dataset min/max");
+        SpeechLog.d(TAG, "Applied fixed Min-Max normalization using training dataset min/max");
         
         return normalized;
     }
@@ -540,10 +696,21 @@ public class ONNXRandomForestScorer {
                 session.close();
                 session = null;
             }
+            if (sessionOptions != null) {
+                sessionOptions.close();
+                sessionOptions = null;
+            }
+            if (featureLog != null) {
+                featureLog.close();
+                featureLog = null;
+            }
+            if (featureCache != null) {
+                featureCache.save();
+            }
             isModelLoaded = false;
-            Log.d(TAG, "ONNX model released");
+            SpeechLog.d(TAG, "ONNX model released");
         } catch (Exception e) {
-            Log.e(TAG, "Error releasing model: " + e.getMessage());
+            SpeechLog.e(TAG, "Error releasing model: " + e.getMessage());
         }
     }
     
@@ -0,0 +1,297 @@
+package com.example.speak;
+
+import android.os.Build;
+import android.os.Debug;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Sampling method traces of the scoring pipeline, captured automatically (debug builds only)
+ *
+ * A capture covers Config.wordCount words and starts either:
+ *   - at a fixed word of every session (Config.startWord), or
+ *   - at the word after one where a stage went over its latency budget - a slow stage is
+ *     usually thermal throttling or GC pressure, which lasts long enough to be caught
+ *
+ * Each capture writes to the directory given at construction:
+ *   profile_<time>_w<word>.trace  Debug.startMethodTracingSampling output (Android Studio profiler)
+ *   profile_<time>_w<word>.json   Session metadata: what triggered it, which words, the device
+ *   profile_<time>_w<word>.spkt   The recognizer's TraceRecorder events, if one was given
+ *
+ * Words scored while tracing run slower; the metadata lists them. At most
+ * Config.maxCaptures captures are taken per session, and budgets are not checked while
+ * a capture is running. Called on the recognizer's processing thread.
+ */
+public class ProfilingTrigger implements PipelineMetrics.StageListener {
+
+    private static final String TAG = "ProfilingTrigger";
+
+    /** Optional overrides, read from the trace directory (adb push it there) */
+    public static final String CONFIG_FILE = "profiling.properties";
+
+    public static class Config {
+        public final int startWord;        // Word index to capture at, or -1 for budget triggers only
+        public final int wordCount;        // Words per capture
+        public final int maxCaptures;      // Per session
+        public final long[] budgetNanos;   // Per PipelineMetrics.Stage ordinal, 0 = no budget
+        public final int intervalUs;       // Sampling interval
+        public final int bufferBytes;      // Trace buffer - sampling stops when it fills
+
+        public Config(int startWord, int wordCount, int maxCaptures, long[] budgetNanos,
+                      int intervalUs, int bufferBytes) {
+            this.startWord = startWord;
+            this.wordCount = wordCount;
+            this.maxCaptures = maxCaptures;
+            this.budgetNanos = budgetNanos;
+            this.intervalUs = intervalUs;
+            this.bufferBytes = bufferBytes;
+        }
+
+        /**
+         * Budget triggers only: a word slower than 300 ms, or any stage over 150 ms
+         */
+        public static Config defaults() {
+            long[] budgets = new long[PipelineMetrics.Stage.values().length];
+            for (PipelineMetrics.Stage stage : PipelineMetrics.Stage.values()) {
+                budgets[stage.ordinal()] = 150_000_000L;
+            }
+            budgets[PipelineMetrics.Stage.TOTAL.ordinal()] = 300_000_000L;
+            return new Config(-1, 5, 2, budgets, 1000, 8 * 1024 * 1024);
+        }
+
+        /**
+         * Defaults overridden by a properties file, if it exists
+         *
+         * Keys: start_word, word_count, max_captures, interval_us, buffer_mb and
+         * budget_ms.<stage key> (e.g. budget_ms.mfcc=80, budget_ms.total=0 to disable)
+         */
+        public static Config load(File file) {
+            Config defaults = defaults();
+            if (file == null || !file.exists()) {
+                return defaults;
+            }
+            Properties properties = new Properties();
+            try (InputStream in = new FileInputStream(file)) {
+                properties.load(in);
+            } catch (IOException e) {
+                SpeechLog.w(TAG, "⚠️ Cannot read " + file + ", using defaults", e);
+                return defaults;
+            }
+
+            try {
+                long[] budgets = defaults.budgetNanos.clone();
+                for (PipelineMetrics.Stage stage : PipelineMetrics.Stage.values()) {
+                    String budgetMs = properties.getProperty("budget_ms." + stage.key);
+                    if (budgetMs != null) {
+                        budgets[stage.ordinal()] = (long) (Double.parseDouble(budgetMs.trim()) * 1_000_000L);
+                    }
+                }
+                return new Config(
+                    intProperty(properties, "start_word", defaults.startWord),
+                    Math.max(1, intProperty(properties, "word_count", defaults.wordCount)),
+                    intProperty(properties, "max_captures", defaults.maxCaptures),
+                    budgets,
+                    Math.max(100, intProperty(properties, "interval_us", defaults.intervalUs)),
+                    intProperty(properties, "buffer_mb", defaults.bufferBytes / (1024 * 1024)) * 1024 * 1024);
+            } catch (NumberFormatException e) {
+                SpeechLog.w(TAG, "⚠️ Bad value in " + file + ", using defaults", e);
+                return defaults;
+            }
+        }
+
+        private static int intProperty(Properties properties, String key, int defaultValue) {
+            String value = properties.getProperty(key);
+            return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+        }
+    }
+
+    private final File directory;
+    private final Config config;
+    private final TraceRecorder traceRecorder;
+
+    // Session state
+    private String studentId;
+    private String passageTitle;
+    private int sessionWords;
+    private int captures;
+    private int currentWord;
+    private JSONObject pendingTrigger; // Budget breach waiting for the next word
+
+    // Capture state
+    private String captureName;
+    private JSONObject captureTrigger;
+    private int firstWord;
+    private int wordsLeft;
+    private long captureStartMs;
+
+    /**
+     * @param directory Where traces are written
+     * @param traceRecorder Events to dump alongside each capture, or null
+     */
+    public ProfilingTrigger(File directory, Config config, TraceRecorder traceRecorder) {
+        this.directory = directory;
+        this.config = config;
+        this.traceRecorder = traceRecorder;
+    }
+
+    public synchronized void startSession(String studentId, String passageTitle, int words) {
+        stopCapture(); // A session that never finished
+        this.studentId = studentId;
+        this.passageTitle = passageTitle;
+        this.sessionWords = words;
+        this.captures = 0;
+        this.currentWord = -1;
+        this.pendingTrigger = null;
+    }
+
+    /**
+     * A word's audio is about to be scored
+     */
+    public synchronized void onWordStart(int wordIndex) {
+        currentWord = wordIndex;
+        if (captureName != null || captures >= config.maxCaptures) {
+            return;
+        }
+        if (pendingTrigger != null) {
+            startCapture(wordIndex, pendingTrigger);
+            pendingTrigger = null;
+        } else if (wordIndex == config.startWord) {
+            JSONObject trigger = new JSONObject();
+            try {
+                trigger.put("reason", "word");
+                trigger.put("word", wordIndex);
+            } catch (JSONException e) {
+                // Not thrown for these values
+            }
+            startCapture(wordIndex, trigger);
+        }
+    }
+
+    @Override
+    public synchronized void onStageEnd(PipelineMetrics.Stage stage, long startNanos, long endNanos) {
+        if (captureName != null) {
+            if (stage == PipelineMetrics.Stage.TOTAL && --wordsLeft <= 0) {
+                stopCapture();
+            }
+            return;
+        }
+
+        long budget = config.budgetNanos[stage.ordinal()];
+        long elapsed = endNanos - startNanos;
+        if (budget <= 0 || elapsed <= budget || pendingTrigger != null || captures >= config.maxCaptures) {
+            return;
+        }
+        pendingTrigger = new JSONObject();
+        try {
+            pendingTrigger.put("reason", "budget");
+            pendingTrigger.put("stage", stage.key);
+            pendingTrigger.put("word", currentWord);
+            pendingTrigger.put("latencyMs", elapsed / 1_000_000.0);
+            pendingTrigger.put("budgetMs", budget / 1_000_000.0);
+        } catch (JSONException e) {
+            // Not thrown for these values
+        }
+        SpeechLog.w(TAG, String.format(Locale.US, "🐢 %s took %.1f ms (budget %.1f ms) on word %d - profiling next %d words",
+            stage.key, elapsed / 1e6, budget / 1e6, currentWord, config.wordCount));
+    }
+
+    /**
+     * Recognition finished - ends a capture that is still running
+     */
+    public synchronized void finishSession() {
+        stopCapture();
+        pendingTrigger = null;
+    }
+
+    private void startCapture(int wordIndex, JSONObject trigger) {
+        if (directory == null || (!directory.exists() && !directory.mkdirs())) {
+            SpeechLog.w(TAG, "⚠️ No trace directory - profiling disabled");
+            return;
+        }
+        String name = String.format(Locale.US, "profile_%s_w%d",
+            new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date()), wordIndex);
+        try {
+            Debug.startMethodTracingSampling(new File(directory, name + ".trace").getAbsolutePath(),
+                config.bufferBytes, config.intervalUs);
+        } catch (RuntimeException e) {
+            SpeechLog.e(TAG, "❌ Could not start method tracing", e);
+            return;
+        }
+        captures++;
+        captureName = name;
+        captureTrigger = trigger;
+        firstWord = wordIndex;
+        wordsLeft = config.wordCount;
+        captureStartMs = System.currentTimeMillis();
+        SpeechLog.d(TAG, "🔬 Method tracing started: " + name);
+    }
+
+    private void stopCapture() {
+        if (captureName == null) {
+            return;
+        }
+        String name = captureName;
+        captureName = null;
+        Debug.stopMethodTracing();
+        long durationMs = System.currentTimeMillis() - captureStartMs;
+
+        if (traceRecorder != null) {
+            try {
+                traceRecorder.dump(new File(directory, name + TraceRecorder.FILE_EXTENSION));
+            } catch (IOException e) {
+                SpeechLog.w(TAG, "⚠️ Could not dump trace events for " + name, e);
+            }
+        }
+
+        try (Writer writer = new FileWriter(new File(directory, name + ".json"))) {
+            writer.write(describeCapture(name, durationMs).toString(2));
+        } catch (IOException | JSONException e) {
+            SpeechLog.w(TAG, "⚠️ Could not write metadata for " + name, e);
+        }
+        SpeechLog.d(TAG, "🔬 Method tracing saved: " + name + " (" + durationMs + " ms)");
+    }
+
+    private JSONObject describeCapture(String name, long durationMs) throws JSONException {
+        JSONObject session = new JSONObject();
+        session.put("studentId", studentId);
+        session.put("passage", passageTitle);
+        session.put("words", sessionWords);
+
+        JSONObject capture = new JSONObject();
+        capture.put("trace", name + ".trace");
+        if (traceRecorder != null) {
+            capture.put("events", name + TraceRecorder.FILE_EXTENSION);
+        }
+        capture.put("firstWord", firstWord);
+        capture.put("lastWord", currentWord);
+        capture.put("startedAt", captureStartMs);
+        capture.put("durationMs", durationMs);
+        capture.put("intervalUs", config.intervalUs);
+        capture.put("bufferMb", config.bufferBytes / (1024 * 1024));
+
+        JSONObject device = new JSONObject();
+        device.put("manufacturer", Build.MANUFACTURER);
+        device.put("model", Build.MODEL);
+        device.put("sdk", Build.VERSION.SDK_INT);
+        device.put("cores", Runtime.getRuntime().availableProcessors());
+
+        JSONObject metadata = new JSONObject();
+        metadata.put("trigger", captureTrigger);
+        metadata.put("capture", capture);
+        metadata.put("session", session);
+        metadata.put("device", device);
+        return metadata;
+    }
+}
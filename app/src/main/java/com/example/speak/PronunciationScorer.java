@@ -0,0 +1,24 @@
+package com.example.speak;
+
+/**
+ * Scores the pronunciation of one preprocessed word clip
+ *
+ * Implemented by ONNXRandomForestScorer; lets MFCCPronunciationRecognizer be run
+ * with a stand-in scorer where the ONNX runtime is not available (JVM tests).
+ */
+public interface PronunciationScorer {
+
+    /**
+     * @param audioSamples Denoised, RMS-normalized word audio at 16 kHz
+     * @param expectedWord Word the student was meant to read
+     */
+    ONNXRandomForestScorer.PronunciationResult scorePronunciation(short[] audioSamples, String expectedWord);
+
+    /**
+     * Time the scorer's stages (MFCC, statistics, inference) into metrics, or null to stop
+     */
+    default void setPipelineMetrics(PipelineMetrics metrics) {
+    }
+
+    void release();
+}
@@ -1,6 +1,7 @@
 package com.example.speak;
 
 import java.util.Date;
+import java.util.Map;
 
 /**
  * Model class for storing reading session data
@@ -35,6 +36,13 @@ public class ReadingSession {
     private String weaknesses;
     private String recommendations;
     
+    // Scoring latency per pipeline stage (PipelineMetrics.Stage key -> summary) and the device
+    // it ran on, so slow devices can be identified from field data
+    private Map<String, PipelineMetrics.StageSummary> pipelineLatency;
+    private RealTimeMonitor.Snapshot realTime; // Whether scoring kept up with speech
+    private AllocationMonitor.Summary allocation; // GC and allocation, by pipeline stage
+    private String deviceModel;
+    
     // Constructors
     public ReadingSession() {
         this.timestamp = System.currentTimeMillis();
@@ -201,6 +209,38 @@ public class ReadingSession {
         this.teacherId = teacherId;
     }
     
+    public Map<String, PipelineMetrics.StageSummary> getPipelineLatency() {
+        return pipelineLatency;
+    }
+    
+    public void setPipelineLatency(Map<String, PipelineMetrics.StageSummary> pipelineLatency) {
+        this.pipelineLatency = pipelineLatency;
+    }
+    
+    public RealTimeMonitor.Snapshot getRealTime() {
+        return realTime;
+    }
+    
+    public void setRealTime(RealTimeMonitor.Snapshot realTime) {
+        this.realTime = realTime;
+    }
+    
+    public AllocationMonitor.Summary getAllocation() {
+        return allocation;
+    }
+    
+    public void setAllocation(AllocationMonitor.Summary allocation) {
+        this.allocation = allocation;
+    }
+    
+    public String getDeviceModel() {
+        return deviceModel;
+    }
+    
+    public void setDeviceModel(String deviceModel) {
+        this.deviceModel = deviceModel;
+    }
+    
     // Helper methods
     public Date getDate() {
         return new Date(timestamp);
@@ -10,7 +10,9 @@ import com.google.firebase.database.Query;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Repository for managing reading session data with offline support
@@ -94,13 +96,48 @@ public class ReadingSessionRepository {
             });
     }
     
+    /**
+     * Fill in the comprehension score of an already saved session and the reading level
+     * reclassified with it, then recompute the student's progress from the completed record
+     * Comprehension is analyzed after the session is saved, so it arrives later
+     */
+    public void updateComprehension(String sessionId, String studentId, float comprehension,
+                                    ReadingLevelClassifier.ReadingLevelResult readingLevel,
+                                    OnSessionSavedListener listener) {
+        if (sessionId == null || sessionId.isEmpty()) {
+            listener.onFailure("Session ID is required for update");
+            return;
+        }
+        
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("comprehension", comprehension);
+        updates.put("readingLevel", readingLevel.level);
+        updates.put("readingLevelName", readingLevel.levelName);
+        updates.put("readingLevelDescription", readingLevel.description);
+        
+        sessionsRef.child(sessionId).updateChildren(updates)
+            .addOnSuccessListener(aVoid -> {
+                android.util.Log.d("ReadingSessionRepo", "✅ Comprehension updated for session: " + sessionId);
+                listener.onSuccess(null);
+                
+                // The aggregate written by saveSession predates the score
+                updateStudentProgressInBackground(studentId);
+            })
+            .addOnFailureListener(e -> {
+                android.util.Log.e("ReadingSessionRepo", "Failed to update comprehension: " + e.getMessage());
+                listener.onFailure("Failed to update comprehension: " + e.getMessage());
+            });
+    }
+    
     /**
      * Update student progress after saving a reading session (background operation)
      * This runs asynchronously and doesn't block the UI
      */
     private void updateStudentProgressInBackground(ReadingSession session) {
-        String studentId = session.getStudentId();
-        
+        updateStudentProgressInBackground(session.getStudentId());
+    }
+    
+    private void updateStudentProgressInBackground(String studentId) {
         if (studentId == null || studentId.isEmpty()) {
             android.util.Log.w("ReadingSessionRepo", "No student ID in session, skipping progress update");
             return;
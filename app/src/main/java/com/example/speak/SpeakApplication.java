@@ -22,6 +22,11 @@ public class SpeakApplication extends Application {
     public void onCreate() {
         super.onCreate();
         
+        // Speech core classes log through SpeechLog - send them to logcat,
+        // and skip building debug messages entirely in release builds
+        SpeechLog.setSink(new AndroidLogSink());
+        SpeechLog.setMinPriority(BuildConfig.DEBUG ? SpeechLog.DEBUG : SpeechLog.WARN);
+        
         // Force light theme globally (disable dark mode)
         AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_NO);
         Log.d(TAG, "✅ Forced light theme globally");
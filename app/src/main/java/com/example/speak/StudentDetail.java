@@ -4,6 +4,7 @@ import android.Manifest;
 import android.app.Dialog;
 import android.content.Intent;
 import android.content.pm.PackageManager;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
@@ -22,9 +23,12 @@ import androidx.constraintlayout.widget.ConstraintLayout;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -39,6 +43,7 @@ public class StudentDetail extends AppCompatActivity {
 
     private ImageView speakLogo;
     private TextView passageContentView; // Reference to passage text view for highlighting updates
+    private TextView realTimeOverlayView; // Debug overlay: real-time factor and audio overruns
     
     // Select Passage Section
     private ConstraintLayout selectPassageLayout;
@@ -115,6 +120,10 @@ public class StudentDetail extends AppCompatActivity {
     // Store results modal reference to update it when session is saved
     private Dialog currentResultsModal = null;
     
+    // Comprehension arrives from a background stage after the session is saved
+    private String lastSavedSessionId = null;
+    private float pendingComprehension = -1.0f; // -1 = not scored yet
+    
     // Toast management to prevent spam
     private Toast currentToast;
     private long lastToastTime = 0;
@@ -184,6 +193,15 @@ public class StudentDetail extends AppCompatActivity {
             // Initialize pronunciation recognizer (MFCC + ONNX Random Forest)
             try {
                 pronunciationRecognizer = new MFCCPronunciationRecognizer(this);
+                // Keep FLAC-compressed word audio for retraining
+                pronunciationRecognizer.setAudioArchiveDirectory(getExternalFilesDir("session_audio"));
+                if (BuildConfig.DEBUG) {
+                    // Method-trace slow words automatically; tune with traces/profiling.properties
+                    File traceDir = getExternalFilesDir("traces");
+                    pronunciationRecognizer.setProfilingTrigger(new ProfilingTrigger(traceDir,
+                        ProfilingTrigger.Config.load(new File(traceDir, ProfilingTrigger.CONFIG_FILE)),
+                        pronunciationRecognizer.getTraceRecorder()));
+                }
                 android.util.Log.d("StudentDetail", "✅ MFCCPronunciationRecognizer created and ready");
                 Toast.makeText(this, "✅ Speech recognition ready", Toast.LENGTH_SHORT).show();
             } catch (Exception e) {
@@ -1411,6 +1429,16 @@ public class StudentDetail extends AppCompatActivity {
         
         // Get the passage content TextView for highlighting
         passageContentView = readingModal.findViewById(R.id.passageContent);
+        realTimeOverlayView = readingModal.findViewById(R.id.realTimeOverlay);
+        if (realTimeOverlayView != null) {
+            realTimeOverlayView.setText("");
+            realTimeOverlayView.setVisibility(BuildConfig.DEBUG ? View.VISIBLE : View.GONE);
+            // Long-press dumps the session trace so far
+            realTimeOverlayView.setOnLongClickListener(v -> {
+                dumpTrace("session_" + System.currentTimeMillis() + TraceRecorder.FILE_EXTENSION, true);
+                return true;
+            });
+        }
         if (passageContentView == null) {
             android.util.Log.e("StudentDetail", "PassageContentView is NULL!");
             Toast.makeText(this, "❌ Cannot find passage text view", Toast.LENGTH_LONG).show();
@@ -1446,6 +1474,8 @@ public class StudentDetail extends AppCompatActivity {
         // Let MFCC + Random Forest handle continuous recognition naturally
         awaitingWordIndex = 0;
         timedOutWords.clear();
+        lastSavedSessionId = null;
+        pendingComprehension = -1.0f;
         
         // No watchdog - continuous flow recognition
         // Words will highlight as pronunciation recognizer processes them naturally
@@ -1516,6 +1546,9 @@ public class StudentDetail extends AppCompatActivity {
                             redrawHighlights(passageContentView);
                         }
                     }
+                    if (BuildConfig.DEBUG) {
+                        updateRealTimeOverlay();
+                    }
                 });
                 
                 // Check if reading is complete
@@ -1569,6 +1602,9 @@ public class StudentDetail extends AppCompatActivity {
                     // Stop timer immediately
                     stopTimerUpdates();
                     
+                    // Keep the last session's trace for adb pull
+                    dumpTrace("last_session" + TraceRecorder.FILE_EXTENSION, false);
+                    
                     // Update progress to 100%
                     if (progressBar != null && progressText != null) {
                         progressBar.setProgress(100);
@@ -1613,6 +1649,14 @@ public class StudentDetail extends AppCompatActivity {
                 });
             }
             
+            @Override
+            public void onComprehensionScored(float comprehensionScore,
+                                              ReadingLevelClassifier.ReadingLevelResult readingLevel) {
+                android.util.Log.d("StudentDetail", String.format(
+                    "🧠 Comprehension scored: %.1f%%, Level: %s", comprehensionScore * 100, readingLevel.levelName));
+                runOnUiThread(() -> applyComprehensionScore(comprehensionScore, readingLevel));
+            }
+            
             @Override
             public void onError(String error) {
                 android.util.Log.e("StudentDetail", "❌ Recognition error: " + error);
@@ -1746,6 +1790,64 @@ public class StudentDetail extends AppCompatActivity {
         android.util.Log.d("StudentDetail", "✅ Computed " + wordSpans.size() + " word spans with tracking arrays");
     }
     
+    /**
+     * Show the recognizer's real-time factor and capture overruns (debug builds)
+     */
+    private void updateRealTimeOverlay() {
+        if (realTimeOverlayView == null || pronunciationRecognizer == null) {
+            return;
+        }
+        RealTimeMonitor.Snapshot rt = pronunciationRecognizer.getRealTimeMonitor().snapshot();
+        realTimeOverlayView.setText(String.format(Locale.US,
+            "RTF %.2f  avg%d %.2f  max %.2f\nmisses %d/%d  backlog %dms\nshort %d  dropped %d  lost %d",
+            rt.getLastWordRtf(), RealTimeMonitor.ROLLING_WORDS, rt.getRollingRtf(), rt.getMaxWordRtf(),
+            rt.getDeadlineMisses(), rt.getWords(), rt.getMaxBacklogMs(),
+            rt.getShortReads(), rt.getDroppedSamples(), rt.getLostFrames()));
+        realTimeOverlayView.setTextColor(rt.getRollingRtf() > 1.0f ? 0xFFFF8A80 : 0xFFFFFFFF);
+    }
+    
+    /**
+     * Write the recognizer's trace events to getExternalFilesDir("traces") off the UI thread
+     * Convert with ChromeTraceExporter and open in ui.perfetto.dev.
+     */
+    private void dumpTrace(String fileName, boolean notify) {
+        if (pronunciationRecognizer == null) {
+            return;
+        }
+        TraceRecorder trace = pronunciationRecognizer.getTraceRecorder();
+        File file = new File(getExternalFilesDir("traces"), fileName);
+        new Thread(() -> {
+            try {
+                int events = trace.dump(file);
+                android.util.Log.d("StudentDetail", "🧵 Trace: " + events + " events -> " + file.getAbsolutePath());
+                if (notify) {
+                    runOnUiThread(() -> Toast.makeText(StudentDetail.this,
+                        "🧵 Trace saved: " + file.getName(), Toast.LENGTH_SHORT).show());
+                }
+            } catch (IOException e) {
+                android.util.Log.e("StudentDetail", "❌ Failed to write trace", e);
+            }
+        }, "TraceDump").start();
+    }
+    
+    /**
+     * Redraw highlights, traced as a UI span alongside the recognizer's events
+     */
+    private void redrawHighlights(TextView textView) {
+        TraceRecorder trace = pronunciationRecognizer != null ? pronunciationRecognizer.getTraceRecorder() : null;
+        if (trace == null) {
+            drawHighlights(textView);
+            return;
+        }
+        int redraw = trace.register("redrawHighlights");
+        trace.begin(redraw);
+        try {
+            drawHighlights(textView);
+        } finally {
+            trace.end(redraw);
+        }
+    }
+    
     /**
      * Highlight word at specific index using precomputed positions
      * This is accurate and doesn't break with repeated words or punctuation
@@ -1755,11 +1857,14 @@ public class StudentDetail extends AppCompatActivity {
      * Subtle Yellow = processing, Green = correct, Red = incorrect, No color = not yet spoken
      * Optimized to reduce UI lag
      */
-    private void redrawHighlights(TextView textView) {
+    private void drawHighlights(TextView textView) {
         try {
-            android.util.Log.d("StudentDetail", "🎨 redrawHighlights called");
-            android.util.Log.d("StudentDetail", String.format("   wordSpans.size()=%d, wordFinished.length=%d, wordScored.length=%d, wordCorrect.length=%d",
-                wordSpans.size(), wordFinished.length, wordScored.length, wordCorrect.length));
+            // Redrawn on every word - debug logging is compiled out of release builds
+            if (BuildConfig.DEBUG) {
+                android.util.Log.d("StudentDetail", "🎨 redrawHighlights called");
+                android.util.Log.d("StudentDetail", String.format("   wordSpans.size()=%d, wordFinished.length=%d, wordScored.length=%d, wordCorrect.length=%d",
+                    wordSpans.size(), wordFinished.length, wordScored.length, wordCorrect.length));
+            }
             
             // Get or create spannable
             CharSequence currentText = textView.getText();
@@ -1817,7 +1922,7 @@ public class StudentDetail extends AppCompatActivity {
                 }
                 
                 // Log first 10 and last 5 words for debugging
-                if (i < 10 || i >= wordSpans.size() - 5) {
+                if (BuildConfig.DEBUG && (i < 10 || i >= wordSpans.size() - 5)) {
                     android.util.Log.d("StudentDetail", String.format("   Word %d: finished=%b, scored=%b, correct=%b → %s",
                         i, wordFinished[i], wordScored[i], wordCorrect[i], colorName));
                 }
@@ -1829,8 +1934,10 @@ public class StudentDetail extends AppCompatActivity {
                 );
             }
             
-            android.util.Log.d("StudentDetail", String.format("🎨 Highlighting summary: %d GREEN, %d RED, %d YELLOW, %d skipped (not finished)",
-                greenCount, redCount, yellowCount, skippedCount));
+            if (BuildConfig.DEBUG) {
+                android.util.Log.d("StudentDetail", String.format("🎨 Highlighting summary: %d GREEN, %d RED, %d YELLOW, %d skipped (not finished)",
+                    greenCount, redCount, yellowCount, skippedCount));
+            }
             
             // Only update TextView if spannable was newly created
             if (!(currentText instanceof android.text.Spannable)) {
@@ -2274,15 +2381,24 @@ public class StudentDetail extends AppCompatActivity {
             ReadingSession session = new ReadingSession(studentId, studentName, passageTitle, currentPassageText);
             session.setAccuracy(finalReadingAccuracy);
             session.setPronunciation(finalPronunciation);
-            session.setComprehension(0.0f); // Not calculated in this version
+            // Comprehension is normally scored after saving; use it if it already arrived
+            session.setComprehension(pendingComprehension >= 0 ? pendingComprehension : 0.0f);
+            pendingComprehension = -1.0f;
             session.setWpm(finalWpm);
             session.setCorrectWords(currentCorrectWords);
             session.setTotalWords(currentTotalWords);
             session.setReadingLevelName(finalReadingLevelName);
             session.setTeacherId(teacherName); // Use teacher name as teacher ID
+            if (pronunciationRecognizer != null) {
+                session.setPipelineLatency(pronunciationRecognizer.getPipelineMetrics().snapshot());
+                session.setRealTime(pronunciationRecognizer.getRealTimeMonitor().snapshot());
+                session.setAllocation(pronunciationRecognizer.getAllocationMonitor().getSummary());
+                session.setDeviceModel(Build.MANUFACTURER + " " + Build.MODEL);
+            }
             
             // Save to Firebase
             ReadingSessionRepository repository = new ReadingSessionRepository();
+            lastSavedSessionId = null;
             repository.saveSession(session, new ReadingSessionRepository.OnSessionSavedListener() {
                 @Override
                 public void onSuccess(ReadingSession savedSession) {
@@ -2301,10 +2417,46 @@ public class StudentDetail extends AppCompatActivity {
                 }
             });
             
+            // ID is assigned synchronously by saveSession, before the write completes
+            lastSavedSessionId = session.getId();
+            
         } catch (Exception e) {
             android.util.Log.e("StudentDetail", "❌ Error creating session: " + e.getMessage(), e);
         }
     }
+    
+    /**
+     * Complete the session record with the comprehension score from the background stage,
+     * and the reading level reclassified with it
+     * Must be called on the UI thread (same thread as saveReadingSession)
+     */
+    private void applyComprehensionScore(float comprehensionScore,
+                                         ReadingLevelClassifier.ReadingLevelResult readingLevel) {
+        finalReadingLevelName = readingLevel.levelName;
+        if (lastSavedSessionId == null) {
+            // Session not saved yet - saveReadingSession will pick it up
+            pendingComprehension = comprehensionScore;
+            return;
+        }
+        
+        try {
+            ReadingSessionRepository repository = new ReadingSessionRepository();
+            repository.updateComprehension(lastSavedSessionId, studentId, comprehensionScore, readingLevel,
+                new ReadingSessionRepository.OnSessionSavedListener() {
+                    @Override
+                    public void onSuccess(ReadingSession savedSession) {
+                        android.util.Log.d("StudentDetail", "✅ Comprehension saved to session");
+                    }
+                    
+                    @Override
+                    public void onFailure(String error) {
+                        android.util.Log.e("StudentDetail", "❌ Failed to save comprehension: " + error);
+                    }
+                });
+        } catch (Exception e) {
+            android.util.Log.e("StudentDetail", "❌ Error updating comprehension: " + e.getMessage(), e);
+        }
+    }
 
     private void startListeningActivity(String passageTitle, Dialog readingModal) {
         Toast.makeText(this, "Playing audio for: " + passageTitle, Toast.LENGTH_SHORT).show();
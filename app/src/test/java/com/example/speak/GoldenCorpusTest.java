@@ -0,0 +1,224 @@
+package com.example.speak;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * Regression snapshot of the scoring path on the JVM: the recognizer's preprocessing,
+ * MFCC, statistics and the ONNX Random Forest, run over the clips in
+ * src/test/resources/golden.
+ *
+ * This is not a check against an independent reference. The training scripts learn from
+ * features this same Java path exports, so reference_features.csv is a snapshot of its
+ * own earlier output, and the seed labels in labels.csv are the current model's
+ * decisions on synthetic (formant-synthesized) clips. The checks only catch drift from
+ * the snapshotted behavior - which is what silently breaks a deployed model. Thresholds
+ * are in golden/golden.properties:
+ *   - features match the snapshot in reference_features.csv (the training CSV format)
+ *   - decisions agree with labels.csv
+ *   - throughput in clips per second stays above a floor
+ *
+ * Clips are raw 16 kHz mono word audio, as SessionAudioArchive stores it; add one by
+ * dropping the WAV into golden/clips and its label into labels.csv. Teacher-labelled
+ * recordings make the decision check a real accuracy check for those clips.
+ *
+ * After an intentional change to the features (or new clips), retake the snapshot with
+ *   ./gradlew :app:testDebugUnitTest --tests '*GoldenCorpusTest' -Dgolden.update=true
+ * and retrain the model on features from the same code.
+ */
+public class GoldenCorpusTest {
+
+    private static final String MODEL_FILE = "random_forest_model_retrained.onnx";
+    private static final int SAMPLE_RATE = 16000;
+    private static final int THROUGHPUT_PASSES = 5;
+
+    /**
+     * One labelled clip, raw as SessionAudioArchive stores it
+     */
+    private static class Clip {
+        final String filename;
+        final String word;
+        final int label;
+        final short[] audio;
+
+        Clip(String filename, String word, int label, short[] audio) {
+            this.filename = filename;
+            this.word = word;
+            this.label = label;
+            this.audio = audio;
+        }
+    }
+
+    private static File corpusDir;
+    private static Properties thresholds;
+    private static List<Clip> clips;
+    private static ONNXRandomForestScorer scorer;
+
+    @BeforeClass
+    public static void loadCorpus() throws IOException {
+        // Set by the app's Gradle test task; the defaults work from the module directory
+        corpusDir = new File(System.getProperty("speak.golden", "src/test/resources/golden"));
+        File assetsDir = new File(System.getProperty("speak.assets", "src/main/assets"));
+
+        thresholds = new Properties();
+        try (InputStream in = new FileInputStream(new File(corpusDir, "golden.properties"))) {
+            thresholds.load(in);
+        }
+
+        clips = new ArrayList<>();
+        for (String[] row : readCsv(new File(corpusDir, "labels.csv"))) {
+            File wav = new File(corpusDir, "clips/" + row[0]);
+            try (WavReader reader = WavReader.open(wav, SAMPLE_RATE, 1)) {
+                clips.add(new Clip(row[0], row[1], Integer.parseInt(row[2]), reader.readSamples()));
+            }
+        }
+        assertFalse("Golden corpus is empty", clips.isEmpty());
+
+        byte[] model = Files.readAllBytes(new File(assetsDir, MODEL_FILE).toPath());
+        scorer = new ONNXRandomForestScorer(model,
+            ONNXRandomForestScorer.SessionConfig.forDeviceClass(ONNXRandomForestScorer.SessionConfig.DeviceClass.LOW_END));
+        assertTrue("ONNX model did not load", scorer.isReady());
+
+        if (Boolean.getBoolean("golden.update")) {
+            writeReference();
+        }
+    }
+
+    @AfterClass
+    public static void releaseScorer() {
+        if (scorer != null) {
+            scorer.release();
+        }
+    }
+
+    @Test
+    public void testFeatures_MatchSnapshot() throws IOException {
+        Map<String, float[]> reference = new HashMap<>();
+        List<String[]> rows = readCsv(new File(corpusDir, "reference_features.csv"));
+        for (String[] row : rows) {
+            float[] features = new float[PronunciationFeatureExtractor.FEATURE_COUNT];
+            assertEquals("Reference row width for " + row[0], features.length + 3, row.length);
+            for (int i = 0; i < features.length; i++) {
+                features[i] = Float.parseFloat(row[i + 2]);
+            }
+            reference.put(row[0], features);
+        }
+
+        float tolerance = Float.parseFloat(thresholds.getProperty("feature_tolerance"));
+        PronunciationFeatureExtractor extractor = new PronunciationFeatureExtractor();
+        MFCCPronunciationRecognizer recognizer = newRecognizer();
+        for (Clip clip : clips) {
+            float[] expected = reference.get(clip.filename);
+            assertNotNull("No reference features for " + clip.filename, expected);
+            float[] actual = extractor.extract(recognizer.preprocessWord(clip.audio), null);
+            assertNotNull("Extraction failed for " + clip.filename, actual);
+            for (int i = 0; i < expected.length; i++) {
+                // Relative above 1, absolute below - the statistics span ~1e-2 .. ~4e2
+                float allowed = tolerance * Math.max(1f, Math.abs(expected[i]));
+                assertEquals(clip.filename + " f" + i, expected[i], actual[i], allowed);
+            }
+        }
+    }
+
+    @Test
+    public void testDecisions_AgreeWithLabels() {
+        MFCCPronunciationRecognizer recognizer = newRecognizer();
+        int correct = 0;
+        StringBuilder misses = new StringBuilder();
+        for (Clip clip : clips) {
+            ONNXRandomForestScorer.PronunciationResult result =
+                scorer.scorePronunciation(recognizer.preprocessWord(clip.audio), clip.word);
+            if (result.classification == clip.label) {
+                correct++;
+            } else {
+                misses.append(String.format(Locale.US, " %s(%.2f)", clip.filename, result.getScore()));
+            }
+        }
+
+        float agreement = (float) correct / clips.size();
+        float minAgreement = Float.parseFloat(thresholds.getProperty("min_label_agreement"));
+        assertTrue(String.format(Locale.US, "Label agreement %.3f below %.3f, disagreeing:%s",
+            agreement, minAgreement, misses), agreement >= minAgreement);
+    }
+
+    @Test
+    public void testThroughput_AboveFloor() {
+        MFCCPronunciationRecognizer recognizer = newRecognizer();
+        for (Clip clip : clips) {
+            scorer.scorePronunciation(recognizer.preprocessWord(clip.audio), clip.word); // Warm-up
+        }
+
+        long start = System.nanoTime();
+        for (int pass = 0; pass < THROUGHPUT_PASSES; pass++) {
+            for (Clip clip : clips) {
+                scorer.scorePronunciation(recognizer.preprocessWord(clip.audio), clip.word);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double clipsPerSecond = THROUGHPUT_PASSES * clips.size() / seconds;
+
+        double floor = Double.parseDouble(thresholds.getProperty("min_clips_per_second"));
+        assertTrue(String.format(Locale.US, "Throughput %.1f clips/s below floor %.1f", clipsPerSecond, floor),
+            clipsPerSecond >= floor);
+    }
+
+    /**
+     * Recognizer used only for its preprocessing chain - the ONNX scorer is called directly
+     */
+    private static MFCCPronunciationRecognizer newRecognizer() {
+        return new MFCCPronunciationRecognizer(null, scorer, new ReadingLevelClassifier(null));
+    }
+
+    /**
+     * Retake the reference_features.csv snapshot from the current Java feature path
+     */
+    private static void writeReference() throws IOException {
+        File log = File.createTempFile("golden", FeatureLog.FILE_EXTENSION);
+        try {
+            PronunciationFeatureExtractor extractor = new PronunciationFeatureExtractor();
+            MFCCPronunciationRecognizer recognizer = newRecognizer();
+            try (FeatureLog featureLog = FeatureLog.open(log, PronunciationFeatureExtractor.FEATURE_COUNT)) {
+                for (Clip clip : clips) {
+                    float[] features = extractor.extract(recognizer.preprocessWord(clip.audio), null);
+                    featureLog.append(clip.word, clip.filename, clip.label, features);
+                }
+            }
+            FeatureLog.exportCsv(log, new File(corpusDir, "reference_features.csv"), true);
+        } finally {
+            log.delete();
+        }
+    }
+
+    /**
+     * Rows of a simple CSV (no quoting), without the header
+     */
+    private static List<String[]> readCsv(File file) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line = reader.readLine(); // Header
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    rows.add(line.split(","));
+                }
+            }
+        }
+        return rows;
+    }
+}
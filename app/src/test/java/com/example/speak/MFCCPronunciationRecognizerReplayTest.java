@@ -0,0 +1,126 @@
+package com.example.speak;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * End-to-end replay of a synthetic passage through MFCCPronunciationRecognizer:
+ * word segmentation, preprocessing and scoring, without a device or microphone.
+ */
+public class MFCCPronunciationRecognizerReplayTest {
+
+    private static final int SAMPLE_RATE = 16000;
+    private static final int WORD_MS = 400;
+    private static final int GAP_MS = 800;
+
+    /**
+     * Stand-in for the ONNX model: records each clip it is asked to score
+     */
+    private static class RecordingScorer implements PronunciationScorer {
+        final List<String> words = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> clipLengths = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public ONNXRandomForestScorer.PronunciationResult scorePronunciation(short[] audioSamples, String expectedWord) {
+            words.add(expectedWord);
+            clipLengths.add(audioSamples.length);
+            return new ONNXRandomForestScorer.PronunciationResult(1, 0.9f, 0.1f);
+        }
+
+        @Override
+        public void release() {
+        }
+    }
+
+    /**
+     * Tone bursts ("words") separated by silence, with leading silence
+     */
+    private static short[] synthesizePassage(int wordCount) {
+        int wordSamples = SAMPLE_RATE * WORD_MS / 1000;
+        int gapSamples = SAMPLE_RATE * GAP_MS / 1000;
+        short[] audio = new short[gapSamples + wordCount * (wordSamples + gapSamples)];
+        int position = gapSamples;
+        for (int w = 0; w < wordCount; w++) {
+            double frequency = 200 + 40 * w;
+            for (int i = 0; i < wordSamples; i++) {
+                audio[position + i] = (short) (10000 * Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE));
+            }
+            position += wordSamples + gapSamples;
+        }
+        return audio;
+    }
+
+    @Test(timeout = 60000)
+    public void testReplay_SegmentsEveryWordFasterThanRealTime() throws InterruptedException {
+        String[] words = {"the", "cat", "sat", "on", "a", "big", "red", "mat", "all", "day"};
+        short[] passage = synthesizePassage(words.length);
+
+        RecordingScorer scorer = new RecordingScorer();
+        MFCCPronunciationRecognizer recognizer =
+            new MFCCPronunciationRecognizer(null, scorer, new ReadingLevelClassifier(null));
+
+        CountDownLatch done = new CountDownLatch(1);
+        final float[] accuracy = {-1f};
+        final String[] error = {null};
+        long start = System.nanoTime();
+
+        recognizer.startRecognition(ReplayAudioSource.fromSamples(passage, SAMPLE_RATE), words, null,
+            "student", "Student", "Replay", new MFCCPronunciationRecognizer.RecognitionCallback() {
+                @Override
+                public void onReady() {
+                }
+
+                @Override
+                public void onWordDetected(int wordIndex, String expectedWord) {
+                }
+
+                @Override
+                public void onWordScored(int wordIndex, String expectedWord, float score, boolean isCorrect) {
+                }
+
+                @Override
+                public void onComplete(float overallAccuracy, float averagePronunciation, float comprehensionScore,
+                                       ReadingLevelClassifier.ReadingLevelResult readingLevel) {
+                    accuracy[0] = overallAccuracy;
+                    done.countDown();
+                }
+
+                @Override
+                public void onError(String message) {
+                    error[0] = message;
+                    done.countDown();
+                }
+            });
+
+        assertTrue("Recognition did not complete", done.await(30, TimeUnit.SECONDS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        recognizer.release();
+
+        assertNull(error[0]);
+        assertEquals(1.0f, accuracy[0], 0f);
+
+        // Every burst became exactly one word, in passage order
+        assertEquals(words.length, scorer.words.size());
+        for (int i = 0; i < words.length; i++) {
+            assertEquals(words[i], scorer.words.get(i));
+        }
+
+        // Each clip holds the word plus at most the 500 ms end-of-word silence (and frame rounding)
+        int wordSamples = SAMPLE_RATE * WORD_MS / 1000;
+        int maxTail = SAMPLE_RATE * 500 / 1000 + 2 * 1280;
+        for (int length : scorer.clipLengths) {
+            assertTrue("Clip too short: " + length, length >= wordSamples);
+            assertTrue("Clip too long: " + length, length <= wordSamples + maxTail);
+        }
+
+        long audioMs = passage.length * 1000L / SAMPLE_RATE;
+        assertTrue("Replay took " + elapsedMs + " ms for " + audioMs + " ms of audio", elapsedMs < audioMs);
+    }
+}
@@ -0,0 +1,35 @@
+// JMH benchmarks for the audio and scoring hot paths, run on the desktop JVM
+//
+//   ./gradlew :benchmarks:jmh
+//   ./gradlew :benchmarks:jmh -PjmhIncludes=MfccBenchmark
+//   ./gradlew :benchmarks:jmh -PclipsDir=/path/to/word/wavs   (16 kHz mono recorded word clips)
+//
+// Results are written to build/results/jmh/results.json
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    implementation(project(":speech-core"))
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+    jvmArgsAppend.add("-Dspeak.vocab=" + rootProject.file("app/src/main/assets/vocab.txt").absolutePath)
+    providers.gradleProperty("clipsDir").orNull?.let {
+        jvmArgsAppend.add("-Dspeak.clips=" + file(it).absolutePath)
+    }
+    providers.gradleProperty("jmhIncludes").orNull?.let {
+        includes.set(listOf(it))
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.speak.benchmarks;
+
+import com.example.speak.WavReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+/**
+ * Word clips for the audio benchmarks
+ *
+ * By default clips are synthesized: a voiced vowel with a gliding pitch and formant-shaped
+ * harmonics, a noise burst for the onset consonant, a speech-like envelope and a low
+ * background noise floor. Set -Dspeak.clips=<dir> (or -PclipsDir) to a directory of 16 kHz
+ * mono WAV word recordings to benchmark on real speech instead; the recording closest to
+ * the requested duration is used.
+ */
+final class BenchmarkAudio {
+
+    static final int SAMPLE_RATE = 16000;
+
+    private BenchmarkAudio() {
+    }
+
+    /**
+     * A recorded clip closest to durationMs if speak.clips is set, otherwise a synthetic one
+     */
+    static short[] wordClip(int durationMs) {
+        String clipsDir = System.getProperty("speak.clips");
+        if (clipsDir == null || clipsDir.isEmpty()) {
+            return syntheticWord(durationMs, durationMs);
+        }
+        return closestRecordedClip(new File(clipsDir), durationMs);
+    }
+
+    /**
+     * Deterministic speech-like word of the given length
+     */
+    static short[] syntheticWord(int durationMs, long seed) {
+        Random random = new Random(seed);
+        int length = SAMPLE_RATE * durationMs / 1000;
+        int onset = length / 6; // Consonant burst before the vowel
+        float f0Start = 140 + random.nextInt(80);
+        float f0End = f0Start * 0.8f;
+        float formant1 = 500 + random.nextInt(300);
+        float formant2 = 1200 + random.nextInt(1000);
+
+        short[] samples = new short[length];
+        double phase = 0;
+        for (int i = 0; i < length; i++) {
+            float t = i / (float) length;
+            float envelope = (float) Math.sin(Math.PI * t); // Rise and decay over the word
+            double noise = random.nextGaussian();
+
+            double value;
+            if (i < onset) {
+                value = 0.25 * noise * envelope;
+            } else {
+                float f0 = f0Start + (f0End - f0Start) * t;
+                phase += 2 * Math.PI * f0 / SAMPLE_RATE;
+                value = 0;
+                for (int harmonic = 1; harmonic * f0 < 4000; harmonic++) {
+                    float frequency = harmonic * f0;
+                    double gain = formantGain(frequency, formant1) + 0.5 * formantGain(frequency, formant2);
+                    value += gain * Math.sin(harmonic * phase) / harmonic;
+                }
+                value *= 0.3 * envelope;
+            }
+            value += 0.003 * noise; // Room noise floor (about -50 dBFS)
+            samples[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value * 32767));
+        }
+        return samples;
+    }
+
+    /**
+     * Little-endian 16-bit PCM bytes, as AudioRecord delivers them
+     */
+    static byte[] toPcmBytes(short[] samples) {
+        byte[] bytes = new byte[samples.length * 2];
+        for (int i = 0; i < samples.length; i++) {
+            bytes[2 * i] = (byte) samples[i];
+            bytes[2 * i + 1] = (byte) (samples[i] >> 8);
+        }
+        return bytes;
+    }
+
+    private static double formantGain(float frequency, float formant) {
+        float distance = (frequency - formant) / 150f;
+        return Math.exp(-distance * distance);
+    }
+
+    private static short[] closestRecordedClip(File dir, int durationMs) {
+        File[] files = dir.listFiles((d, name) -> name.toLowerCase().endsWith(".wav"));
+        if (files == null || files.length == 0) {
+            throw new IllegalStateException("No .wav clips in " + dir.getAbsolutePath());
+        }
+        int targetLength = SAMPLE_RATE * durationMs / 1000;
+        short[] best = null;
+        for (File file : files) {
+            try (WavReader reader = WavReader.open(file, SAMPLE_RATE, 1)) {
+                if (best == null || Math.abs(reader.getFrameCount() - targetLength) < Math.abs(best.length - targetLength)) {
+                    best = reader.readSamples();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read clip " + file, e);
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.speak.benchmarks;
+
+import com.example.speak.AudioDenoiser;
+import com.example.speak.AudioPreProcessor;
+import com.example.speak.MispronunciationOverride;
+import com.example.speak.PronunciationFeatureExtractor;
+import com.example.speak.SpeechLog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of debug logging on the per-word scoring path
+ *
+ * "debug" builds every message, as all builds did before logging was gated; "release"
+ * uses the release minimum priority, so no message is formatted. Messages go to a
+ * no-op sink in both cases, so the difference is pure string building.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LoggingOverheadBenchmark {
+
+    @Param({"debug", "release"})
+    public String logLevel;
+
+    private AudioDenoiser denoiser;
+    private AudioPreProcessor preProcessor;
+    private PronunciationFeatureExtractor featureExtractor;
+    private short[] clip;
+
+    @Setup
+    public void setUp() {
+        SpeechLog.setSink(SpeechLog.NONE);
+        SpeechLog.setMinPriority("release".equals(logLevel) ? SpeechLog.WARN : SpeechLog.VERBOSE);
+        denoiser = new AudioDenoiser();
+        preProcessor = new AudioPreProcessor(BenchmarkAudio.SAMPLE_RATE);
+        featureExtractor = new PronunciationFeatureExtractor();
+        clip = BenchmarkAudio.wordClip(700);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SpeechLog.setSink(SpeechLog.STDERR);
+        SpeechLog.setMinPriority(SpeechLog.VERBOSE);
+    }
+
+    /**
+     * Preprocessing, features and override rules for one word, as the recognizer runs them
+     */
+    @Benchmark
+    public boolean scoreWord() {
+        short[] audio = denoiser.applyLightweightDenoising(clip);
+        audio = denoiser.applyAGC(audio);
+        audio = preProcessor.rmsNormalize(audio);
+        float[] features = featureExtractor.extract(audio);
+        return MispronunciationOverride.evaluate("fader", "father", features != null);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.speak.benchmarks;
+
+import com.example.speak.PronunciationFeatureExtractor;
+import com.example.speak.TarsosMFCCExtractor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MFCC extraction and the 39-value feature statistics for one word clip
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MfccBenchmark {
+
+    // Short function word, typical word, long multi-syllable word
+    @Param({"300", "700", "1500"})
+    public int durationMs;
+
+    private TarsosMFCCExtractor mfccExtractor;
+    private PronunciationFeatureExtractor featureExtractor;
+    private short[] clip;
+    private float[][] mfccFrames;
+
+    @Setup
+    public void setUp() {
+        mfccExtractor = new TarsosMFCCExtractor();
+        featureExtractor = new PronunciationFeatureExtractor();
+        clip = BenchmarkAudio.wordClip(durationMs);
+        mfccFrames = mfccExtractor.extractFeatures(clip);
+    }
+
+    @Benchmark
+    public float[][] extractFeatures() {
+        return mfccExtractor.extractFeatures(clip);
+    }
+
+    @Benchmark
+    public float[] computeStatistics() {
+        return PronunciationFeatureExtractor.computeStatistics(mfccFrames);
+    }
+
+    @Benchmark
+    public float[] featureVector() {
+        return featureExtractor.extract(clip);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.speak.benchmarks;
+
+import com.example.speak.AudioDenoiser;
+import com.example.speak.AudioPreProcessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Denoising, AGC and RMS normalization applied to a word clip before MFCC extraction
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PreprocessingBenchmark {
+
+    // Bytes per AudioPreProcessor.process() call: one 80 ms recognizer frame
+    private static final int FRAME_BYTES = 1280 * 2;
+
+    @Param({"300", "700", "1500"})
+    public int durationMs;
+
+    private AudioDenoiser denoiser;
+    private AudioPreProcessor preProcessor;
+    private short[] clip;
+    private byte[] clipBytes;
+
+    @Setup
+    public void setUp() {
+        denoiser = new AudioDenoiser();
+        preProcessor = new AudioPreProcessor(BenchmarkAudio.SAMPLE_RATE);
+        clip = BenchmarkAudio.wordClip(durationMs);
+        clipBytes = BenchmarkAudio.toPcmBytes(clip);
+    }
+
+    @Benchmark
+    public short[] lightweightDenoising() {
+        return denoiser.applyLightweightDenoising(clip);
+    }
+
+    @Benchmark
+    public short[] spectralDenoise() {
+        return denoiser.denoise(clip);
+    }
+
+    @Benchmark
+    public short[] agc() {
+        return denoiser.applyAGC(clip);
+    }
+
+    @Benchmark
+    public short[] rmsNormalize() {
+        return preProcessor.rmsNormalize(clip);
+    }
+
+    /**
+     * The chain run on every word before scoring (BatchFeatureExtractor, recognizer)
+     */
+    @Benchmark
+    public short[] denoiseChain() {
+        short[] audio = denoiser.applyLightweightDenoising(clip);
+        audio = denoiser.applyAGC(audio);
+        return preProcessor.rmsNormalize(audio);
+    }
+
+    /**
+     * Band-pass filter and noise gate over the clip, fed frame by frame as captured
+     */
+    @Benchmark
+    public void preProcessFrames(Blackhole blackhole) {
+        for (int offset = 0; offset < clipBytes.length; offset += FRAME_BYTES) {
+            int length = Math.min(FRAME_BYTES, clipBytes.length - offset);
+            byte[] frame = new byte[length];
+            System.arraycopy(clipBytes, offset, frame, 0, length);
+            blackhole.consume(preProcessor.process(frame));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.speak.benchmarks;
+
+import com.example.speak.MispronunciationOverride;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-word override rules applied to every recognized word
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ScoringRulesBenchmark {
+
+    // spoken, expected - known mispronunciations, exact matches and unrelated words
+    private static final String[][] WORD_PAIRS = {
+        {"pader", "father"}, {"father", "father"}, {"hab", "have"}, {"have", "have"},
+        {"de", "the"}, {"the", "the"}, {"mobe", "move"}, {"gras", "grass"},
+        {"Farm,", "farm"}, {"after.", "after"}, {"dog", "cat"}, {"jumped", "jumps"},
+        {"heaby", "heavy"}, {"dey", "they"}, {"house", "horse"}, {"", "and"},
+    };
+
+    @Benchmark
+    @OperationsPerInvocation(16) // WORD_PAIRS.length
+    public void evaluate(Blackhole blackhole) {
+        for (int i = 0; i < WORD_PAIRS.length; i++) {
+            String[] pair = WORD_PAIRS[i];
+            blackhole.consume(MispronunciationOverride.evaluate(pair[0], pair[1], (i & 1) == 0));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.speak.benchmarks;
+
+import com.example.speak.WordPieceTokenizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DistilBERT WordPiece tokenization of a transcript, with the app's vocab.txt
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenizerBenchmark {
+
+    private static final String SENTENCE = "The little red hen found a grain of wheat.";
+
+    private static final String PASSAGE =
+        "The little red hen found a grain of wheat. She asked the cat, the dog and the duck "
+        + "who would help her plant it. \"Not I,\" said the cat. \"Not I,\" said the dog. "
+        + "\"Not I,\" said the duck. So the little red hen planted the wheat herself. When the "
+        + "wheat was ripe she cut it, carried it to the mill and baked a loaf of delicious bread. "
+        + "Then everyone wanted to help her eat it, but the hen remembered who had helped and "
+        + "who had not, and she shared the warm bread with her chicks instead.";
+
+    @Param({"sentence", "passage"})
+    public String text;
+
+    private WordPieceTokenizer tokenizer;
+    private String input;
+
+    @Setup
+    public void setUp() throws IOException {
+        String vocabPath = System.getProperty("speak.vocab", "../app/src/main/assets/vocab.txt");
+        tokenizer = WordPieceTokenizer.load(new FileInputStream(vocabPath), 128);
+        input = "passage".equals(text) ? PASSAGE : SENTENCE;
+    }
+
+    @Benchmark
+    public List<Integer> tokenize() {
+        return tokenizer.tokenize(input);
+    }
+}
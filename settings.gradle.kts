@@ -21,3 +21,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "SPEAK"
 include(":app")
+include(":speech-core")
+include(":benchmarks")
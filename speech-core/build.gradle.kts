@@ -0,0 +1,18 @@
+// Pure-Java speech core: DSP, feature extraction and audio file formats
+// No Android dependencies, so it is unit tested and profiled on a desktop JVM
+// and can run feature extraction off-device.
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    // TarsosDSP for MFCC extraction (pure Java, Android-compatible)
+    implementation(files("libs/TarsosDSP-latest.jar"))
+
+    testImplementation(libs.junit)
+}
@@ -0,0 +1,382 @@
+package com.example.speak;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Allocation and GC telemetry for one reading session
+ *
+ * Samples the runtime's GC counters and heap use at session start, around every word and
+ * at the end. Each sample charges what happened since the previous one to a bucket:
+ *
+ *   - a pipeline stage (denoise, agc, ... inference) - sampled via PipelineMetrics.StageListener
+ *     as each stage finishes; "total" holds the rest of the word (logging, callback)
+ *   - "stream" - everything between words (capture, framing, word detection, the UI)
+ *
+ * The counters are process-wide, so other threads' allocations land in whichever bucket
+ * is open - stages are short, so most of that shows up under "stream". Reading the
+ * counters allocates a little itself.
+ *
+ * The Sampler is platform specific (ArtRuntimeSampler on Android) so this class stays
+ * pure Java. Thread-safe.
+ */
+public class AllocationMonitor implements PipelineMetrics.StageListener {
+    private static final String TAG = "AllocationMonitor";
+
+    public static final String STREAM = "stream";
+
+    /**
+     * Reads the runtime's counters into a reusable Sample
+     */
+    public interface Sampler {
+        void sample(Sample into);
+    }
+
+    /**
+     * Cumulative runtime counters at one point in time
+     */
+    public static class Sample {
+        public long gcCount;
+        public long gcTimeMs;
+        public long blockingGcCount;
+        public long blockingGcTimeMs;
+        public long bytesAllocated;
+        public long heapUsedBytes;
+
+        void copyFrom(Sample other) {
+            gcCount = other.gcCount;
+            gcTimeMs = other.gcTimeMs;
+            blockingGcCount = other.blockingGcCount;
+            blockingGcTimeMs = other.blockingGcTimeMs;
+            bytesAllocated = other.bytesAllocated;
+            heapUsedBytes = other.heapUsedBytes;
+        }
+    }
+
+    /**
+     * Allocation and GC charged to one stage over the session
+     * A plain bean so it can be stored in Firebase with the ReadingSession.
+     */
+    public static class StageAllocation {
+        private long allocatedKb;
+        private long gcCount;
+        private long gcTimeMs;
+        private long blockingGcCount;
+
+        public StageAllocation() {
+            // Required for Firebase
+        }
+
+        public long getAllocatedKb() {
+            return allocatedKb;
+        }
+
+        public void setAllocatedKb(long allocatedKb) {
+            this.allocatedKb = allocatedKb;
+        }
+
+        public long getGcCount() {
+            return gcCount;
+        }
+
+        public void setGcCount(long gcCount) {
+            this.gcCount = gcCount;
+        }
+
+        public long getGcTimeMs() {
+            return gcTimeMs;
+        }
+
+        public void setGcTimeMs(long gcTimeMs) {
+            this.gcTimeMs = gcTimeMs;
+        }
+
+        public long getBlockingGcCount() {
+            return blockingGcCount;
+        }
+
+        public void setBlockingGcCount(long blockingGcCount) {
+            this.blockingGcCount = blockingGcCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("alloc=%dKB gc=%d (%dms, %d blocking)",
+                allocatedKb, gcCount, gcTimeMs, blockingGcCount);
+        }
+    }
+
+    /**
+     * Session totals plus the stages GC and allocation were charged to
+     * A plain bean so it can be stored in Firebase with the ReadingSession.
+     */
+    public static class Summary {
+        private long words;
+        private long allocatedKb;
+        private long gcCount;
+        private long gcTimeMs;
+        private long blockingGcCount;
+        private long blockingGcTimeMs;
+        private long heapStartKb;
+        private long heapPeakKb;
+        private long heapEndKb;
+        private long wordsWithGc;
+        private long maxWordAllocatedKb;
+        private Map<String, StageAllocation> stages;
+
+        public Summary() {
+            // Required for Firebase
+        }
+
+        public long getWords() {
+            return words;
+        }
+
+        public void setWords(long words) {
+            this.words = words;
+        }
+
+        public long getAllocatedKb() {
+            return allocatedKb;
+        }
+
+        public void setAllocatedKb(long allocatedKb) {
+            this.allocatedKb = allocatedKb;
+        }
+
+        public long getGcCount() {
+            return gcCount;
+        }
+
+        public void setGcCount(long gcCount) {
+            this.gcCount = gcCount;
+        }
+
+        public long getGcTimeMs() {
+            return gcTimeMs;
+        }
+
+        public void setGcTimeMs(long gcTimeMs) {
+            this.gcTimeMs = gcTimeMs;
+        }
+
+        public long getBlockingGcCount() {
+            return blockingGcCount;
+        }
+
+        public void setBlockingGcCount(long blockingGcCount) {
+            this.blockingGcCount = blockingGcCount;
+        }
+
+        public long getBlockingGcTimeMs() {
+            return blockingGcTimeMs;
+        }
+
+        public void setBlockingGcTimeMs(long blockingGcTimeMs) {
+            this.blockingGcTimeMs = blockingGcTimeMs;
+        }
+
+        public long getHeapStartKb() {
+            return heapStartKb;
+        }
+
+        public void setHeapStartKb(long heapStartKb) {
+            this.heapStartKb = heapStartKb;
+        }
+
+        public long getHeapPeakKb() {
+            return heapPeakKb;
+        }
+
+        public void setHeapPeakKb(long heapPeakKb) {
+            this.heapPeakKb = heapPeakKb;
+        }
+
+        public long getHeapEndKb() {
+            return heapEndKb;
+        }
+
+        public void setHeapEndKb(long heapEndKb) {
+            this.heapEndKb = heapEndKb;
+        }
+
+        public long getWordsWithGc() {
+            return wordsWithGc;
+        }
+
+        public void setWordsWithGc(long wordsWithGc) {
+            this.wordsWithGc = wordsWithGc;
+        }
+
+        public long getMaxWordAllocatedKb() {
+            return maxWordAllocatedKb;
+        }
+
+        public void setMaxWordAllocatedKb(long maxWordAllocatedKb) {
+            this.maxWordAllocatedKb = maxWordAllocatedKb;
+        }
+
+        public Map<String, StageAllocation> getStages() {
+            return stages;
+        }
+
+        public void setStages(Map<String, StageAllocation> stages) {
+            this.stages = stages;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d words, alloc=%dKB (max word %dKB), gc=%d (%dms, %d blocking %dms, "
+                    + "%d words hit), heap %d->%dKB peak %dKB",
+                words, allocatedKb, maxWordAllocatedKb, gcCount, gcTimeMs, blockingGcCount,
+                blockingGcTimeMs, wordsWithGc, heapStartKb, heapEndKb, heapPeakKb);
+        }
+    }
+
+    private final Sampler sampler;
+    private final Sample start = new Sample();
+    private final Sample previous = new Sample();
+    private final Sample current = new Sample();
+    private final Sample wordStart = new Sample();
+
+    // Accumulators, indexed by Stage.ordinal(); the extra last slot is STREAM
+    private final long[] allocatedBytes = new long[PipelineMetrics.Stage.values().length + 1];
+    private final long[] gcCounts = new long[allocatedBytes.length];
+    private final long[] gcTimesMs = new long[allocatedBytes.length];
+    private final long[] blockingGcCounts = new long[allocatedBytes.length];
+
+    private boolean running = false;
+    private long words = 0;
+    private long wordsWithGc = 0;
+    private long maxWordAllocatedBytes = 0;
+    private long heapPeakBytes = 0;
+    private Summary summary;
+
+    public AllocationMonitor(Sampler sampler) {
+        this.sampler = sampler;
+    }
+
+    /**
+     * Reset and take the session's baseline sample
+     */
+    public synchronized void start() {
+        Arrays.fill(allocatedBytes, 0);
+        Arrays.fill(gcCounts, 0);
+        Arrays.fill(gcTimesMs, 0);
+        Arrays.fill(blockingGcCounts, 0);
+        words = 0;
+        wordsWithGc = 0;
+        maxWordAllocatedBytes = 0;
+        summary = null;
+
+        sampler.sample(start);
+        previous.copyFrom(start);
+        heapPeakBytes = start.heapUsedBytes;
+        running = true;
+    }
+
+    /**
+     * A word's audio is about to be scored - charges the time since the last word to STREAM
+     */
+    public synchronized void onWordStart() {
+        if (!running) {
+            return;
+        }
+        charge(allocatedBytes.length - 1);
+        wordStart.copyFrom(current);
+    }
+
+    /**
+     * A pipeline stage finished - Stage.TOTAL ends the word
+     */
+    @Override
+    public synchronized void onStageEnd(PipelineMetrics.Stage stage, long startNanos, long endNanos) {
+        if (!running) {
+            return;
+        }
+        charge(stage.ordinal());
+        if (stage != PipelineMetrics.Stage.TOTAL) {
+            return;
+        }
+        words++;
+        long wordAllocated = current.bytesAllocated - wordStart.bytesAllocated;
+        maxWordAllocatedBytes = Math.max(maxWordAllocatedBytes, wordAllocated);
+        if (current.gcCount > wordStart.gcCount) {
+            wordsWithGc++;
+        }
+    }
+
+    /**
+     * Take the final sample and build the session summary
+     * The remainder since the last word is charged to STREAM.
+     */
+    public synchronized Summary finish() {
+        if (!running) {
+            return summary;
+        }
+        charge(allocatedBytes.length - 1);
+        running = false;
+
+        Summary result = new Summary();
+        result.words = words;
+        result.allocatedKb = (current.bytesAllocated - start.bytesAllocated) / 1024;
+        result.gcCount = current.gcCount - start.gcCount;
+        result.gcTimeMs = current.gcTimeMs - start.gcTimeMs;
+        result.blockingGcCount = current.blockingGcCount - start.blockingGcCount;
+        result.blockingGcTimeMs = current.blockingGcTimeMs - start.blockingGcTimeMs;
+        result.heapStartKb = start.heapUsedBytes / 1024;
+        result.heapPeakKb = heapPeakBytes / 1024;
+        result.heapEndKb = current.heapUsedBytes / 1024;
+        result.wordsWithGc = wordsWithGc;
+        result.maxWordAllocatedKb = maxWordAllocatedBytes / 1024;
+
+        // Only the buckets that allocated or collected anything, in pipeline order
+        Map<String, StageAllocation> stages = new LinkedHashMap<>();
+        for (int i = 0; i < allocatedBytes.length; i++) {
+            if (allocatedBytes[i] == 0 && gcCounts[i] == 0) {
+                continue;
+            }
+            StageAllocation stage = new StageAllocation();
+            stage.allocatedKb = allocatedBytes[i] / 1024;
+            stage.gcCount = gcCounts[i];
+            stage.gcTimeMs = gcTimesMs[i];
+            stage.blockingGcCount = blockingGcCounts[i];
+            stages.put(bucketKey(i), stage);
+        }
+        result.stages = stages;
+
+        summary = result;
+        return result;
+    }
+
+    /**
+     * Summary of the last finished session, or null
+     */
+    public synchronized Summary getSummary() {
+        return summary;
+    }
+
+    /**
+     * Sample now and charge the difference from the previous sample to a bucket
+     */
+    private void charge(int bucket) {
+        sampler.sample(current);
+        allocatedBytes[bucket] += current.bytesAllocated - previous.bytesAllocated;
+        gcCounts[bucket] += current.gcCount - previous.gcCount;
+        gcTimesMs[bucket] += current.gcTimeMs - previous.gcTimeMs;
+        blockingGcCounts[bucket] += current.blockingGcCount - previous.blockingGcCount;
+        heapPeakBytes = Math.max(heapPeakBytes, current.heapUsedBytes);
+        if (current.blockingGcCount > previous.blockingGcCount) {
+            // The stutter we are after - say where it landed
+            long pauseMs = current.blockingGcTimeMs - previous.blockingGcTimeMs;
+            SpeechLog.w(TAG, "🗑️ Blocking GC during " + bucketKey(bucket) + ": " + pauseMs + " ms");
+        }
+        previous.copyFrom(current);
+    }
+
+    private static String bucketKey(int bucket) {
+        PipelineMetrics.Stage[] stages = PipelineMetrics.Stage.values();
+        return bucket < stages.length ? stages[bucket].key : STREAM;
+    }
+}
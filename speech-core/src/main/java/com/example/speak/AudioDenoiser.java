@@ -1,7 +1,5 @@
 package com.example.speak;
 
-import android.util.Log;
-
 /**
  * Audio Denoiser - Reduces background noise to improve speech recognition
  * Uses spectral subtraction and high-pass filtering
@@ -172,7 +170,7 @@ public class AudioDenoiser {
         noiseProfileFrames++;
         
         if (noiseProfileFrames >= NOISE_PROFILE_DURATION) {
-            Log.d(TAG, "✅ Noise profile established");
+            SpeechLog.d(TAG, "✅ Noise profile established");
         }
     }
     
@@ -182,7 +180,7 @@ public class AudioDenoiser {
     public void reset() {
         noiseProfile = null;
         noiseProfileFrames = 0;
-        Log.d(TAG, "Noise profile reset");
+        SpeechLog.d(TAG, "Noise profile reset");
     }
     
     /**
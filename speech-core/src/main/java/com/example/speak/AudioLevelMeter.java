@@ -0,0 +1,106 @@
+package com.example.speak;
+
+/**
+ * Lock-free audio level snapshot: one writer (the capture thread), any number of readers
+ *
+ * The capture thread calls update() per buffer - an integer loop plus one sqrt, no
+ * allocation, no log10, no callbacks. RMS and peak are packed into a single volatile
+ * long, so a reader always sees a matching pair without locking. Readers (the UI,
+ * once per display frame) convert to dB themselves.
+ *
+ * Levels are in 16-bit sample units (0..32768), the same scale as
+ * AudioRecorder.RecordingCallback.onAudioLevel().
+ */
+public class AudioLevelMeter {
+
+    public static final float FULL_SCALE = 32768.0f;
+    public static final float MIN_DB = -96.0f; // Dynamic range of 16-bit PCM; silence reports this
+
+    // High 32 bits: RMS float bits, low 32 bits: peak float bits
+    private volatile long snapshot = 0;
+    private volatile long updateCount = 0;
+
+    /**
+     * Publish the level of one captured buffer - writer thread only
+     */
+    public void update(short[] samples, int offset, int length) {
+        if (length <= 0) {
+            return;
+        }
+        long sumSquares = 0;
+        int peak = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int sample = samples[i];
+            sumSquares += sample * sample;
+            int magnitude = sample < 0 ? -sample : sample;
+            if (magnitude > peak) {
+                peak = magnitude;
+            }
+        }
+        float rms = (float) Math.sqrt(sumSquares / (double) length);
+
+        snapshot = pack(rms, peak);
+        updateCount = updateCount + 1; // Single writer, so no lost updates
+    }
+
+    /**
+     * Clear the levels - writer thread only, or before the writer starts
+     */
+    public void reset() {
+        snapshot = 0;
+        updateCount = 0;
+    }
+
+    /**
+     * Current RMS and peak packed into one value - decode with rmsOf()/peakOf()
+     * Use this instead of separate getters when both must come from the same buffer.
+     */
+    public long getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Number of buffers published so far - lets a poller skip frames with no new audio
+     */
+    public long getUpdateCount() {
+        return updateCount;
+    }
+
+    public float getRms() {
+        return rmsOf(snapshot);
+    }
+
+    public float getPeak() {
+        return peakOf(snapshot);
+    }
+
+    public float getRmsDb() {
+        return toDb(getRms());
+    }
+
+    public float getPeakDb() {
+        return toDb(getPeak());
+    }
+
+    public static float rmsOf(long snapshot) {
+        return Float.intBitsToFloat((int) (snapshot >>> 32));
+    }
+
+    public static float peakOf(long snapshot) {
+        return Float.intBitsToFloat((int) snapshot);
+    }
+
+    /**
+     * Level in dBFS (0 dB = full scale), floored at MIN_DB
+     */
+    public static float toDb(float level) {
+        if (level <= 0) {
+            return MIN_DB;
+        }
+        return Math.max(MIN_DB, 20 * (float) Math.log10(level / FULL_SCALE));
+    }
+
+    private static long pack(float rms, float peak) {
+        return ((long) Float.floatToRawIntBits(rms) << 32) | (Float.floatToRawIntBits(peak) & 0xFFFFFFFFL);
+    }
+}
@@ -63,7 +63,7 @@ public class AudioPreProcessor {
         float rcLp = 1.0f / (2.0f * (float) Math.PI * 3400f);
         lpAlpha    = dt   / (rcLp + dt);
 
-        android.util.Log.d(TAG, String.format(
+        SpeechLog.d(TAG, String.format(
             "AudioPreProcessor init: sr=%d, hpAlpha=%.4f, lpAlpha=%.4f",
             sampleRate, hpAlpha, lpAlpha));
     }
@@ -149,7 +149,7 @@ public class AudioPreProcessor {
         
         // If signal is silent, don't normalize (avoid division by zero)
         if (currentRms < 1e-6f) {
-            android.util.Log.d(TAG, "RMS normalization skipped: signal is silent");
+            SpeechLog.d(TAG, "RMS normalization skipped: signal is silent");
             return samples;
         }
         
@@ -165,7 +165,7 @@ public class AudioPreProcessor {
             normalized[i] = Math.max(-1.0f, Math.min(1.0f, normalized[i]));
         }
         
-        android.util.Log.d(TAG, String.format(
+        SpeechLog.d(TAG, () -> String.format(
             "RMS normalization: %.6f → %.6f (scale: %.3f)", 
             currentRms, TARGET_RMS, scale));
         
@@ -0,0 +1,51 @@
+package com.example.speak;
+
+import java.io.IOException;
+
+/**
+ * Source of 16-bit mono PCM for MFCCPronunciationRecognizer
+ *
+ * MicrophoneAudioSource captures live audio; ReplayAudioSource plays back a WAV
+ * file or sample array, so recognition can be run and benchmarked off-device.
+ * start() is called on the thread that calls startRecognition(), before the capture
+ * thread exists; read() is called only from the capture thread; stop() is called on the
+ * thread that calls stopRecognition(), once the capture thread has finished. Calls never
+ * overlap, but a source must not assume they share a thread.
+ */
+public interface AudioSource {
+
+    /**
+     * Begin delivering audio
+     *
+     * @throws IOException with a user-facing message if the source cannot start
+     */
+    void start() throws IOException;
+
+    /**
+     * Read the next samples, blocking until some are available
+     *
+     * @return Number of samples read, 0 if none yet, or -1 at the end of the stream
+     */
+    int read(short[] buffer, int offset, int length);
+
+    /**
+     * Stop and release the source
+     */
+    void stop();
+
+    int getSampleRate();
+
+    /**
+     * True if audio arrives at the pace it is produced and is lost if not read in time
+     * (a microphone). A non-real-time source is waited on instead of dropping samples.
+     */
+    boolean isRealTime();
+
+    /**
+     * Frames lost before they could be read (e.g. AudioRecord overruns), if the source can tell
+     * Read from the capture thread after read().
+     */
+    default long getLostFrames() {
+        return 0;
+    }
+}
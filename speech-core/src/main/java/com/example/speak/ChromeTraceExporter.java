@@ -0,0 +1,116 @@
+package com.example.speak;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Converts a TraceRecorder dump to Chrome trace JSON (Trace Event Format)
+ * Open the result in chrome://tracing or ui.perfetto.dev.
+ *
+ * On a computer, after pulling the dump from the tablet:
+ *   java -cp speech-core.jar com.example.speak.ChromeTraceExporter session.spkt session.json
+ */
+public class ChromeTraceExporter {
+
+    private static final int PID = 1;
+
+    private ChromeTraceExporter() {
+    }
+
+    /**
+     * @return Number of events exported
+     */
+    public static int export(File traceFile, File jsonFile) throws IOException {
+        final long[] origin = {Long.MAX_VALUE};
+        final int[] count = {0};
+        TraceRecorder.read(traceFile, (type, name, argName, threadId, timestampNanos, value) -> {
+            origin[0] = Math.min(origin[0], timestampNanos);
+            count[0]++;
+        });
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(jsonFile), StandardCharsets.UTF_8))) {
+            writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+            final boolean[] first = {true};
+            List<String> threadNames = TraceRecorder.read(traceFile,
+                (type, name, argName, threadId, timestampNanos, value) -> {
+                    if (!first[0]) {
+                        writer.write(",\n");
+                    }
+                    first[0] = false;
+                    writeEvent(writer, type, name, argName, threadId, timestampNanos - origin[0], value);
+                });
+
+            for (int tid = 0; tid < threadNames.size(); tid++) {
+                if (!first[0]) {
+                    writer.write(",\n");
+                }
+                first[0] = false;
+                writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":" + PID + ",\"tid\":" + tid
+                    + ",\"args\":{\"name\":" + quote(threadNames.get(tid)) + "}}");
+            }
+            writer.write("\n]}\n");
+        }
+        return count[0];
+    }
+
+    private static void writeEvent(Writer writer, byte type, String name, String argName, int threadId,
+                                   long relativeNanos, long value) throws IOException {
+        StringBuilder json = new StringBuilder(128);
+        json.append("{\"name\":").append(quote(name))
+            .append(",\"ph\":\"").append((char) type).append('"')
+            .append(",\"pid\":").append(PID)
+            .append(",\"tid\":").append(threadId)
+            .append(",\"ts\":").append(micros(relativeNanos));
+
+        if (type == TraceRecorder.COMPLETE) {
+            json.append(",\"dur\":").append(micros(value));
+        } else if (type == TraceRecorder.COUNTER) {
+            json.append(",\"args\":{").append(quote(argName != null ? argName : name)).append(':').append(value).append('}');
+        } else {
+            if (type == TraceRecorder.INSTANT) {
+                json.append(",\"s\":\"t\""); // Thread-scoped
+            }
+            if (value != TraceRecorder.NO_VALUE) {
+                json.append(",\"args\":{").append(quote(argName != null ? argName : "value")).append(':').append(value).append('}');
+            }
+        }
+        json.append('}');
+        writer.write(json.toString());
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.US, "%.3f", nanos / 1000.0);
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format(Locale.US, "\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: ChromeTraceExporter <trace" + TraceRecorder.FILE_EXTENSION + "> <out.json>");
+            System.exit(2);
+        }
+        int events = ChromeTraceExporter.export(new File(args[0]), new File(args[1]));
+        System.out.println("Exported " + events + " events to " + args[1]);
+    }
+}
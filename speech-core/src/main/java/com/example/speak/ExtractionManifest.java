@@ -0,0 +1,237 @@
+package com.example.speak;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checkpointed record of the input files a batch extraction job has processed
+ *
+ * Lets BatchFeatureExtractor resume after being killed and skip unchanged
+ * recordings on rerun. Plain-text journal, one record per line:
+ *
+ *   # speak-extraction-manifest v1 config=N
+ *   F name size lastModified xxhash64 row|skip     (tab-separated)
+ *   C featureLogOffset
+ *
+ * File records only count once a following C line commits them; the offset is
+ * where the FeatureLog ended at that checkpoint, so on resume the log is cut back
+ * to it and every committed file has exactly the rows the manifest says it has.
+ * Later records for the same name replace earlier ones.
+ *
+ * Not thread-safe - use from the writer thread only.
+ */
+public class ExtractionManifest implements Closeable {
+
+    public static final String FILE_EXTENSION = ".manifest";
+
+    private static final String HEADER_PREFIX = "# speak-extraction-manifest v1 config=";
+
+    /**
+     * Last known state of one input file
+     */
+    public static class Entry {
+        public final String name;
+        public final long size;
+        public final long lastModified;
+        public final long contentHash;
+        /** True if the file produced a row in the feature log, false if it was skipped */
+        public final boolean hasRow;
+
+        public Entry(String name, long size, long lastModified, long contentHash, boolean hasRow) {
+            this.name = name;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+            this.hasRow = hasRow;
+        }
+
+        /**
+         * Cheap check before hashing - same size and modification time
+         */
+        public boolean matchesStat(File file) {
+            return file.length() == size && file.lastModified() == lastModified;
+        }
+    }
+
+    private final File file;
+    private final int configVersion;
+    private final Map<String, Entry> committed = new HashMap<>();
+    private final List<Entry> pending = new ArrayList<>();
+    private FileOutputStream out;
+    private long checkpointOffset = 0;
+
+    private ExtractionManifest(File file, int configVersion) {
+        this.file = file;
+        this.configVersion = configVersion;
+    }
+
+    /**
+     * Open a manifest, loading its committed entries
+     * A missing file, a different config version or an unreadable header starts an
+     * empty manifest; records after the last checkpoint are discarded.
+     *
+     * @param configVersion Feature extraction version - entries from another version are not reused
+     */
+    public static ExtractionManifest open(File file, int configVersion) throws IOException {
+        ExtractionManifest manifest = new ExtractionManifest(file, configVersion);
+        long validEnd = file.exists() ? manifest.load() : -1;
+        if (validEnd < 0) {
+            manifest.reset();
+        } else {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                if (raf.length() > validEnd) {
+                    raf.setLength(validEnd);
+                }
+            }
+            manifest.out = new FileOutputStream(file, true);
+        }
+        return manifest;
+    }
+
+    /**
+     * Parse the journal
+     *
+     * @return Byte offset just past the last checkpoint line, or -1 if the file is unusable
+     */
+    private long load() throws IOException {
+        byte[] data;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            data = new byte[(int) raf.length()];
+            raf.readFully(data);
+        }
+
+        int lineStart = 0;
+        long validEnd = -1;
+        List<Entry> uncommitted = new ArrayList<>();
+
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] != '\n') {
+                continue;
+            }
+            String line = new String(data, lineStart, i - lineStart, StandardCharsets.UTF_8);
+            lineStart = i + 1;
+
+            if (validEnd < 0) {
+                if (!line.equals(HEADER_PREFIX + configVersion)) {
+                    return -1; // Other format or extraction version - start over
+                }
+                validEnd = lineStart;
+                continue;
+            }
+
+            String[] fields = line.split("\t");
+            try {
+                if (fields.length == 6 && fields[0].equals("F")) {
+                    uncommitted.add(new Entry(fields[1], Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+                        Long.parseUnsignedLong(fields[4], 16), fields[5].equals("row")));
+                } else if (fields.length == 2 && fields[0].equals("C")) {
+                    checkpointOffset = Long.parseLong(fields[1]);
+                    for (Entry entry : uncommitted) {
+                        committed.put(entry.name, entry);
+                    }
+                    uncommitted.clear();
+                    validEnd = lineStart;
+                } else {
+                    break;
+                }
+            } catch (NumberFormatException e) {
+                break; // Line torn by a crash
+            }
+        }
+        return validEnd;
+    }
+
+    /**
+     * Forget every entry and start an empty manifest
+     */
+    public void reset() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+        committed.clear();
+        pending.clear();
+        checkpointOffset = 0;
+        out = new FileOutputStream(file, false);
+        out.write((HEADER_PREFIX + configVersion + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    /**
+     * Committed entry for a file name, or null if it was never checkpointed
+     */
+    public Entry get(String name) {
+        return committed.get(name);
+    }
+
+    public int size() {
+        return committed.size();
+    }
+
+    /**
+     * FeatureLog offset at the last checkpoint (0 if there is none)
+     */
+    public long getCheckpointOffset() {
+        return checkpointOffset;
+    }
+
+    /**
+     * Queue an entry; it takes effect at the next checkpoint()
+     */
+    public void record(Entry entry) {
+        pending.add(entry);
+    }
+
+    /**
+     * Commit the queued entries together with the feature log's current end
+     * The log must already be flushed to disk up to featureLogOffset.
+     */
+    public void checkpoint(long featureLogOffset) throws IOException {
+        ByteArrayOutputStream batch = new ByteArrayOutputStream(64 + pending.size() * 96);
+        StringBuilder line = new StringBuilder(128);
+        for (Entry entry : pending) {
+            line.setLength(0);
+            line.append("F\t").append(entry.name)
+                .append('\t').append(entry.size)
+                .append('\t').append(entry.lastModified)
+                .append('\t').append(XxHash64.toHex(entry.contentHash))
+                .append('\t').append(entry.hasRow ? "row" : "skip")
+                .append('\n');
+            byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+            batch.write(bytes, 0, bytes.length);
+        }
+        byte[] commit = ("C\t" + featureLogOffset + "\n").getBytes(StandardCharsets.UTF_8);
+        batch.write(commit, 0, commit.length);
+
+        // One write, then fsync - a crash leaves either the whole batch or an uncommitted tail
+        batch.writeTo(out);
+        out.flush();
+        out.getFD().sync();
+
+        for (Entry entry : pending) {
+            committed.put(entry.name, entry);
+        }
+        pending.clear();
+        checkpointOffset = featureLogOffset;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.speak;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Persistent LRU cache of pronunciation feature vectors, keyed by audio content
+ *
+ * Maps xxHash64 of a clip's 16-bit PCM (seeded with PronunciationFeatureExtractor.CONFIG_VERSION)
+ * to its 39-value feature vector, so clips that are scored or extracted again - rescoring a
+ * saved session, re-running batch extraction - skip MFCC extraction. The sample count is
+ * stored with each entry and must match too.
+ *
+ * Held in memory and written to disk by save() (whole file, atomically); a cache file from
+ * another config version is ignored. Thread-safe.
+ *
+ * File layout (big-endian):
+ *   "SPKC" | version int | configVersion int | featureCount int | count int
+ *   count x (key long | numSamples int | featureCount x float), least recently used first
+ */
+public class FeatureCache {
+    private static final String TAG = "FeatureCache";
+
+    public static final int DEFAULT_MAX_ENTRIES = 20000; // ~3.3 MB on disk for 39 features
+
+    private static final int MAGIC = 0x53504B43; // "SPKC"
+    private static final int VERSION = 1;
+
+    private static class CachedVector {
+        final int numSamples;
+        final float[] features;
+
+        CachedVector(int numSamples, float[] features) {
+            this.numSamples = numSamples;
+            this.features = features;
+        }
+    }
+
+    private final File file;
+    private final int featureCount;
+    private final int maxEntries;
+    private final LinkedHashMap<Long, CachedVector> entries;
+    private boolean dirty = false;
+    private int hits = 0;
+    private int misses = 0;
+
+    /**
+     * Create a cache backed by a file, loading it if it exists
+     * An unreadable or outdated file just starts an empty cache.
+     */
+    public FeatureCache(File file, int featureCount, int maxEntries) {
+        this.file = file;
+        this.featureCount = featureCount;
+        this.maxEntries = maxEntries;
+        // Access order: get() moves an entry to the end, the eldest is evicted first
+        this.entries = new LinkedHashMap<Long, CachedVector>(Math.min(maxEntries, 1024) * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedVector> eldest) {
+                return size() > FeatureCache.this.maxEntries;
+            }
+        };
+
+        if (file.exists()) {
+            try {
+                load();
+                SpeechLog.d(TAG, "✅ Loaded " + entries.size() + " cached feature vectors");
+            } catch (IOException e) {
+                SpeechLog.w(TAG, "⚠️ Ignoring unreadable feature cache: " + e.getMessage());
+                entries.clear();
+            }
+        }
+    }
+
+    /**
+     * Cache key for a clip - hash once and use it for both get() and put()
+     */
+    public static long key(short[] samples) {
+        return XxHash64.hash(samples, PronunciationFeatureExtractor.CONFIG_VERSION);
+    }
+
+    /**
+     * Cached features for a clip, or null on a miss
+     *
+     * @return A copy the caller may modify
+     */
+    public synchronized float[] get(long key, int numSamples) {
+        CachedVector entry = entries.get(key);
+        if (entry == null || entry.numSamples != numSamples) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.features.clone();
+    }
+
+    public synchronized void put(long key, int numSamples, float[] features) {
+        if (features.length != featureCount) {
+            throw new IllegalArgumentException("Expected " + featureCount + " features, got " + features.length);
+        }
+        entries.put(key, new CachedVector(numSamples, features.clone()));
+        dirty = true;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized int getHitCount() {
+        return hits;
+    }
+
+    public synchronized int getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Write the cache to disk if it changed since it was loaded or last saved
+     * Written to a temp file and renamed, so a crash never leaves a torn cache.
+     */
+    public synchronized void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create cache directory: " + parent);
+        }
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(PronunciationFeatureExtractor.CONFIG_VERSION);
+            out.writeInt(featureCount);
+            out.writeInt(entries.size());
+            // Iteration is eldest first, which load() replays to restore LRU order
+            for (Map.Entry<Long, CachedVector> e : entries.entrySet()) {
+                out.writeLong(e.getKey());
+                out.writeInt(e.getValue().numSamples);
+                for (float value : e.getValue().features) {
+                    out.writeFloat(value);
+                }
+            }
+        }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Cannot replace " + file.getAbsolutePath());
+        }
+        dirty = false;
+        SpeechLog.d(TAG, "💾 Saved " + entries.size() + " feature vectors (" + hits + " hits, " + misses + " misses)");
+    }
+
+    private void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a feature cache");
+            }
+            if (in.readInt() != PronunciationFeatureExtractor.CONFIG_VERSION || in.readInt() != featureCount) {
+                dirty = true; // Outdated - overwrite on the next save
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long key = in.readLong();
+                int numSamples = in.readInt();
+                float[] features = new float[featureCount];
+                for (int j = 0; j < featureCount; j++) {
+                    features[j] = in.readFloat();
+                }
+                entries.put(key, new CachedVector(numSamples, features));
+            }
+        }
+    }
+}
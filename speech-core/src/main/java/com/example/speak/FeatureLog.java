@@ -0,0 +1,390 @@
+package com.example.speak;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Append-only binary log of pronunciation feature vectors
+ *
+ * Replaces per-row String.format CSV writing: rows are raw float32 values written
+ * through one buffered FileChannel, and words/filenames are stored once in a
+ * string dictionary. exportCsv() produces the CSV the Python training scripts read.
+ *
+ * Layout (little-endian, so numpy can read it directly):
+ *   Header  "SPKF" | version int | featureCount int | schemaLength int | schema UTF-8 ("f0,f1,...")
+ *   DICT    0x01 | id int | byteLength int | UTF-8 bytes
+ *   ROW     0x02 | wordId int | sourceId int (-1 = none) | label byte | featureCount x float32
+ *
+ * Reopening an existing log appends to it; a record cut short by a crash is truncated.
+ * Not thread-safe - use from a single writer thread.
+ */
+public class FeatureLog implements Closeable {
+
+    public static final String FILE_EXTENSION = ".spkf";
+
+    private static final int MAGIC = 0x464B5053; // "SPKF" read as little-endian
+    private static final int VERSION = 1;
+    private static final byte RECORD_DICT = 0x01;
+    private static final byte RECORD_ROW = 0x02;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * Receives rows while reading a log
+     * The features array is reused between rows - copy it to keep it
+     */
+    public interface RowVisitor {
+        void onRow(String word, String source, int label, float[] features) throws IOException;
+    }
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int featureCount;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    private FeatureLog(File file, int featureCount) throws IOException {
+        this.file = file;
+        this.featureCount = featureCount;
+        this.raf = new RandomAccessFile(file, "rw");
+        this.channel = raf.getChannel();
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Open a log for appending, creating it if needed
+     *
+     * @throws IOException if an existing log has a different feature count
+     */
+    public static FeatureLog open(File file, int featureCount) throws IOException {
+        return open(file, featureCount, -1);
+    }
+
+    /**
+     * Open a log for appending, first cutting it back to a known-good length
+     * Used to resume from a checkpoint: rows written after it are discarded.
+     *
+     * @param endOffset Length to truncate to (a position() taken after sync()), or -1 to keep everything
+     */
+    public static FeatureLog open(File file, int featureCount, long endOffset) throws IOException {
+        boolean exists = file.exists() && file.length() > 0;
+        FeatureLog log = new FeatureLog(file, featureCount);
+        try {
+            if (exists) {
+                if (endOffset >= 0 && endOffset < log.channel.size()) {
+                    log.channel.truncate(endOffset);
+                }
+                log.recoverExisting();
+            } else {
+                log.writeHeader();
+            }
+            return log;
+        } catch (IOException e) {
+            log.raf.close();
+            throw e;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        StringBuilder schema = new StringBuilder();
+        for (int i = 0; i < featureCount; i++) {
+            if (i > 0) schema.append(',');
+            schema.append('f').append(i);
+        }
+        byte[] schemaBytes = schema.toString().getBytes(StandardCharsets.UTF_8);
+
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(featureCount).putInt(schemaBytes.length);
+        buffer.put(schemaBytes);
+        flush();
+    }
+
+    /**
+     * Rebuild the dictionary from an existing log and drop any partial trailing record
+     */
+    private void recoverExisting() throws IOException {
+        final List<String> strings = new ArrayList<>();
+        long validEnd = scan(channel, featureCount, strings, null);
+
+        for (int id = 0; id < strings.size(); id++) {
+            dictionary.put(strings.get(id), id);
+        }
+        if (validEnd < channel.size()) {
+            channel.truncate(validEnd);
+        }
+        channel.position(validEnd);
+    }
+
+    /**
+     * Append one feature vector
+     *
+     * @param word Expected word
+     * @param source Source file name, or null
+     * @param label 1 = correct, 0 = incorrect
+     */
+    public void append(String word, String source, int label, float[] features) throws IOException {
+        if (features.length != featureCount) {
+            throw new IllegalArgumentException("Expected " + featureCount + " features, got " + features.length);
+        }
+        int wordId = idFor(word);
+        int sourceId = source != null ? idFor(source) : -1;
+
+        ensureSpace(1 + 4 + 4 + 1 + featureCount * 4);
+        buffer.put(RECORD_ROW).putInt(wordId).putInt(sourceId).put((byte) label);
+        for (float value : features) {
+            buffer.putFloat(value);
+        }
+    }
+
+    private int idFor(String value) throws IOException {
+        Integer id = dictionary.get(value);
+        if (id != null) {
+            return id;
+        }
+        id = dictionary.size();
+        dictionary.put(value, id);
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureSpace(1 + 4 + 4 + bytes.length);
+        buffer.put(RECORD_DICT).putInt(id).putInt(bytes.length).put(bytes);
+        return id;
+    }
+
+    private void ensureSpace(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+        if (buffer.remaining() < bytes) {
+            throw new IOException("Record too large: " + bytes + " bytes");
+        }
+    }
+
+    /**
+     * Write buffered records to the file
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Flush and force the log to storage, e.g. before recording position() in a checkpoint
+     */
+    public void sync() throws IOException {
+        flush();
+        channel.force(false);
+    }
+
+    /**
+     * Logical end of the log, including records not yet flushed
+     */
+    public long position() throws IOException {
+        return channel.position() + buffer.position();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Read every row in a log
+     *
+     * @return Number of rows read
+     */
+    public static int read(File logFile, RowVisitor visitor) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(logFile, "r")) {
+            final int[] rows = {0};
+            scan(in.getChannel(), -1, new ArrayList<>(), (word, source, label, features) -> {
+                rows[0]++;
+                visitor.onRow(word, source, label, features);
+            });
+            return rows[0];
+        }
+    }
+
+    /**
+     * Export a log to the CSV layout used by the training scripts
+     * With source: filename,word,f0..fN,label - without: word,f0..fN,label
+     *
+     * @return Number of rows exported
+     */
+    public static int exportCsv(File logFile, File csvFile, boolean includeSource) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(logFile, "r");
+             BufferedWriter writer = new BufferedWriter(new FileWriter(csvFile), 64 * 1024)) {
+            CsvRowWriter csv = new CsvRowWriter(writer, includeSource);
+            scan(in.getChannel(), -1, new ArrayList<>(), csv);
+            return csv.rows;
+        }
+    }
+
+    /**
+     * Export only the newest row of each listed source, in list order (filename,word,f0..fN,label)
+     * For logs that are appended to across runs: a re-extracted file supersedes its
+     * older rows, and sources not in the list (deleted inputs) are left out.
+     *
+     * @return Number of rows exported
+     */
+    public static int exportLatestCsv(File logFile, File csvFile, List<String> sources) throws IOException {
+        final Map<String, Row> latest = new HashMap<>(sources.size() * 2);
+        read(logFile, (word, source, label, features) -> {
+            if (source != null) {
+                latest.put(source, new Row(word, label, features.clone()));
+            }
+        });
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(csvFile), 64 * 1024)) {
+            CsvRowWriter csv = new CsvRowWriter(writer, true);
+            for (String source : sources) {
+                Row row = latest.get(source);
+                if (row != null) {
+                    csv.onRow(row.word, source, row.label, row.features);
+                }
+            }
+            return csv.rows;
+        }
+    }
+
+    private static class Row {
+        final String word;
+        final int label;
+        final float[] features;
+
+        Row(String word, int label, float[] features) {
+            this.word = word;
+            this.label = label;
+            this.features = features;
+        }
+    }
+
+    /**
+     * Formats rows in the training scripts' CSV layout, writing the header before the first row
+     */
+    private static class CsvRowWriter implements RowVisitor {
+        private final BufferedWriter writer;
+        private final boolean includeSource;
+        private final StringBuilder row = new StringBuilder(512);
+        int rows = 0;
+
+        CsvRowWriter(BufferedWriter writer, boolean includeSource) {
+            this.writer = writer;
+            this.includeSource = includeSource;
+        }
+
+        @Override
+        public void onRow(String word, String source, int label, float[] features) throws IOException {
+            if (rows++ == 0) {
+                row.setLength(0);
+                row.append(includeSource ? "filename,word," : "word,");
+                for (int i = 0; i < features.length; i++) {
+                    row.append('f').append(i).append(',');
+                }
+                row.append("label");
+                writer.write(row.toString());
+                writer.newLine();
+            }
+
+            row.setLength(0);
+            if (includeSource) {
+                row.append(source != null ? source : "").append(',');
+            }
+            row.append(word).append(',');
+            for (float value : features) {
+                // Locale.US: the scripts expect '.' decimals on every device locale
+                row.append(String.format(Locale.US, "%.6f", value)).append(',');
+            }
+            row.append(label);
+            writer.write(row.toString());
+            writer.newLine();
+        }
+    }
+
+    /**
+     * Walk the records of a log
+     *
+     * @param expectedFeatureCount Required feature count, or -1 to accept the header's
+     * @param strings Filled with the dictionary, indexed by id
+     * @param visitor Row callback, or null to only rebuild the dictionary
+     * @return Byte offset just past the last complete record
+     */
+    private static long scan(FileChannel channel, int expectedFeatureCount, List<String> strings,
+                             RowVisitor visitor) throws IOException {
+        long size = channel.size();
+        MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        data.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (size < 16 || data.getInt() != MAGIC) {
+            throw new IOException("Not a feature log");
+        }
+        int version = data.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported feature log version " + version);
+        }
+        int featureCount = data.getInt();
+        if (expectedFeatureCount >= 0 && featureCount != expectedFeatureCount) {
+            throw new IOException("Feature log has " + featureCount + " features, expected " + expectedFeatureCount);
+        }
+        int schemaLength = data.getInt();
+        if (data.remaining() < schemaLength) {
+            throw new IOException("Truncated feature log header");
+        }
+        data.position(data.position() + schemaLength);
+
+        float[] features = new float[featureCount];
+        int rowBytes = 4 + 4 + 1 + featureCount * 4;
+        long validEnd = data.position();
+
+        while (data.hasRemaining()) {
+            byte type = data.get();
+            if (type == RECORD_DICT) {
+                if (data.remaining() < 8) break;
+                int id = data.getInt();
+                int length = data.getInt();
+                if (length < 0 || data.remaining() < length || id != strings.size()) break;
+                byte[] bytes = new byte[length];
+                data.get(bytes);
+                strings.add(new String(bytes, StandardCharsets.UTF_8));
+            } else if (type == RECORD_ROW) {
+                if (data.remaining() < rowBytes) break;
+                int wordId = data.getInt();
+                int sourceId = data.getInt();
+                int label = data.get();
+                if (wordId < 0 || wordId >= strings.size() || sourceId >= strings.size()) break;
+                for (int i = 0; i < featureCount; i++) {
+                    features[i] = data.getFloat();
+                }
+                if (visitor != null) {
+                    visitor.onRow(strings.get(wordId), sourceId >= 0 ? strings.get(sourceId) : null, label, features);
+                }
+            } else {
+                break; // Garbage after a crash
+            }
+            validEnd = data.position();
+        }
+        return validEnd;
+    }
+}
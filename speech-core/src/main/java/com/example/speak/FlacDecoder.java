@@ -0,0 +1,349 @@
+package com.example.speak;
+
+import java.io.IOException;
+
+/**
+ * FLAC decoder for mono streams up to 16 bits per sample
+ * Pure Java counterpart to FlacEncoder, used to re-extract archived word clips
+ *
+ * Supports CONSTANT, VERBATIM, FIXED and LPC subframes, so it also reads
+ * mono 16-bit files produced by libFLAC. Frame CRCs are verified.
+ */
+public class FlacDecoder {
+
+    private FlacDecoder() {
+    }
+
+    /**
+     * Decoded audio plus its sample rate
+     */
+    public static class Audio {
+        public final short[] samples;
+        public final int sampleRate;
+
+        Audio(short[] samples, int sampleRate) {
+            this.samples = samples;
+            this.sampleRate = sampleRate;
+        }
+    }
+
+    public static Audio decode(byte[] data) throws IOException {
+        return decode(data, 0, data.length);
+    }
+
+    public static Audio decode(byte[] data, int offset, int length) throws IOException {
+        BitReader in = new BitReader(data, offset, offset + length);
+
+        if (in.readBits(32) != 0x664C6143) { // "fLaC"
+            throw new IOException("Not a FLAC stream");
+        }
+
+        // Metadata blocks - only STREAMINFO matters here
+        int sampleRate = 0;
+        int bitsPerSample = 0;
+        long totalSamples = 0;
+        boolean last = false;
+        while (!last) {
+            last = in.readBits(1) == 1;
+            int type = in.readBits(7);
+            int blockLength = in.readBits(24);
+            if (type == 0) {
+                in.skipBits(16 + 16 + 24 + 24);
+                sampleRate = in.readBits(20);
+                int channels = in.readBits(3) + 1;
+                bitsPerSample = in.readBits(5) + 1;
+                totalSamples = ((long) in.readBits(4) << 32) | (in.readBits(32) & 0xFFFFFFFFL);
+                in.skipBits(128); // MD5
+
+                if (channels != 1) {
+                    throw new IOException("Only mono FLAC is supported, got " + channels + " channels");
+                }
+                if (bitsPerSample > 16) {
+                    throw new IOException("Only up to 16-bit FLAC is supported, got " + bitsPerSample);
+                }
+            } else {
+                in.skipBits(blockLength * 8L);
+            }
+        }
+        if (sampleRate == 0) {
+            throw new IOException("Missing STREAMINFO");
+        }
+
+        short[] output = new short[(int) Math.max(totalSamples, FlacEncoder.BLOCK_SIZE)];
+        int outputLength = 0;
+        int[] block = new int[FlacEncoder.BLOCK_SIZE];
+
+        while (in.bytesRemaining() > 2 && (totalSamples == 0 || outputLength < totalSamples)) {
+            int frameStart = in.bytePosition();
+
+            if (in.readBits(14) != 0x3FFE) {
+                throw new IOException("Lost frame sync at byte " + frameStart);
+            }
+            in.skipBits(2);
+            int blockSizeCode = in.readBits(4);
+            int sampleRateCode = in.readBits(4);
+            int channelCode = in.readBits(4);
+            int sampleSizeCode = in.readBits(3);
+            in.skipBits(1);
+            skipUtf8(in);
+
+            int blockSize = decodeBlockSize(in, blockSizeCode);
+            if (sampleRateCode == 12) {
+                in.skipBits(8);
+            } else if (sampleRateCode == 13 || sampleRateCode == 14) {
+                in.skipBits(16);
+            }
+
+            int headerCrc = FlacEncoder.Crc.crc8(in.data, frameStart, in.bytePosition());
+            if (in.readBits(8) != headerCrc) {
+                throw new IOException("Frame header CRC mismatch at byte " + frameStart);
+            }
+            if (channelCode != 0) {
+                throw new IOException("Only mono frames are supported");
+            }
+
+            int frameBits = sampleSizeBits(sampleSizeCode, bitsPerSample);
+            if (block.length < blockSize) {
+                block = new int[blockSize];
+            }
+            readSubframe(in, block, blockSize, frameBits);
+
+            in.alignToByte();
+            int frameCrc = FlacEncoder.Crc.crc16(in.data, frameStart, in.bytePosition());
+            if (in.readBits(16) != frameCrc) {
+                throw new IOException("Frame CRC mismatch at byte " + frameStart);
+            }
+
+            if (outputLength + blockSize > output.length) {
+                short[] grown = new short[Math.max(output.length * 2, outputLength + blockSize)];
+                System.arraycopy(output, 0, grown, 0, outputLength);
+                output = grown;
+            }
+            for (int i = 0; i < blockSize; i++) {
+                output[outputLength++] = (short) block[i];
+            }
+        }
+
+        short[] samples = output;
+        if (outputLength != output.length) {
+            samples = new short[outputLength];
+            System.arraycopy(output, 0, samples, 0, outputLength);
+        }
+        return new Audio(samples, sampleRate);
+    }
+
+    private static void readSubframe(BitReader in, int[] out, int blockSize, int bits) throws IOException {
+        in.skipBits(1);
+        int type = in.readBits(6);
+        int wasted = 0;
+        if (in.readBits(1) == 1) {
+            wasted = in.readUnary() + 1;
+            bits -= wasted;
+        }
+
+        if (type == 0) {
+            int value = in.readSigned(bits);
+            for (int i = 0; i < blockSize; i++) {
+                out[i] = value;
+            }
+        } else if (type == 1) {
+            for (int i = 0; i < blockSize; i++) {
+                out[i] = in.readSigned(bits);
+            }
+        } else if (type >= 8 && type <= 12) {
+            int order = type - 8;
+            for (int i = 0; i < order; i++) {
+                out[i] = in.readSigned(bits);
+            }
+            readResidual(in, out, blockSize, order);
+            restoreFixed(out, blockSize, order);
+        } else if (type >= 32) {
+            int order = type - 31;
+            for (int i = 0; i < order; i++) {
+                out[i] = in.readSigned(bits);
+            }
+            int precision = in.readBits(4) + 1;
+            int shift = in.readSigned(5);
+            int[] coefficients = new int[order];
+            for (int i = 0; i < order; i++) {
+                coefficients[i] = in.readSigned(precision);
+            }
+            readResidual(in, out, blockSize, order);
+            for (int i = order; i < blockSize; i++) {
+                long prediction = 0;
+                for (int j = 0; j < order; j++) {
+                    prediction += (long) coefficients[j] * out[i - 1 - j];
+                }
+                out[i] += (int) (prediction >> shift);
+            }
+        } else {
+            throw new IOException("Reserved subframe type " + type);
+        }
+
+        if (wasted > 0) {
+            for (int i = 0; i < blockSize; i++) {
+                out[i] <<= wasted;
+            }
+        }
+    }
+
+    /**
+     * Read the partitioned Rice residual into out[order..blockSize)
+     */
+    private static void readResidual(BitReader in, int[] out, int blockSize, int order) throws IOException {
+        int method = in.readBits(2);
+        if (method > 1) {
+            throw new IOException("Reserved residual coding method " + method);
+        }
+        int parameterBits = method == 0 ? 4 : 5;
+        int escapeCode = (1 << parameterBits) - 1;
+
+        int partitionOrder = in.readBits(4);
+        int partitions = 1 << partitionOrder;
+        int partitionSize = blockSize >> partitionOrder;
+
+        int index = order;
+        for (int p = 0; p < partitions; p++) {
+            int end = (p + 1) * partitionSize;
+            int k = in.readBits(parameterBits);
+            if (k == escapeCode) {
+                int rawBits = in.readBits(5);
+                for (; index < end; index++) {
+                    out[index] = rawBits == 0 ? 0 : in.readSigned(rawBits);
+                }
+            } else {
+                for (; index < end; index++) {
+                    int folded = in.readRice(k);
+                    out[index] = (folded >>> 1) ^ -(folded & 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Undo the fixed polynomial predictor in place (residual -> samples)
+     */
+    private static void restoreFixed(int[] x, int blockSize, int order) {
+        for (int i = order; i < blockSize; i++) {
+            switch (order) {
+                case 0:
+                    break;
+                case 1:
+                    x[i] += x[i - 1];
+                    break;
+                case 2:
+                    x[i] += 2 * x[i - 1] - x[i - 2];
+                    break;
+                case 3:
+                    x[i] += 3 * x[i - 1] - 3 * x[i - 2] + x[i - 3];
+                    break;
+                default:
+                    x[i] += 4 * x[i - 1] - 6 * x[i - 2] + 4 * x[i - 3] - x[i - 4];
+                    break;
+            }
+        }
+    }
+
+    private static int decodeBlockSize(BitReader in, int code) throws IOException {
+        if (code == 1) return 192;
+        if (code >= 2 && code <= 5) return 576 << (code - 2);
+        if (code == 6) return in.readBits(8) + 1;
+        if (code == 7) return in.readBits(16) + 1;
+        if (code >= 8) return 256 << (code - 8);
+        throw new IOException("Reserved block size code");
+    }
+
+    private static int sampleSizeBits(int code, int streamInfoBits) throws IOException {
+        switch (code) {
+            case 0: return streamInfoBits;
+            case 1: return 8;
+            case 2: return 12;
+            case 4: return 16;
+            default: throw new IOException("Unsupported sample size code " + code);
+        }
+    }
+
+    private static void skipUtf8(BitReader in) throws IOException {
+        int lead = in.readBits(8);
+        int extraBytes = 0;
+        while ((lead & (0x80 >>> extraBytes)) != 0) {
+            extraBytes++;
+        }
+        if (extraBytes > 0) {
+            in.skipBits((extraBytes - 1) * 8L);
+        }
+    }
+
+    /**
+     * MSB-first bit reader over a byte array range
+     */
+    private static class BitReader {
+        final byte[] data;
+        private final int end;
+        private long bitPosition;
+
+        BitReader(byte[] data, int start, int end) {
+            this.data = data;
+            this.end = end;
+            this.bitPosition = start * 8L;
+        }
+
+        int readBits(int bits) throws IOException {
+            if (bits == 0) {
+                return 0;
+            }
+            if (bitPosition + bits > end * 8L) {
+                throw new IOException("Unexpected end of FLAC stream");
+            }
+            long value = 0;
+            for (int remaining = bits; remaining > 0; ) {
+                int byteIndex = (int) (bitPosition >>> 3);
+                int bitOffset = (int) (bitPosition & 7);
+                int available = 8 - bitOffset;
+                int take = Math.min(available, remaining);
+                int chunk = ((data[byteIndex] & 0xFF) >>> (available - take)) & ((1 << take) - 1);
+                value = (value << take) | chunk;
+                remaining -= take;
+                bitPosition += take;
+            }
+            return (int) value;
+        }
+
+        int readSigned(int bits) throws IOException {
+            int value = readBits(bits);
+            return bits == 32 ? value : (value << (32 - bits)) >> (32 - bits);
+        }
+
+        int readUnary() throws IOException {
+            int count = 0;
+            while (readBits(1) == 0) {
+                count++;
+            }
+            return count;
+        }
+
+        int readRice(int k) throws IOException {
+            int quotient = readUnary();
+            return (quotient << k) | readBits(k);
+        }
+
+        void skipBits(long bits) throws IOException {
+            if (bitPosition + bits > end * 8L) {
+                throw new IOException("Unexpected end of FLAC stream");
+            }
+            bitPosition += bits;
+        }
+
+        void alignToByte() {
+            bitPosition = (bitPosition + 7) & ~7L;
+        }
+
+        int bytePosition() {
+            return (int) (bitPosition >>> 3);
+        }
+
+        int bytesRemaining() {
+            return end - bytePosition();
+        }
+    }
+}
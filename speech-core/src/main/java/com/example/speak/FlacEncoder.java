@@ -0,0 +1,438 @@
+package com.example.speak;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Lossless FLAC encoder for 16-bit mono PCM
+ * Pure Java, no native libraries
+ *
+ * Uses the FLAC fixed polynomial predictors (orders 0-4) with partitioned Rice
+ * coding of the residual. That captures most of the gain of full LPC on short
+ * speech clips at a fraction of the CPU cost. Speech typically compresses to
+ * about 50-60% of the raw WAV size.
+ *
+ * Each call to encode() produces a complete standalone .flac stream, readable
+ * by FlacDecoder and by any standard decoder (soundfile, ffmpeg, flac).
+ *
+ * Not thread-safe - scratch buffers are reused between calls.
+ */
+public class FlacEncoder {
+
+    public static final int BLOCK_SIZE = 4096;
+
+    private static final int MAX_FIXED_ORDER = 4;
+    private static final int MAX_PARTITION_ORDER = 6;
+    private static final int MAX_RICE_PARAMETER = 14; // 15 is the escape code
+
+    private final int sampleRate;
+
+    // Scratch buffers reused for every frame
+    private final int[] residual = new int[BLOCK_SIZE];
+    private final int[] bestPartitionParams = new int[1 << MAX_PARTITION_ORDER];
+    private final int[] partitionParams = new int[1 << MAX_PARTITION_ORDER];
+
+    public FlacEncoder(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public byte[] encode(short[] samples) {
+        return encode(samples, 0, samples.length);
+    }
+
+    /**
+     * Encode samples into a complete FLAC stream (header + frames)
+     */
+    public byte[] encode(short[] samples, int offset, int length) {
+        BitWriter out = new BitWriter(length + 128);
+
+        out.writeBits('f', 8);
+        out.writeBits('L', 8);
+        out.writeBits('a', 8);
+        out.writeBits('C', 8);
+        writeStreamInfo(out, length, md5(samples, offset, length));
+
+        int frameNumber = 0;
+        for (int position = 0; position < length; position += BLOCK_SIZE) {
+            int blockSize = Math.min(BLOCK_SIZE, length - position);
+            writeFrame(out, samples, offset + position, blockSize, frameNumber++);
+        }
+
+        return out.toByteArray();
+    }
+
+    private void writeStreamInfo(BitWriter out, long totalSamples, byte[] md5) {
+        out.writeBits(1, 1);           // Last metadata block
+        out.writeBits(0, 7);           // STREAMINFO
+        out.writeBits(34, 24);         // Block length
+        out.writeBits(BLOCK_SIZE, 16); // Min block size
+        out.writeBits(BLOCK_SIZE, 16); // Max block size
+        out.writeBits(0, 24);          // Min frame size (unknown)
+        out.writeBits(0, 24);          // Max frame size (unknown)
+        out.writeBits(sampleRate, 20);
+        out.writeBits(0, 3);           // Channels - 1
+        out.writeBits(15, 5);          // Bits per sample - 1
+        out.writeBits((int) (totalSamples >>> 32), 4);
+        out.writeBits((int) totalSamples, 32);
+        for (byte b : md5) {
+            out.writeBits(b, 8);
+        }
+    }
+
+    private void writeFrame(BitWriter out, short[] samples, int offset, int blockSize, int frameNumber) {
+        int frameStart = out.length();
+
+        // Frame header
+        out.writeBits(0x3FFE, 14);     // Sync code
+        out.writeBits(0, 1);           // Reserved
+        out.writeBits(0, 1);           // Fixed block size stream
+        out.writeBits(7, 4);           // Block size: 16-bit (blockSize - 1) at end of header
+        out.writeBits(sampleRateCode(sampleRate), 4);
+        out.writeBits(0, 4);           // Mono
+        out.writeBits(4, 3);           // 16 bits per sample
+        out.writeBits(0, 1);           // Reserved
+        writeUtf8(out, frameNumber);
+        out.writeBits(blockSize - 1, 16);
+        out.writeBits(Crc.crc8(out.buffer(), frameStart, out.length()), 8);
+
+        writeSubframe(out, samples, offset, blockSize);
+
+        // Frame footer
+        out.alignToByte();
+        out.writeBits(Crc.crc16(out.buffer(), frameStart, out.length()), 16);
+    }
+
+    private void writeSubframe(BitWriter out, short[] samples, int offset, int blockSize) {
+        // CONSTANT: silence or DC
+        boolean constant = true;
+        for (int i = 1; i < blockSize && constant; i++) {
+            constant = samples[offset + i] == samples[offset];
+        }
+        if (constant) {
+            out.writeBits(0, 8);
+            out.writeBits(samples[offset], 16);
+            return;
+        }
+
+        int order = chooseFixedOrder(samples, offset, blockSize);
+        computeResidual(samples, offset, blockSize, order);
+        int partitionOrder = choosePartitioning(blockSize, order);
+        long riceBits = partitionCost(blockSize, order, partitionOrder, partitionParams);
+
+        // VERBATIM when prediction does not pay off (e.g. white noise)
+        if (16L * order + 6 + riceBits >= 16L * blockSize) {
+            out.writeBits(1 << 1, 8);
+            for (int i = 0; i < blockSize; i++) {
+                out.writeBits(samples[offset + i], 16);
+            }
+            return;
+        }
+
+        // FIXED subframe: header, warm-up samples, Rice-coded residual
+        out.writeBits((0x08 | order) << 1, 8);
+        for (int i = 0; i < order; i++) {
+            out.writeBits(samples[offset + i], 16);
+        }
+
+        out.writeBits(0, 2);                   // Rice coding, 4-bit parameters
+        out.writeBits(partitionOrder, 4);
+        int partitions = 1 << partitionOrder;
+        int partitionSize = blockSize >> partitionOrder;
+        int index = order;
+        for (int p = 0; p < partitions; p++) {
+            int k = partitionParams[p];
+            out.writeBits(k, 4);
+            int end = (p + 1) * partitionSize;
+            for (; index < end; index++) {
+                out.writeRice(fold(residual[index]), k);
+            }
+        }
+    }
+
+    /**
+     * Pick the fixed predictor order with the smallest total absolute residual
+     */
+    private static int chooseFixedOrder(short[] samples, int offset, int blockSize) {
+        int maxOrder = Math.min(MAX_FIXED_ORDER, blockSize - 1);
+        long[] errors = new long[MAX_FIXED_ORDER + 1];
+
+        for (int i = offset + maxOrder; i < offset + blockSize; i++) {
+            int x0 = samples[i];
+            int x1 = samples[i - 1];
+            int x2 = maxOrder >= 2 ? samples[i - 2] : 0;
+            int x3 = maxOrder >= 3 ? samples[i - 3] : 0;
+            int x4 = maxOrder >= 4 ? samples[i - 4] : 0;
+            errors[0] += Math.abs(x0);
+            errors[1] += Math.abs(x0 - x1);
+            errors[2] += Math.abs(x0 - 2 * x1 + x2);
+            errors[3] += Math.abs(x0 - 3 * x1 + 3 * x2 - x3);
+            errors[4] += Math.abs(x0 - 4 * x1 + 6 * x2 - 4 * x3 + x4);
+        }
+
+        int best = 0;
+        for (int order = 1; order <= maxOrder; order++) {
+            if (errors[order] < errors[best]) {
+                best = order;
+            }
+        }
+        return best;
+    }
+
+    private void computeResidual(short[] samples, int offset, int blockSize, int order) {
+        for (int i = order; i < blockSize; i++) {
+            int s = offset + i;
+            switch (order) {
+                case 0:
+                    residual[i] = samples[s];
+                    break;
+                case 1:
+                    residual[i] = samples[s] - samples[s - 1];
+                    break;
+                case 2:
+                    residual[i] = samples[s] - 2 * samples[s - 1] + samples[s - 2];
+                    break;
+                case 3:
+                    residual[i] = samples[s] - 3 * samples[s - 1] + 3 * samples[s - 2] - samples[s - 3];
+                    break;
+                default:
+                    residual[i] = samples[s] - 4 * samples[s - 1] + 6 * samples[s - 2]
+                        - 4 * samples[s - 3] + samples[s - 4];
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Try each legal partition order and keep the cheapest
+     * Leaves the winning Rice parameters in partitionParams
+     */
+    private int choosePartitioning(int blockSize, int order) {
+        int bestOrder = 0;
+        long bestCost = Long.MAX_VALUE;
+
+        for (int p = 0; p <= MAX_PARTITION_ORDER; p++) {
+            if ((blockSize & ((1 << p) - 1)) != 0 || (blockSize >> p) <= order) {
+                break;
+            }
+            long cost = partitionCost(blockSize, order, p, partitionParams);
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestOrder = p;
+                System.arraycopy(partitionParams, 0, bestPartitionParams, 0, 1 << p);
+            }
+        }
+
+        System.arraycopy(bestPartitionParams, 0, partitionParams, 0, 1 << bestOrder);
+        return bestOrder;
+    }
+
+    /**
+     * Bits needed for the residual at a given partition order, choosing the best
+     * Rice parameter per partition (written to params)
+     */
+    private long partitionCost(int blockSize, int order, int partitionOrder, int[] params) {
+        int partitions = 1 << partitionOrder;
+        int partitionSize = blockSize >> partitionOrder;
+        long total = 0;
+
+        int start = order;
+        for (int p = 0; p < partitions; p++) {
+            int end = (p + 1) * partitionSize;
+            int count = end - start;
+
+            long sum = 0;
+            for (int i = start; i < end; i++) {
+                sum += fold(residual[i]);
+            }
+
+            // Estimate k from the mean, then check its neighbours exactly
+            int estimate = 0;
+            long mean = count > 0 ? sum / count : 0;
+            while (estimate < MAX_RICE_PARAMETER && (1L << (estimate + 1)) <= mean) {
+                estimate++;
+            }
+
+            long bestBits = Long.MAX_VALUE;
+            int bestK = estimate;
+            for (int k = Math.max(0, estimate - 1); k <= Math.min(MAX_RICE_PARAMETER, estimate + 1); k++) {
+                long bits = (long) count * (k + 1);
+                for (int i = start; i < end; i++) {
+                    bits += fold(residual[i]) >>> k;
+                }
+                if (bits < bestBits) {
+                    bestBits = bits;
+                    bestK = k;
+                }
+            }
+
+            params[p] = bestK;
+            total += 4 + bestBits;
+            start = end;
+        }
+        return total;
+    }
+
+    /**
+     * Map signed residuals to unsigned: 0, -1, 1, -2, 2 ... -> 0, 1, 2, 3, 4 ...
+     */
+    private static int fold(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int sampleRateCode(int sampleRate) {
+        switch (sampleRate) {
+            case 8000: return 4;
+            case 16000: return 5;
+            case 22050: return 6;
+            case 24000: return 7;
+            case 32000: return 8;
+            case 44100: return 9;
+            case 48000: return 10;
+            default: return 0; // Read from STREAMINFO
+        }
+    }
+
+    /**
+     * Frame numbers use the UTF-8 style variable-length encoding
+     */
+    private static void writeUtf8(BitWriter out, int value) {
+        if (value < 0x80) {
+            out.writeBits(value, 8);
+            return;
+        }
+        int extraBytes = value < 0x800 ? 1 : value < 0x10000 ? 2 : value < 0x200000 ? 3
+            : value < 0x4000000 ? 4 : 5;
+        int leadBits = 6 - extraBytes;
+        int leadMarker = (0xFF << (7 - extraBytes)) & 0xFF;
+        out.writeBits(leadMarker | (value >>> (6 * extraBytes)) & ((1 << leadBits) - 1), 8);
+        for (int i = extraBytes - 1; i >= 0; i--) {
+            out.writeBits(0x80 | ((value >>> (6 * i)) & 0x3F), 8);
+        }
+    }
+
+    private static byte[] md5(short[] samples, int offset, int length) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] chunk = new byte[2048];
+            int filled = 0;
+            for (int i = offset; i < offset + length; i++) {
+                chunk[filled++] = (byte) samples[i];
+                chunk[filled++] = (byte) (samples[i] >> 8);
+                if (filled == chunk.length) {
+                    digest.update(chunk, 0, filled);
+                    filled = 0;
+                }
+            }
+            digest.update(chunk, 0, filled);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            return new byte[16]; // All zeros = "MD5 not computed"
+        }
+    }
+
+    /**
+     * MSB-first bit writer over a growable byte array
+     */
+    private static class BitWriter {
+        private byte[] bytes;
+        private int length = 0;
+        private long accumulator = 0;
+        private int accumulatedBits = 0;
+
+        BitWriter(int initialCapacity) {
+            bytes = new byte[Math.max(64, initialCapacity)];
+        }
+
+        void writeBits(int value, int bits) {
+            accumulator = (accumulator << bits) | (value & ((1L << bits) - 1));
+            accumulatedBits += bits;
+            while (accumulatedBits >= 8) {
+                accumulatedBits -= 8;
+                if (length == bytes.length) {
+                    byte[] grown = new byte[bytes.length * 2];
+                    System.arraycopy(bytes, 0, grown, 0, length);
+                    bytes = grown;
+                }
+                bytes[length++] = (byte) (accumulator >>> accumulatedBits);
+            }
+        }
+
+        /**
+         * Rice code: quotient in unary (zeros then a one), then k low bits
+         */
+        void writeRice(int value, int k) {
+            int quotient = value >>> k;
+            while (quotient >= 32) {
+                writeBits(0, 32);
+                quotient -= 32;
+            }
+            if (quotient + 1 + k <= 32) {
+                writeBits((1 << k) | (value & ((1 << k) - 1)), quotient + 1 + k);
+            } else {
+                writeBits(1, quotient + 1);
+                writeBits(value & ((1 << k) - 1), k);
+            }
+        }
+
+        void alignToByte() {
+            if (accumulatedBits > 0) {
+                writeBits(0, 8 - accumulatedBits);
+            }
+        }
+
+        /**
+         * Complete bytes written so far
+         */
+        int length() {
+            return length;
+        }
+
+        byte[] buffer() {
+            return bytes;
+        }
+
+        byte[] toByteArray() {
+            alignToByte();
+            byte[] result = new byte[length];
+            System.arraycopy(bytes, 0, result, 0, length);
+            return result;
+        }
+    }
+
+    /**
+     * FLAC frame checksums: CRC-8 (poly 0x07) over the header, CRC-16 (poly 0x8005) over the frame
+     */
+    static class Crc {
+        private static final int[] CRC8_TABLE = new int[256];
+        private static final int[] CRC16_TABLE = new int[256];
+
+        static {
+            for (int i = 0; i < 256; i++) {
+                int crc8 = i;
+                int crc16 = i << 8;
+                for (int bit = 0; bit < 8; bit++) {
+                    crc8 = (crc8 & 0x80) != 0 ? (crc8 << 1) ^ 0x07 : crc8 << 1;
+                    crc16 = (crc16 & 0x8000) != 0 ? (crc16 << 1) ^ 0x8005 : crc16 << 1;
+                }
+                CRC8_TABLE[i] = crc8 & 0xFF;
+                CRC16_TABLE[i] = crc16 & 0xFFFF;
+            }
+        }
+
+        static int crc8(byte[] data, int from, int to) {
+            int crc = 0;
+            for (int i = from; i < to; i++) {
+                crc = CRC8_TABLE[(crc ^ data[i]) & 0xFF];
+            }
+            return crc;
+        }
+
+        static int crc16(byte[] data, int from, int to) {
+            int crc = 0;
+            for (int i = from; i < to; i++) {
+                crc = ((crc << 8) ^ CRC16_TABLE[((crc >>> 8) ^ data[i]) & 0xFF]) & 0xFFFF;
+            }
+            return crc;
+        }
+    }
+}
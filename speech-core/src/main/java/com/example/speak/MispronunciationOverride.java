@@ -135,7 +135,7 @@ public class MispronunciationOverride {
         
         if (correctWord != null && correctWord.equals(expected)) {
             // This is a known mispronunciation - force INCORRECT
-            android.util.Log.d(TAG, String.format(
+            SpeechLog.d(TAG, () -> String.format(
                 "🚫 OVERRIDE: '%s' → '%s' forced INCORRECT (Vosk said: %b)",
                 spoken, expected, voskDecision));
             return false;
@@ -147,7 +147,7 @@ public class MispronunciationOverride {
             // Check if replacing 'p' with 'f' makes it match
             String spokenWithF = spoken.replace('p', 'f');
             if (spokenWithF.equals(expected)) {
-                android.util.Log.d(TAG, String.format(
+                SpeechLog.d(TAG, () -> String.format(
                     "🚫 PATTERN OVERRIDE: f→p detected in '%s' → '%s' forced INCORRECT",
                     spoken, expected));
                 return false;
@@ -158,7 +158,7 @@ public class MispronunciationOverride {
         if (expected.contains("v") && spoken.contains("b")) {
             String spokenWithV = spoken.replace('b', 'v');
             if (spokenWithV.equals(expected)) {
-                android.util.Log.d(TAG, String.format(
+                SpeechLog.d(TAG, () -> String.format(
                     "🚫 PATTERN OVERRIDE: v→b detected in '%s' → '%s' forced INCORRECT",
                     spoken, expected));
                 return false;
@@ -170,7 +170,7 @@ public class MispronunciationOverride {
             // Check if spoken has 'd' or 't' where 'th' should be
             String spokenWithTh = spoken.replace("d", "th").replace("t", "th");
             if (spokenWithTh.equals(expected)) {
-                android.util.Log.d(TAG, String.format(
+                SpeechLog.d(TAG, () -> String.format(
                     "🚫 PATTERN OVERRIDE: th→d/t detected in '%s' → '%s' forced INCORRECT",
                     spoken, expected));
                 return false;
@@ -189,7 +189,7 @@ public class MispronunciationOverride {
         String spoken = spokenForm.toLowerCase().replaceAll("[^a-z]", "");
         String expected = expectedWord.toLowerCase().replaceAll("[^a-z]", "");
         OVERRIDES.put(spoken, expected);
-        android.util.Log.d(TAG, String.format(
+        SpeechLog.d(TAG, String.format(
             "➕ Runtime override added: '%s' → '%s'", spoken, expected));
     }
 }
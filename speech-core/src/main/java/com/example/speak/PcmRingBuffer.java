@@ -0,0 +1,162 @@
+package com.example.speak;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free single-producer / single-consumer ring buffer of 16-bit PCM
+ *
+ * Hands audio from the capture thread (producer) to a processing thread (consumer)
+ * without locks or allocation. The producer never blocks: write() stores what fits
+ * and returns the count, so a stalled consumer costs dropped samples, never a
+ * stalled AudioRecord.read().
+ *
+ * Visibility: samples are copied before the volatile writePosition is advanced, and
+ * the consumer reads writePosition before copying, so every published sample is seen.
+ * readPosition works the same way in the other direction. A consumer waiting for data
+ * is parked and unparked by the producer.
+ *
+ * Exactly one thread may call the producer methods (write, close) and one thread the
+ * consumer methods (read).
+ */
+public class PcmRingBuffer {
+
+    private final short[] buffer;
+    private final int mask;
+
+    // Total samples ever written / read - only the owning side advances each
+    private volatile long writePosition = 0;
+    private volatile long readPosition = 0;
+    private volatile boolean closed = false;
+    private volatile Thread waitingConsumer;
+
+    /**
+     * @param minCapacity Minimum number of samples held; rounded up to a power of two
+     */
+    public PcmRingBuffer(int minCapacity) {
+        if (minCapacity <= 0 || minCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("Invalid capacity: " + minCapacity);
+        }
+        int capacity = Integer.highestOneBit(minCapacity);
+        if (capacity < minCapacity) {
+            capacity <<= 1;
+        }
+        this.buffer = new short[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Samples written but not yet read
+     */
+    public int available() {
+        return (int) (writePosition - readPosition);
+    }
+
+    // ---- Producer side ----
+
+    /**
+     * Copy samples in without blocking - producer thread only
+     *
+     * @return Number of samples written; less than length if the ring was full
+     */
+    public int write(short[] source, int offset, int length) {
+        if (closed) {
+            throw new IllegalStateException("Ring buffer closed");
+        }
+        long write = writePosition;
+        int free = buffer.length - (int) (write - readPosition);
+        int count = Math.min(length, free);
+        if (count <= 0) {
+            return 0;
+        }
+
+        int index = (int) (write & mask);
+        int first = Math.min(count, buffer.length - index);
+        System.arraycopy(source, offset, buffer, index, first);
+        System.arraycopy(source, offset + first, buffer, 0, count - first);
+
+        writePosition = write + count; // Publishes the samples
+        wakeConsumer();
+        return count;
+    }
+
+    /**
+     * Mark the end of the stream - producer thread only
+     * The consumer still reads everything written before this.
+     */
+    public void close() {
+        closed = true;
+        wakeConsumer();
+    }
+
+    private void wakeConsumer() {
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    // ---- Consumer side ----
+
+    /**
+     * Copy out up to length samples without blocking - consumer thread only
+     *
+     * @return Number of samples read (0 if empty), or -1 if closed and fully drained
+     */
+    public int read(short[] destination, int offset, int length) {
+        long read = readPosition;
+        int count = Math.min(length, (int) (writePosition - read));
+        if (count <= 0) {
+            // Re-check after seeing closed: samples written before close() are already visible
+            return closed && writePosition == read ? -1 : 0;
+        }
+
+        int index = (int) (read & mask);
+        int first = Math.min(count, buffer.length - index);
+        System.arraycopy(buffer, index, destination, offset, first);
+        System.arraycopy(buffer, 0, destination, offset + first, count - first);
+
+        readPosition = read + count; // Frees the space for the producer
+        return count;
+    }
+
+    /**
+     * Read, waiting up to timeoutMs for at least one sample - consumer thread only
+     *
+     * @return Number of samples read, 0 on timeout, or -1 if closed and fully drained
+     */
+    public int read(short[] destination, int offset, int length, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            int count = read(destination, offset, length);
+            if (count != 0) {
+                return count;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return 0;
+            }
+
+            waitingConsumer = Thread.currentThread();
+            try {
+                // Re-check after registering, so a write in between is not missed
+                if (writePosition == readPosition && !closed) {
+                    LockSupport.parkNanos(this, remaining);
+                }
+            } finally {
+                waitingConsumer = null;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
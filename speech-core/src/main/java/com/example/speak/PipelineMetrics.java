@@ -0,0 +1,193 @@
+package com.example.speak;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-stage latency of the word-scoring pipeline, aggregated over a reading session
+ *
+ * Stages are timed with System.nanoTime() where they run and recorded into one
+ * LatencyHistogram each:
+ *
+ *   long t = System.nanoTime();
+ *   audio = denoiser.applyLightweightDenoising(audio);
+ *   t = metrics.lap(Stage.DENOISE, t);
+ *   audio = denoiser.applyAGC(audio);
+ *   t = metrics.lap(Stage.AGC, t);
+ *
+ * snapshot() summarizes the histograms (microseconds) for display or for saving with the
+ * ReadingSession, so slow devices show up in field data. Thread-safe: the processing
+ * thread records, any thread may take a snapshot.
+ *
+ * A StageListener is told as each stage finishes, with its start and end times, so other
+ * per-stage measurements (AllocationMonitor, TraceRecorder spans) line up with the timed
+ * stages without more hooks.
+ */
+public class PipelineMetrics {
+
+    public enum Stage {
+        DENOISE("denoise"),
+        AGC("agc"),
+        RMS_NORMALIZE("rmsNormalize"),
+        MFCC("mfcc"),
+        STATISTICS("statistics"),
+        INFERENCE("inference"),
+        TOTAL("total"); // Word end detected -> onWordScored
+
+        public final String key;
+
+        Stage(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Latency summary of one stage, in microseconds
+     * A plain bean so it can be stored in Firebase with the ReadingSession.
+     */
+    public static class StageSummary {
+        private long count;
+        private long meanUs;
+        private long p50Us;
+        private long p95Us;
+        private long p99Us;
+        private long maxUs;
+
+        public StageSummary() {
+            // Required for Firebase
+        }
+
+        StageSummary(LatencyHistogram histogram) {
+            this.count = histogram.getCount();
+            this.meanUs = histogram.getMean() / 1000;
+            this.p50Us = histogram.getValueAtPercentile(50) / 1000;
+            this.p95Us = histogram.getValueAtPercentile(95) / 1000;
+            this.p99Us = histogram.getValueAtPercentile(99) / 1000;
+            this.maxUs = histogram.getMax() / 1000;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public long getMeanUs() {
+            return meanUs;
+        }
+
+        public void setMeanUs(long meanUs) {
+            this.meanUs = meanUs;
+        }
+
+        public long getP50Us() {
+            return p50Us;
+        }
+
+        public void setP50Us(long p50Us) {
+            this.p50Us = p50Us;
+        }
+
+        public long getP95Us() {
+            return p95Us;
+        }
+
+        public void setP95Us(long p95Us) {
+            this.p95Us = p95Us;
+        }
+
+        public long getP99Us() {
+            return p99Us;
+        }
+
+        public void setP99Us(long p99Us) {
+            this.p99Us = p99Us;
+        }
+
+        public long getMaxUs() {
+            return maxUs;
+        }
+
+        public void setMaxUs(long maxUs) {
+            this.maxUs = maxUs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d mean=%.2fms p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms",
+                count, meanUs / 1000f, p50Us / 1000f, p95Us / 1000f, p99Us / 1000f, maxUs / 1000f);
+        }
+    }
+
+    /**
+     * Called on the timing thread as each stage finishes, with its System.nanoTime() bounds
+     */
+    public interface StageListener {
+        void onStageEnd(Stage stage, long startNanos, long endNanos);
+    }
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+    private volatile StageListener stageListener;
+
+    public PipelineMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public synchronized void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    /**
+     * Record the time since startNanos for a stage
+     *
+     * @return The current System.nanoTime(), to start timing the next stage
+     */
+    public long lap(Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        record(stage, now - startNanos);
+        StageListener listener = stageListener;
+        if (listener != null) {
+            listener.onStageEnd(stage, startNanos, now);
+            now = System.nanoTime(); // Don't charge the listener to the next stage
+        }
+        return now;
+    }
+
+    /**
+     * Listen for finished stages, or null to stop
+     */
+    public void setStageListener(StageListener listener) {
+        this.stageListener = listener;
+    }
+
+    public synchronized void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Copy of one stage's histogram
+     */
+    public synchronized LatencyHistogram getHistogram(Stage stage) {
+        return histograms[stage.ordinal()].copy();
+    }
+
+    /**
+     * Summaries of every stage that recorded anything, keyed by Stage.key in pipeline order
+     */
+    public synchronized Map<String, StageSummary> snapshot() {
+        Map<String, StageSummary> summaries = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram histogram = histograms[stage.ordinal()];
+            if (histogram.getCount() > 0) {
+                summaries.put(stage.key, new StageSummary(histogram));
+            }
+        }
+        return summaries;
+    }
+}
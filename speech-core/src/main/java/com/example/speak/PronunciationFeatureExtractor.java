@@ -0,0 +1,119 @@
+package com.example.speak;
+
+import java.nio.ShortBuffer;
+
+/**
+ * Pronunciation feature extraction shared by on-device scoring and batch extraction
+ *
+ * Produces the 39-value vector the Random Forest was trained on:
+ * - Means: Average of each of the 13 MFCC coefficients across all frames
+ * - Deltas: Mean frame-to-frame change of each coefficient
+ * - Delta-Deltas: Mean frame-to-frame change of the per-frame deltas
+ *
+ * ONNXRandomForestScorer (serving) and BatchFeatureExtractor (training data) both
+ * go through this class, so the two paths cannot drift apart.
+ *
+ * Owns one reusable MFCC engine - not thread-safe, use one instance per thread.
+ */
+public class PronunciationFeatureExtractor {
+    private static final String TAG = "FeatureExtractor";
+
+    public static final int NUM_COEFFICIENTS = 13;
+    public static final int FEATURE_COUNT = NUM_COEFFICIENTS * 3; // means + deltas + delta-deltas
+
+    /**
+     * Version of the preprocessing + feature pipeline
+     * Bump whenever denoising, AGC, normalization or MFCC parameters change, so
+     * features saved by an older version (e.g. a resumable extraction) are recomputed.
+     */
+    public static final int CONFIG_VERSION = 1;
+
+    private final TarsosMFCCExtractor mfccExtractor;
+
+    public PronunciationFeatureExtractor() {
+        this.mfccExtractor = new TarsosMFCCExtractor();
+    }
+
+    /**
+     * Extract the 39-value feature vector from preprocessed audio
+     *
+     * @param audioSamples Audio samples, already denoised and RMS-normalized
+     * @return Feature vector, or null if the audio is too short for a single MFCC frame
+     */
+    public float[] extract(short[] audioSamples) {
+        return extract(audioSamples, null);
+    }
+
+    /**
+     * Extract the feature vector, timing MFCC and statistics into metrics (may be null)
+     */
+    public float[] extract(short[] audioSamples, PipelineMetrics metrics) {
+        long start = System.nanoTime();
+        float[][] mfccFrames = mfccExtractor.extractFeatures(audioSamples);
+        if (mfccFrames.length == 0) {
+            return null;
+        }
+        if (metrics == null) {
+            return computeStatistics(mfccFrames);
+        }
+        start = metrics.lap(PipelineMetrics.Stage.MFCC, start);
+        float[] features = computeStatistics(mfccFrames);
+        metrics.lap(PipelineMetrics.Stage.STATISTICS, start);
+        return features;
+    }
+
+    /**
+     * Extract the feature vector straight from a PCM buffer, e.g. WavReader.getSamples()
+     * Use for audio that is already preprocessed on disk - avoids copying the file into a short[]
+     */
+    public float[] extract(ShortBuffer audioSamples) {
+        float[][] mfccFrames = mfccExtractor.extractFeatures(audioSamples);
+        if (mfccFrames.length == 0) {
+            return null;
+        }
+        return computeStatistics(mfccFrames);
+    }
+
+    /**
+     * Calculate means, deltas and delta-deltas from MFCC frames [numFrames][numCoeffs]
+     *
+     * Delta formula: delta[c] = mean(frame[t][c] - frame[t-1][c]) over all frames.
+     * Delta-deltas apply the same formula to the per-frame deltas, where the first
+     * frame's delta is 0 (no previous frame).
+     *
+     * NO normalization - the model was trained on raw features.
+     */
+    public static float[] computeStatistics(float[][] mfccFrames) {
+        int numCoeffs = mfccFrames[0].length;
+        int numFrames = mfccFrames.length;
+
+        float[] features = new float[numCoeffs * 3];
+
+        for (int c = 0; c < numCoeffs; c++) {
+            float sum = 0;
+            float deltaSum = 0;
+            float deltaDeltaSum = 0;
+            float prevDelta = 0;
+
+            sum += mfccFrames[0][c];
+            for (int f = 1; f < numFrames; f++) {
+                sum += mfccFrames[f][c];
+
+                float delta = mfccFrames[f][c] - mfccFrames[f - 1][c];
+                deltaSum += delta;
+                deltaDeltaSum += delta - prevDelta;
+                prevDelta = delta;
+            }
+
+            int count = numFrames - 1;
+            features[c] = sum / numFrames;
+            features[numCoeffs + c] = (count > 0) ? (deltaSum / count) : 0;
+            features[numCoeffs * 2 + c] = (count > 0) ? (deltaDeltaSum / count) : 0;
+        }
+
+        SpeechLog.d(TAG, () -> String.format("Feature vector size: %d (from %d frames x %d coeffs)",
+            features.length, numFrames, numCoeffs));
+
+        return features;
+    }
+}
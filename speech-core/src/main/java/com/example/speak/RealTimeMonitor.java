@@ -0,0 +1,252 @@
+package com.example.speak;
+
+import java.util.Arrays;
+
+/**
+ * Tracks whether continuous recognition keeps up with speech
+ *
+ * Real-time factor (RTF) = processing time / audio duration. Below 1.0 the recognizer
+ * scores words faster than they are spoken; a word above 1.0 is a deadline miss, and
+ * the audio that arrives meanwhile queues up in the ring (the backlog).
+ *
+ * Capture-side overruns are counted too: short AudioRecord reads, samples dropped
+ * because the ring was full, and frames the source reports lost (AudioRecord timestamp
+ * gaps). Thread-safe: the capture and processing threads record, the UI takes snapshots.
+ */
+public class RealTimeMonitor {
+
+    public static final int ROLLING_WORDS = 10; // Window for the rolling RTF
+
+    /**
+     * Point-in-time view of the monitor
+     * A plain bean so it can be stored in Firebase with the ReadingSession.
+     */
+    public static class Snapshot {
+        private long words;
+        private float lastWordRtf;
+        private float rollingRtf;
+        private float sessionRtf;
+        private float maxWordRtf;
+        private long deadlineMisses;
+        private long maxBacklogMs;
+        private long shortReads;
+        private long droppedSamples;
+        private long lostFrames;
+
+        public Snapshot() {
+            // Required for Firebase
+        }
+
+        public long getWords() {
+            return words;
+        }
+
+        public void setWords(long words) {
+            this.words = words;
+        }
+
+        public float getLastWordRtf() {
+            return lastWordRtf;
+        }
+
+        public void setLastWordRtf(float lastWordRtf) {
+            this.lastWordRtf = lastWordRtf;
+        }
+
+        public float getRollingRtf() {
+            return rollingRtf;
+        }
+
+        public void setRollingRtf(float rollingRtf) {
+            this.rollingRtf = rollingRtf;
+        }
+
+        public float getSessionRtf() {
+            return sessionRtf;
+        }
+
+        public void setSessionRtf(float sessionRtf) {
+            this.sessionRtf = sessionRtf;
+        }
+
+        public float getMaxWordRtf() {
+            return maxWordRtf;
+        }
+
+        public void setMaxWordRtf(float maxWordRtf) {
+            this.maxWordRtf = maxWordRtf;
+        }
+
+        public long getDeadlineMisses() {
+            return deadlineMisses;
+        }
+
+        public void setDeadlineMisses(long deadlineMisses) {
+            this.deadlineMisses = deadlineMisses;
+        }
+
+        public long getMaxBacklogMs() {
+            return maxBacklogMs;
+        }
+
+        public void setMaxBacklogMs(long maxBacklogMs) {
+            this.maxBacklogMs = maxBacklogMs;
+        }
+
+        public long getShortReads() {
+            return shortReads;
+        }
+
+        public void setShortReads(long shortReads) {
+            this.shortReads = shortReads;
+        }
+
+        public long getDroppedSamples() {
+            return droppedSamples;
+        }
+
+        public void setDroppedSamples(long droppedSamples) {
+            this.droppedSamples = droppedSamples;
+        }
+
+        public long getLostFrames() {
+            return lostFrames;
+        }
+
+        public void setLostFrames(long lostFrames) {
+            this.lostFrames = lostFrames;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("RTF word=%.2f rolling=%.2f session=%.2f max=%.2f, misses=%d/%d, "
+                    + "backlog=%dms, overruns: short=%d dropped=%d lost=%d",
+                lastWordRtf, rollingRtf, sessionRtf, maxWordRtf, deadlineMisses, words,
+                maxBacklogMs, shortReads, droppedSamples, lostFrames);
+        }
+    }
+
+    private final int sampleRate;
+
+    // Processing side
+    private final long[] windowNanos = new long[ROLLING_WORDS];
+    private final long[] windowSamples = new long[ROLLING_WORDS];
+    private int windowNext = 0;
+    private long words = 0;
+    private long totalNanos = 0;
+    private long totalSamples = 0;
+    private float lastWordRtf = 0;
+    private float maxWordRtf = 0;
+    private long deadlineMisses = 0;
+    private long maxBacklogSamples = 0;
+
+    // Capture side
+    private long shortReads = 0;
+    private long droppedSamples = 0;
+    private long lostFrames = 0;
+
+    public RealTimeMonitor(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * One word scored - processing thread
+     *
+     * @param processingNanos Time from the word ending to its score
+     * @param audioSamples    Length of the word's audio
+     */
+    public synchronized void recordWord(long processingNanos, int audioSamples) {
+        if (audioSamples <= 0) {
+            return;
+        }
+        lastWordRtf = rtf(processingNanos, audioSamples);
+        maxWordRtf = Math.max(maxWordRtf, lastWordRtf);
+        if (lastWordRtf > 1.0f) {
+            deadlineMisses++;
+        }
+        words++;
+        totalNanos += processingNanos;
+        totalSamples += audioSamples;
+
+        windowNanos[windowNext] = processingNanos;
+        windowSamples[windowNext] = audioSamples;
+        windowNext = (windowNext + 1) % ROLLING_WORDS;
+    }
+
+    /**
+     * Audio waiting to be processed - processing thread, once per frame
+     */
+    public synchronized void recordBacklog(int samples) {
+        if (samples > maxBacklogSamples) {
+            maxBacklogSamples = samples;
+        }
+    }
+
+    /**
+     * One read from a real-time source - capture thread
+     */
+    public synchronized void recordRead(int requested, int read) {
+        if (read < requested) {
+            shortReads++;
+        }
+    }
+
+    /**
+     * Captured samples dropped because processing fell behind - capture thread
+     */
+    public synchronized void recordDropped(int samples) {
+        droppedSamples += samples;
+    }
+
+    /**
+     * Frames the source lost before they were read, as reported by AudioSource.getLostFrames()
+     */
+    public synchronized void setLostFrames(long frames) {
+        lostFrames = frames;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(windowNanos, 0);
+        Arrays.fill(windowSamples, 0);
+        windowNext = 0;
+        words = 0;
+        totalNanos = 0;
+        totalSamples = 0;
+        lastWordRtf = 0;
+        maxWordRtf = 0;
+        deadlineMisses = 0;
+        maxBacklogSamples = 0;
+        shortReads = 0;
+        droppedSamples = 0;
+        lostFrames = 0;
+    }
+
+    public synchronized Snapshot snapshot() {
+        long rollingNanos = 0;
+        long rollingSamples = 0;
+        for (int i = 0; i < ROLLING_WORDS; i++) {
+            rollingNanos += windowNanos[i];
+            rollingSamples += windowSamples[i];
+        }
+
+        Snapshot snapshot = new Snapshot();
+        snapshot.words = words;
+        snapshot.lastWordRtf = lastWordRtf;
+        snapshot.rollingRtf = rtf(rollingNanos, rollingSamples);
+        snapshot.sessionRtf = rtf(totalNanos, totalSamples);
+        snapshot.maxWordRtf = maxWordRtf;
+        snapshot.deadlineMisses = deadlineMisses;
+        snapshot.maxBacklogMs = maxBacklogSamples * 1000 / sampleRate;
+        snapshot.shortReads = shortReads;
+        snapshot.droppedSamples = droppedSamples;
+        snapshot.lostFrames = lostFrames;
+        return snapshot;
+    }
+
+    private float rtf(long nanos, long samples) {
+        if (samples <= 0) {
+            return 0;
+        }
+        return (float) (nanos / (samples * 1e9 / sampleRate));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.speak;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ShortBuffer;
+
+/**
+ * Plays back recorded PCM as an AudioSource
+ *
+ * Feeds MFCCPronunciationRecognizer from a WAV file or sample array instead of the
+ * microphone - as fast as the recognizer can take it by default, or paced at
+ * real time. Used for regression tests and throughput benchmarks off-device.
+ */
+public class ReplayAudioSource implements AudioSource {
+
+    private final ShortBuffer samples;
+    private final int sampleRate;
+    private final WavReader wavReader; // Owns the mapping behind samples, or null
+    private boolean realTime = false;
+    private long startNanos;
+    private long samplesDelivered;
+
+    private ReplayAudioSource(ShortBuffer samples, int sampleRate, WavReader wavReader) {
+        this.samples = samples;
+        this.sampleRate = sampleRate;
+        this.wavReader = wavReader;
+    }
+
+    /**
+     * Replay a mono 16-bit WAV file (memory-mapped, not loaded)
+     */
+    public static ReplayAudioSource fromWav(File wavFile) throws IOException {
+        WavReader reader = WavReader.open(wavFile);
+        if (reader.getChannels() != 1) {
+            reader.close();
+            throw new IOException("Replay needs mono audio, got " + reader.getChannels() + " channels");
+        }
+        return new ReplayAudioSource(reader.getSamples(), reader.getSampleRate(), reader);
+    }
+
+    public static ReplayAudioSource fromSamples(short[] samples, int sampleRate) {
+        return new ReplayAudioSource(ShortBuffer.wrap(samples), sampleRate, null);
+    }
+
+    /**
+     * Pace reads to the sample rate, like a microphone (off by default)
+     */
+    public ReplayAudioSource setRealTime(boolean realTime) {
+        this.realTime = realTime;
+        return this;
+    }
+
+    @Override
+    public void start() {
+        samples.rewind();
+        samplesDelivered = 0;
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public int read(short[] buffer, int offset, int length) {
+        int count = Math.min(length, samples.remaining());
+        if (count == 0) {
+            return -1;
+        }
+        if (realTime) {
+            // Wait until this chunk would have been captured
+            long dueNanos = startNanos + (samplesDelivered + count) * 1_000_000_000L / sampleRate;
+            long waitMs = (dueNanos - System.nanoTime()) / 1_000_000L;
+            if (waitMs > 0) {
+                try {
+                    Thread.sleep(waitMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return -1;
+                }
+            }
+        }
+        samples.get(buffer, offset, count);
+        samplesDelivered += count;
+        return count;
+    }
+
+    @Override
+    public void stop() {
+        if (wavReader != null) {
+            try {
+                wavReader.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public boolean isRealTime() {
+        return realTime;
+    }
+
+    /**
+     * Total length of the recording in samples
+     */
+    public int getLength() {
+        return samples.limit();
+    }
+}
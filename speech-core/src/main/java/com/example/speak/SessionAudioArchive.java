@@ -0,0 +1,319 @@
+package com.example.speak;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-session archive of word-level audio, FLAC-compressed
+ *
+ * Keeps the segmented word clips of a reading session for retraining at roughly
+ * half the size of raw WAV. Layout (big-endian):
+ *
+ *   Header   "SPKA" | version int | sampleRate int | sessionInfo UTF
+ *   Word     "WORD" | wordIndex int | word UTF | predictedCorrect byte | score float
+ *            | numSamples int | flacLength int | FLAC stream bytes
+ *   ...
+ *   Index    "INDX" | count int | (wordIndex, word, predictedCorrect, score, numSamples,
+ *            flacOffset long, flacLength) per word
+ *   Trailer  indexOffset long | "SPKI"
+ *
+ * Each word record is self-describing, so an archive whose session was killed
+ * before close() (no index) is still readable by scanning the records.
+ * Each clip is a standalone .flac stream that standard tools can decode.
+ */
+public class SessionAudioArchive implements Closeable {
+
+    public static final String FILE_EXTENSION = ".spka";
+
+    private static final int MAGIC_HEADER = 0x53504B41;  // "SPKA"
+    private static final int MAGIC_WORD = 0x574F5244;    // "WORD"
+    private static final int MAGIC_INDEX = 0x494E4458;   // "INDX"
+    private static final int MAGIC_TRAILER = 0x53504B49; // "SPKI"
+    private static final int VERSION = 1;
+    private static final int TRAILER_SIZE = 12;
+
+    /**
+     * Index entry for one archived word
+     */
+    public static class Entry {
+        public final int wordIndex;
+        public final String word;
+        public final boolean predictedCorrect;
+        public final float score;
+        public final int numSamples;
+        public final long flacOffset;
+        public final int flacLength;
+
+        Entry(int wordIndex, String word, boolean predictedCorrect, float score,
+              int numSamples, long flacOffset, int flacLength) {
+            this.wordIndex = wordIndex;
+            this.word = word;
+            this.predictedCorrect = predictedCorrect;
+            this.score = score;
+            this.numSamples = numSamples;
+            this.flacOffset = flacOffset;
+            this.flacLength = flacLength;
+        }
+    }
+
+    private final File file;
+    private final int sampleRate;
+    private final DataOutputStream out;
+    private final FlacEncoder encoder;
+    private final List<Entry> entries = new ArrayList<>();
+    private long rawBytes = 0;
+    private boolean closed = false;
+
+    private SessionAudioArchive(File file, int sampleRate, String sessionInfo) throws IOException {
+        this.file = file;
+        this.sampleRate = sampleRate;
+        this.encoder = new FlacEncoder(sampleRate);
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+
+        out.writeInt(MAGIC_HEADER);
+        out.writeInt(VERSION);
+        out.writeInt(sampleRate);
+        out.writeUTF(sessionInfo != null ? sessionInfo : "");
+        out.flush();
+    }
+
+    /**
+     * Create a new archive, overwriting any existing file
+     *
+     * @param sessionInfo Free-form description stored in the header (student, passage, time)
+     */
+    public static SessionAudioArchive create(File file, int sampleRate, String sessionInfo) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create archive directory: " + parent);
+        }
+        return new SessionAudioArchive(file, sampleRate, sessionInfo);
+    }
+
+    /**
+     * Encode and append one word clip
+     * Flushed immediately so the record survives if the app is killed mid-session.
+     */
+    public void appendWord(int wordIndex, String word, short[] samples,
+                           boolean predictedCorrect, float score) throws IOException {
+        if (closed) {
+            throw new IOException("Archive already closed");
+        }
+
+        byte[] flac = encoder.encode(samples);
+
+        out.writeInt(MAGIC_WORD);
+        out.writeInt(wordIndex);
+        out.writeUTF(word);
+        out.writeByte(predictedCorrect ? 1 : 0);
+        out.writeFloat(score);
+        out.writeInt(samples.length);
+        out.writeInt(flac.length);
+        long flacOffset = out.size();
+        out.write(flac);
+        out.flush();
+
+        entries.add(new Entry(wordIndex, word, predictedCorrect, score, samples.length, flacOffset, flac.length));
+        rawBytes += samples.length * 2L;
+    }
+
+    public int getWordCount() {
+        return entries.size();
+    }
+
+    /**
+     * Archive size relative to the raw 16-bit PCM of the same words
+     */
+    public float getCompressionRatio() {
+        return rawBytes > 0 ? out.size() / (float) rawBytes : 1.0f;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Write the word index and trailer, then close the file
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            long indexOffset = out.size();
+            out.writeInt(MAGIC_INDEX);
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                out.writeInt(entry.wordIndex);
+                out.writeUTF(entry.word);
+                out.writeByte(entry.predictedCorrect ? 1 : 0);
+                out.writeFloat(entry.score);
+                out.writeInt(entry.numSamples);
+                out.writeLong(entry.flacOffset);
+                out.writeInt(entry.flacLength);
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(MAGIC_TRAILER);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Read-only view of an existing archive
+     */
+    public static class Reader implements Closeable {
+        private final RandomAccessFile file;
+        private final int sampleRate;
+        private final String sessionInfo;
+        private final List<Entry> entries;
+
+        public Reader(File archiveFile) throws IOException {
+            this.file = new RandomAccessFile(archiveFile, "r");
+            try {
+                if (file.readInt() != MAGIC_HEADER) {
+                    throw new IOException("Not a session audio archive: " + archiveFile.getName());
+                }
+                int version = file.readInt();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported archive version " + version);
+                }
+                this.sampleRate = file.readInt();
+                this.sessionInfo = file.readUTF();
+
+                List<Entry> indexed = readIndex();
+                this.entries = Collections.unmodifiableList(indexed != null ? indexed : scanRecords());
+            } catch (IOException e) {
+                file.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Read the index via the trailer, or null if the archive was never closed
+         */
+        private List<Entry> readIndex() throws IOException {
+            long length = file.length();
+            if (length < file.getFilePointer() + TRAILER_SIZE) {
+                return null;
+            }
+            file.seek(length - TRAILER_SIZE);
+            long indexOffset = file.readLong();
+            if (file.readInt() != MAGIC_TRAILER || indexOffset < 0 || indexOffset >= length) {
+                return null;
+            }
+
+            byte[] index = new byte[(int) (length - TRAILER_SIZE - indexOffset)];
+            file.seek(indexOffset);
+            file.readFully(index);
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(index));
+            if (in.readInt() != MAGIC_INDEX) {
+                return null;
+            }
+            int count = in.readInt();
+            List<Entry> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(new Entry(in.readInt(), in.readUTF(), in.readByte() != 0, in.readFloat(),
+                    in.readInt(), in.readLong(), in.readInt()));
+            }
+            return result;
+        }
+
+        /**
+         * Recover entries from the self-describing word records
+         * Stops at the first incomplete record (e.g. the app died mid-write)
+         */
+        private List<Entry> scanRecords() throws IOException {
+            List<Entry> result = new ArrayList<>();
+            long length = file.length();
+            long position = headerEnd();
+
+            try {
+                while (position < length) {
+                    file.seek(position);
+                    if (file.readInt() != MAGIC_WORD) {
+                        break;
+                    }
+                    int wordIndex = file.readInt();
+                    String word = file.readUTF();
+                    boolean predictedCorrect = file.readByte() != 0;
+                    float score = file.readFloat();
+                    int numSamples = file.readInt();
+                    int flacLength = file.readInt();
+                    long flacOffset = file.getFilePointer();
+                    if (flacOffset + flacLength > length) {
+                        break;
+                    }
+                    result.add(new Entry(wordIndex, word, predictedCorrect, score, numSamples, flacOffset, flacLength));
+                    position = flacOffset + flacLength;
+                }
+            } catch (EOFException e) {
+                // Truncated record header - keep what was complete
+            }
+            return result;
+        }
+
+        private long headerEnd() throws IOException {
+            file.seek(12);
+            file.readUTF();
+            return file.getFilePointer();
+        }
+
+        public int getSampleRate() {
+            return sampleRate;
+        }
+
+        public String getSessionInfo() {
+            return sessionInfo;
+        }
+
+        public List<Entry> getEntries() {
+            return entries;
+        }
+
+        /**
+         * Raw FLAC stream of one word, e.g. to save as a .flac file
+         */
+        public byte[] readFlac(Entry entry) throws IOException {
+            byte[] flac = new byte[entry.flacLength];
+            file.seek(entry.flacOffset);
+            file.readFully(flac);
+            return flac;
+        }
+
+        /**
+         * Decode one word back to 16-bit PCM
+         */
+        public short[] readSamples(Entry entry) throws IOException {
+            return FlacDecoder.decode(readFlac(entry)).samples;
+        }
+
+        /**
+         * Decode one word to a WAV file, e.g. for BatchFeatureExtractor
+         */
+        public void extractWav(Entry entry, File wavFile) throws IOException {
+            try (WavWriter writer = new WavWriter(wavFile, sampleRate, 1)) {
+                writer.write(readSamples(entry));
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.speak;
+
+import java.util.function.Supplier;
+
+/**
+ * Project logging facade, used by the speech core and the app's hot paths
+ *
+ * Core classes can't call android.util.Log, so they log here and the host decides where
+ * messages go: SpeakApplication installs a logcat sink, anywhere else warnings and errors
+ * go to stderr. Priorities use the android.util.Log values.
+ *
+ * Messages below the minimum priority are never built: pass a Supplier for formatted
+ * messages, or guard multi-line dumps with isLoggable(). SpeakApplication sets the
+ * minimum from BuildConfig.DEBUG, and release builds also strip v()/d() calls with R8.
+ */
+public final class SpeechLog {
+
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    /**
+     * Destination for log messages - must be thread-safe
+     */
+    public interface Sink {
+        void log(int priority, String tag, String message, Throwable error);
+    }
+
+    /** Drops everything */
+    public static final Sink NONE = (priority, tag, message, error) -> { };
+
+    /** Warnings and errors to System.err - the default until a host installs a sink */
+    public static final Sink STDERR = (priority, tag, message, error) -> {
+        if (priority < WARN) {
+            return;
+        }
+        System.err.println((priority == WARN ? "W/" : "E/") + tag + ": " + message);
+        if (error != null) {
+            error.printStackTrace();
+        }
+    };
+
+    private static volatile Sink sink = STDERR;
+    private static volatile int minPriority = VERBOSE;
+
+    private SpeechLog() {
+    }
+
+    public static void setSink(Sink newSink) {
+        sink = newSink != null ? newSink : NONE;
+    }
+
+    public static Sink getSink() {
+        return sink;
+    }
+
+    /**
+     * Drop messages below this priority, e.g. WARN in release builds
+     */
+    public static void setMinPriority(int priority) {
+        minPriority = priority;
+    }
+
+    public static boolean isLoggable(int priority) {
+        return priority >= minPriority;
+    }
+
+    private static void log(int priority, String tag, String message, Throwable error) {
+        if (priority >= minPriority) {
+            sink.log(priority, tag, message, error);
+        }
+    }
+
+    private static void log(int priority, String tag, Supplier<String> message) {
+        if (priority >= minPriority) {
+            sink.log(priority, tag, message.get(), null);
+        }
+    }
+
+    public static void v(String tag, String message) {
+        log(VERBOSE, tag, message, null);
+    }
+
+    public static void v(String tag, Supplier<String> message) {
+        log(VERBOSE, tag, message);
+    }
+
+    public static void d(String tag, String message) {
+        log(DEBUG, tag, message, null);
+    }
+
+    public static void d(String tag, Supplier<String> message) {
+        log(DEBUG, tag, message);
+    }
+
+    public static void i(String tag, String message) {
+        log(INFO, tag, message, null);
+    }
+
+    public static void i(String tag, Supplier<String> message) {
+        log(INFO, tag, message);
+    }
+
+    public static void w(String tag, String message) {
+        log(WARN, tag, message, null);
+    }
+
+    public static void w(String tag, Supplier<String> message) {
+        log(WARN, tag, message);
+    }
+
+    public static void w(String tag, String message, Throwable error) {
+        log(WARN, tag, message, error);
+    }
+
+    public static void e(String tag, String message) {
+        log(ERROR, tag, message, null);
+    }
+
+    public static void e(String tag, String message, Throwable error) {
+        log(ERROR, tag, message, error);
+    }
+}
@@ -1,9 +1,9 @@
 package com.example.speak;
 
-import android.util.Log;
 import be.tarsos.dsp.AudioEvent;
 import be.tarsos.dsp.io.TarsosDSPAudioFormat;
 import be.tarsos.dsp.mfcc.MFCC;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,6 +12,7 @@ import java.util.List;
  * Pure Java implementation, Android-compatible
  * 
  * Extracts MFCC coefficients from audio for pronunciation scoring
+ * Not thread-safe - the MFCC processor and frame buffers are reused between calls
  */
 public class TarsosMFCCExtractor {
     private static final String TAG = "TarsosMFCCExtractor";
@@ -28,6 +29,10 @@ public class TarsosMFCCExtractor {
     // Audio format for TarsosDSP
     private TarsosDSPAudioFormat audioFormat;
     
+    // Reused for every frame (MFCC.process copies the buffer it is given)
+    private final AudioEvent audioEvent;
+    private final float[] frame;
+    
     /**
      * Create MFCC extractor with default settings
      * Sample rate: 16000 Hz (standard for speech)
@@ -63,7 +68,10 @@ public class TarsosMFCCExtractor {
                                  133.3334f, // Lower frequency (Hz)
                                  6855.4976f); // Upper frequency (Hz)
         
-        Log.d(TAG, String.format("Initialized TarsosMFCC: %d Hz, FFT=%d, coeffs=%d, filters=%d",
+        audioEvent = new AudioEvent(audioFormat);
+        frame = new float[fftSize];
+        
+        SpeechLog.d(TAG, String.format("Initialized TarsosMFCC: %d Hz, FFT=%d, coeffs=%d, filters=%d",
             sampleRate, fftSize, numCoefficients, numFilters));
     }
     
@@ -75,7 +83,7 @@ public class TarsosMFCCExtractor {
      */
     public float[][] extractFeatures(float[] audioSamples) {
         if (audioSamples == null || audioSamples.length == 0) {
-            Log.w(TAG, "Empty audio samples");
+            SpeechLog.w(TAG, "Empty audio samples");
             return new float[0][0];
         }
         
@@ -85,7 +93,7 @@ public class TarsosMFCCExtractor {
         int hopSize = fftSize / 2; // 50% overlap
         int numFrames = (audioSamples.length - fftSize) / hopSize + 1;
         
-        Log.d(TAG, String.format("Processing %d samples -> %d frames", 
+        SpeechLog.d(TAG, () -> String.format("Processing %d samples -> %d frames", 
             audioSamples.length, numFrames));
         
         // Process each frame
@@ -94,7 +102,6 @@ public class TarsosMFCCExtractor {
             int endIdx = Math.min(startIdx + fftSize, audioSamples.length);
             
             // Extract frame
-            float[] frame = new float[fftSize];
             int frameLength = endIdx - startIdx;
             System.arraycopy(audioSamples, startIdx, frame, 0, frameLength);
             
@@ -105,8 +112,7 @@ public class TarsosMFCCExtractor {
                 }
             }
             
-            // Create AudioEvent for TarsosDSP with proper audio format
-            AudioEvent audioEvent = new AudioEvent(audioFormat);
+            // Reuse the AudioEvent for TarsosDSP with proper audio format
             audioEvent.setFloatBuffer(frame);
             
             // Process with MFCC
@@ -128,7 +134,19 @@ public class TarsosMFCCExtractor {
             result[i] = mfccFrames.get(i);
         }
         
-        Log.d(TAG, String.format("Extracted MFCC: %d frames x %d coefficients", 
+        // Coefficient dumps are debug-only - skip building them entirely otherwise
+        if (SpeechLog.isLoggable(SpeechLog.DEBUG)) {
+            logFrames(result);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Log frame count, first-frame coefficients and coefficient means
+     */
+    private void logFrames(float[][] result) {
+        SpeechLog.d(TAG, String.format("Extracted MFCC: %d frames x %d coefficients", 
             result.length, numCoefficients));
         
         // Log first frame coefficients for debugging
@@ -139,7 +157,7 @@ public class TarsosMFCCExtractor {
                 if (i < numCoefficients - 1) coeffStr.append(", ");
             }
             coeffStr.append("]");
-            Log.d(TAG, coeffStr.toString());
+            SpeechLog.d(TAG, coeffStr.toString());
         }
         
         // Log statistics
@@ -159,10 +177,8 @@ public class TarsosMFCCExtractor {
                 if (i < numCoefficients - 1) meanStr.append(", ");
             }
             meanStr.append("]");
-            Log.d(TAG, meanStr.toString());
+            SpeechLog.d(TAG, meanStr.toString());
         }
-        
-        return result;
     }
     
     /**
@@ -178,6 +194,19 @@ public class TarsosMFCCExtractor {
         return extractFeatures(floatSamples);
     }
     
+    /**
+     * Extract MFCC features directly from a PCM buffer (e.g. a memory-mapped WAV data chunk)
+     * Reads from the buffer's position to its limit without changing either
+     */
+    public float[][] extractFeatures(ShortBuffer audioSamples) {
+        int offset = audioSamples.position();
+        float[] floatSamples = new float[audioSamples.remaining()];
+        for (int i = 0; i < floatSamples.length; i++) {
+            floatSamples[i] = audioSamples.get(offset + i) / 32768.0f;
+        }
+        return extractFeatures(floatSamples);
+    }
+    
     /**
      * Get sample rate
      */
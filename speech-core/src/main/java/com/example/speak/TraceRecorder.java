@@ -0,0 +1,299 @@
+package com.example.speak;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed-size ring buffer of structured trace events for reading sessions
+ *
+ * Events are stored in preallocated primitive arrays, so recording does not allocate and
+ * the oldest events are overwritten once the ring is full. Names are registered once and
+ * referenced by id:
+ *
+ *   int segment = trace.register("segment", "sample");
+ *   trace.begin(segment, samplesProcessed);
+ *   ...
+ *   trace.end(segment, samplesProcessed);
+ *
+ * dump() writes the ring to a compact binary file; ChromeTraceExporter turns that into
+ * Chrome trace JSON for chrome://tracing or ui.perfetto.dev.
+ *
+ * Layout (little-endian):
+ *   Header  "SPKT" | version int | nameCount int | threadCount int | eventCount int
+ *   NAME    byteLength int | UTF-8 name | byteLength int | UTF-8 arg name (0 = none)
+ *   THREAD  byteLength int | UTF-8 thread name
+ *   EVENT   type byte | nameId int | threadId int | timestamp long (nanoTime) | value long
+ *
+ * value is the event's argument for BEGIN/END/INSTANT, the duration in nanos for
+ * COMPLETE, and the sample for COUNTER. Thread-safe.
+ */
+public class TraceRecorder {
+
+    public static final String FILE_EXTENSION = ".spkt";
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    public static final byte BEGIN = 'B';
+    public static final byte END = 'E';
+    public static final byte COMPLETE = 'X';
+    public static final byte INSTANT = 'i';
+    public static final byte COUNTER = 'C';
+
+    /** value of events recorded without an argument */
+    public static final long NO_VALUE = Long.MIN_VALUE;
+
+    private static final int MAGIC = 0x544B5053; // "SPKT" read as little-endian
+    private static final int VERSION = 1;
+    private static final int EVENT_BYTES = 1 + 4 + 4 + 8 + 8;
+
+    /**
+     * Receives events while reading a dump, oldest first
+     * argName is null for names registered without one
+     */
+    public interface EventVisitor {
+        void onEvent(byte type, String name, String argName, int threadId, long timestampNanos, long value)
+            throws IOException;
+    }
+
+    private final int capacity;
+    private final byte[] types;
+    private final int[] nameIds;
+    private final int[] threadIds;
+    private final long[] timestamps;
+    private final long[] values;
+    private long written;
+
+    private final Map<String, Integer> nameLookup = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<String> argNames = new ArrayList<>();
+    private final List<String> threadNames = new ArrayList<>();
+    private final ThreadLocal<Integer> currentThreadId = new ThreadLocal<>();
+
+    public TraceRecorder(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.types = new byte[capacity];
+        this.nameIds = new int[capacity];
+        this.threadIds = new int[capacity];
+        this.timestamps = new long[capacity];
+        this.values = new long[capacity];
+    }
+
+    /**
+     * Id for an event name without an argument
+     */
+    public int register(String name) {
+        return register(name, null);
+    }
+
+    /**
+     * Id for an event name - the same name always returns the same id
+     *
+     * @param argName Label of the event's value in the exported trace, or null
+     */
+    public synchronized int register(String name, String argName) {
+        Integer id = nameLookup.get(name);
+        if (id != null) {
+            return id;
+        }
+        id = names.size();
+        names.add(name);
+        argNames.add(argName);
+        nameLookup.put(name, id);
+        return id;
+    }
+
+    public void begin(int nameId) {
+        append(BEGIN, nameId, System.nanoTime(), NO_VALUE);
+    }
+
+    public void begin(int nameId, long arg) {
+        append(BEGIN, nameId, System.nanoTime(), arg);
+    }
+
+    public void end(int nameId) {
+        append(END, nameId, System.nanoTime(), NO_VALUE);
+    }
+
+    public void end(int nameId, long arg) {
+        append(END, nameId, System.nanoTime(), arg);
+    }
+
+    public void instant(int nameId, long arg) {
+        append(INSTANT, nameId, System.nanoTime(), arg);
+    }
+
+    public void counter(int nameId, long value) {
+        append(COUNTER, nameId, System.nanoTime(), value);
+    }
+
+    /**
+     * A span already timed by the caller, e.g. a PipelineMetrics stage
+     */
+    public void complete(int nameId, long startNanos, long endNanos) {
+        append(COMPLETE, nameId, startNanos, endNanos - startNanos);
+    }
+
+    private void append(byte type, int nameId, long timestampNanos, long value) {
+        int threadId = threadId();
+        synchronized (this) {
+            int slot = (int) (written % capacity);
+            types[slot] = type;
+            nameIds[slot] = nameId;
+            threadIds[slot] = threadId;
+            timestamps[slot] = timestampNanos;
+            values[slot] = value;
+            written++;
+        }
+    }
+
+    private int threadId() {
+        Integer id = currentThreadId.get();
+        if (id == null) {
+            synchronized (this) {
+                id = threadNames.size();
+                threadNames.add(Thread.currentThread().getName());
+            }
+            currentThreadId.set(id);
+        }
+        return id;
+    }
+
+    /**
+     * Events currently held - at most the capacity
+     */
+    public synchronized int size() {
+        return (int) Math.min(written, capacity);
+    }
+
+    /**
+     * Events overwritten since the last clear()
+     */
+    public synchronized long getDroppedEvents() {
+        return Math.max(0, written - capacity);
+    }
+
+    /**
+     * Drop all events; registered names and threads are kept
+     */
+    public synchronized void clear() {
+        written = 0;
+    }
+
+    /**
+     * Write the ring, oldest event first, to a binary trace file
+     *
+     * @return Number of events written
+     */
+    public int dump(File file) throws IOException {
+        ByteBuffer buffer;
+        int count;
+        synchronized (this) {
+            count = size();
+            int stringBytes = 0;
+            List<byte[]> strings = new ArrayList<>();
+            for (int i = 0; i < names.size(); i++) {
+                strings.add(names.get(i).getBytes(StandardCharsets.UTF_8));
+                String argName = argNames.get(i);
+                strings.add(argName != null ? argName.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+            }
+            for (String threadName : threadNames) {
+                strings.add(threadName.getBytes(StandardCharsets.UTF_8));
+            }
+            for (byte[] bytes : strings) {
+                stringBytes += 4 + bytes.length;
+            }
+
+            buffer = ByteBuffer.allocate(20 + stringBytes + count * EVENT_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(names.size()).putInt(threadNames.size()).putInt(count);
+            for (byte[] bytes : strings) {
+                buffer.putInt(bytes.length).put(bytes);
+            }
+            long first = written - count;
+            for (long i = first; i < written; i++) {
+                int slot = (int) (i % capacity);
+                buffer.put(types[slot]).putInt(nameIds[slot]).putInt(threadIds[slot])
+                    .putLong(timestamps[slot]).putLong(values[slot]);
+            }
+        }
+
+        buffer.flip();
+        try (FileOutputStream out = new FileOutputStream(file); FileChannel channel = out.getChannel()) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Read a dump, passing each event to the visitor
+     *
+     * @return Names of the recording threads, indexed by thread id
+     */
+    public static List<String> read(File file, EventVisitor visitor) throws IOException {
+        ByteBuffer buffer;
+        try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+            buffer = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading
+            }
+        }
+        buffer.flip();
+
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a trace file: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported trace version " + version);
+            }
+            int nameCount = buffer.getInt();
+            int threadCount = buffer.getInt();
+            int eventCount = buffer.getInt();
+
+            String[] names = new String[nameCount];
+            String[] argNames = new String[nameCount];
+            for (int i = 0; i < nameCount; i++) {
+                names[i] = readString(buffer);
+                String argName = readString(buffer);
+                argNames[i] = argName.isEmpty() ? null : argName;
+            }
+            List<String> threadNames = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                threadNames.add(readString(buffer));
+            }
+
+            for (int i = 0; i < eventCount; i++) {
+                byte type = buffer.get();
+                int nameId = buffer.getInt();
+                int threadId = buffer.getInt();
+                long timestamp = buffer.getLong();
+                long value = buffer.getLong();
+                visitor.onEvent(type, names[nameId], argNames[nameId], threadId, timestamp, value);
+            }
+            return threadNames;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated trace file: " + file);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
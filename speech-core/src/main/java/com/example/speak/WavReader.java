@@ -0,0 +1,245 @@
+package com.example.speak;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * RIFF/WAV reader for 16-bit PCM files
+ *
+ * Walks the RIFF chunk list instead of assuming a 44-byte header, so files with
+ * LIST/INFO, fact or WAVE_FORMAT_EXTENSIBLE headers are read correctly.
+ * The data chunk is memory-mapped and exposed as a little-endian ShortBuffer,
+ * so samples can be fed to feature extraction without copying the file.
+ *
+ * Usage:
+ *   try (WavReader wav = WavReader.open(file, 16000, 1)) {
+ *       short[] samples = wav.readSamples();
+ *   }
+ */
+public class WavReader implements Closeable {
+
+    private static final int FORMAT_PCM = 1;
+    private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+
+    /**
+     * Thrown when the file is not a WAV file we can read, or does not match the expected format
+     */
+    public static class WavFormatException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public WavFormatException(String message) {
+            super(message);
+        }
+    }
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+
+    private int sampleRate;
+    private int channels;
+    private int bitsPerSample;
+    private long dataOffset = -1;
+    private long dataSize;
+    private MappedByteBuffer mappedData;
+
+    private WavReader(File inputFile) throws IOException {
+        this.file = new RandomAccessFile(inputFile, "r");
+        this.channel = file.getChannel();
+    }
+
+    /**
+     * Open a 16-bit PCM WAV file with any sample rate and channel count
+     */
+    public static WavReader open(File inputFile) throws IOException {
+        return open(inputFile, 0, 0);
+    }
+
+    /**
+     * Open a 16-bit PCM WAV file and validate its format
+     *
+     * @param expectedSampleRate Required sample rate in Hz, or 0 to accept any
+     * @param expectedChannels Required channel count, or 0 to accept any
+     * @throws WavFormatException if the file is malformed or does not match
+     */
+    public static WavReader open(File inputFile, int expectedSampleRate, int expectedChannels) throws IOException {
+        WavReader reader = new WavReader(inputFile);
+        try {
+            reader.parseChunks();
+
+            if (expectedSampleRate > 0 && reader.sampleRate != expectedSampleRate) {
+                throw new WavFormatException("Expected " + expectedSampleRate + " Hz, got "
+                    + reader.sampleRate + " Hz: " + inputFile.getName());
+            }
+            if (expectedChannels > 0 && reader.channels != expectedChannels) {
+                throw new WavFormatException("Expected " + expectedChannels + " channel(s), got "
+                    + reader.channels + ": " + inputFile.getName());
+            }
+            return reader;
+        } catch (IOException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Walk the chunk list: RIFF header, then fmt / data / anything else (skipped)
+     */
+    private void parseChunks() throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(header, 0);
+
+        if (header.getInt(0) != fourCC("RIFF") || header.getInt(8) != fourCC("WAVE")) {
+            throw new WavFormatException("Not a RIFF/WAVE file");
+        }
+
+        boolean hasFormat = false;
+        long position = 12;
+        ByteBuffer chunkHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+
+        while (position + 8 <= fileSize) {
+            chunkHeader.clear();
+            readFully(chunkHeader, position);
+            int chunkId = chunkHeader.getInt(0);
+            long chunkSize = chunkHeader.getInt(4) & 0xFFFFFFFFL;
+            long chunkStart = position + 8;
+
+            if (chunkId == fourCC("fmt ")) {
+                parseFormat(chunkStart, chunkSize);
+                hasFormat = true;
+            } else if (chunkId == fourCC("data")) {
+                dataOffset = chunkStart;
+                // Recorders killed mid-write leave 0 or 0xFFFFFFFF here - trust the file length
+                dataSize = chunkSize == 0 ? fileSize - chunkStart : Math.min(chunkSize, fileSize - chunkStart);
+                if (hasFormat) {
+                    break;
+                }
+            }
+
+            // Chunks are word-aligned: odd sizes are followed by a pad byte
+            position = chunkStart + chunkSize + (chunkSize & 1);
+        }
+
+        if (!hasFormat) {
+            throw new WavFormatException("Missing fmt chunk");
+        }
+        if (dataOffset < 0) {
+            throw new WavFormatException("Missing data chunk");
+        }
+
+        // Drop a trailing partial frame
+        int frameBytes = channels * (bitsPerSample / 8);
+        dataSize -= dataSize % frameBytes;
+    }
+
+    private void parseFormat(long offset, long size) throws IOException {
+        if (size < 16) {
+            throw new WavFormatException("fmt chunk too small: " + size);
+        }
+        ByteBuffer fmt = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(fmt, offset);
+
+        int audioFormat = fmt.getShort(0) & 0xFFFF;
+        channels = fmt.getShort(2) & 0xFFFF;
+        sampleRate = fmt.getInt(4);
+        bitsPerSample = fmt.getShort(14) & 0xFFFF;
+
+        if (audioFormat != FORMAT_PCM && audioFormat != FORMAT_EXTENSIBLE) {
+            throw new WavFormatException("Unsupported WAV encoding: " + audioFormat);
+        }
+        if (bitsPerSample != 16) {
+            throw new WavFormatException("Only 16-bit PCM is supported, got " + bitsPerSample + "-bit");
+        }
+        if (channels < 1) {
+            throw new WavFormatException("Invalid channel count: " + channels);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Truncated WAV header");
+            }
+        }
+    }
+
+    private static int fourCC(String id) {
+        return (id.charAt(0)) | (id.charAt(1) << 8) | (id.charAt(2) << 16) | (id.charAt(3) << 24);
+    }
+
+    /**
+     * Memory-mapped view of the data chunk (interleaved if multi-channel)
+     * Each call returns an independent read-only buffer positioned at the first sample
+     */
+    public ShortBuffer getSamples() throws IOException {
+        if (mappedData == null) {
+            mappedData = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, dataSize);
+        }
+        return mappedData.duplicate().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+    }
+
+    /**
+     * Copy all samples into a new array
+     */
+    public short[] readSamples() throws IOException {
+        ShortBuffer samples = getSamples();
+        short[] data = new short[samples.remaining()];
+        samples.get(data);
+        return data;
+    }
+
+    /**
+     * Copy all samples into a new float array normalized to -1.0 to 1.0
+     */
+    public float[] readFloatSamples() throws IOException {
+        ShortBuffer samples = getSamples();
+        float[] data = new float[samples.remaining()];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = samples.get(i) / 32768.0f;
+        }
+        return data;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public int getBitsPerSample() {
+        return bitsPerSample;
+    }
+
+    /**
+     * Number of samples per channel
+     */
+    public int getFrameCount() {
+        return (int) (dataSize / (channels * (bitsPerSample / 8)));
+    }
+
+    /**
+     * Byte offset of the first sample in the file
+     */
+    public long getDataOffset() {
+        return dataOffset;
+    }
+
+    /**
+     * Closes the file. Buffers returned by getSamples() stay valid until garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.speak;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Streaming 16-bit PCM WAV writer
+ *
+ * Writes a placeholder 44-byte header, appends samples through one reusable
+ * direct buffer as they arrive, then patches the RIFF and data sizes on close.
+ * Memory use is constant regardless of recording length.
+ *
+ * Not thread-safe - write from a single thread (e.g. the capture thread).
+ * If the app dies before close(), the sizes stay 0; WavReader treats that as
+ * "data runs to end of file", so partial recordings remain readable.
+ */
+public class WavWriter implements Closeable {
+
+    private static final int HEADER_SIZE = 44;
+    private static final int BUFFER_BYTES = 16 * 1024;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final ShortBuffer samplesView; // Little-endian view of buffer for bulk puts
+    private final int sampleRate;
+    private final int channels;
+
+    private long samplesWritten = 0;
+    private boolean closed = false;
+
+    public WavWriter(File outputFile, int sampleRate, int channels) throws IOException {
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.file = new RandomAccessFile(outputFile, "rw");
+        this.channel = file.getChannel();
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        this.samplesView = buffer.asShortBuffer();
+
+        try {
+            file.setLength(0);
+            writeHeader(0);
+            channel.position(HEADER_SIZE);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Append 16-bit samples (interleaved if multi-channel)
+     */
+    public void write(short[] samples, int offset, int length) throws IOException {
+        int position = offset;
+        int remaining = length;
+        while (remaining > 0) {
+            if (!samplesView.hasRemaining()) {
+                flushBuffer();
+            }
+            int count = Math.min(remaining, samplesView.remaining());
+            samplesView.put(samples, position, count);
+            position += count;
+            remaining -= count;
+        }
+        samplesWritten += length;
+    }
+
+    public void write(short[] samples) throws IOException {
+        write(samples, 0, samples.length);
+    }
+
+    /**
+     * Append float samples (-1.0 to 1.0), clamped and scaled to 16-bit
+     */
+    public void write(float[] samples, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            if (!samplesView.hasRemaining()) {
+                flushBuffer();
+            }
+            float value = Math.max(-1.0f, Math.min(1.0f, samples[i]));
+            samplesView.put((short) (value * 32767.0f));
+        }
+        samplesWritten += length;
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.position(0).limit(samplesView.position() * 2);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        samplesView.clear();
+    }
+
+    /**
+     * Total samples written so far (all channels)
+     */
+    public long getSamplesWritten() {
+        return samplesWritten;
+    }
+
+    /**
+     * Flush remaining samples and patch the header sizes
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushBuffer();
+            writeHeader(samplesWritten * 2);
+        } finally {
+            file.close();
+        }
+    }
+
+    private void writeHeader(long dataBytes) throws IOException {
+        int blockAlign = channels * 2;
+        int byteRate = sampleRate * blockAlign;
+        // RIFF sizes are 32-bit; ~37 hours of 16 kHz mono before this matters
+        int dataSize = (int) Math.min(dataBytes, 0xFFFFFFFFL - 36);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put((byte) 'R').put((byte) 'I').put((byte) 'F').put((byte) 'F');
+        header.putInt(dataSize + 36);
+        header.put((byte) 'W').put((byte) 'A').put((byte) 'V').put((byte) 'E');
+
+        header.put((byte) 'f').put((byte) 'm').put((byte) 't').put((byte) ' ');
+        header.putInt(16);                    // fmt chunk size
+        header.putShort((short) 1);           // PCM format
+        header.putShort((short) channels);
+        header.putInt(sampleRate);
+        header.putInt(byteRate);
+        header.putShort((short) blockAlign);
+        header.putShort((short) 16);          // Bits per sample
+
+        header.put((byte) 'd').put((byte) 'a').put((byte) 't').put((byte) 'a');
+        header.putInt(dataSize);
+
+        header.flip();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.speak;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * WordPiece tokenizer for the DistilBERT text analyzer
+ *
+ * Lowercases, splits on whitespace, strips punctuation and maps each word to its vocabulary
+ * id, falling back to greedy longest-match "##" subwords. The sequence is wrapped in [CLS]
+ * and [SEP] and stops growing once it approaches maxSeqLength.
+ *
+ * Pure Java, so it can be unit tested and benchmarked off-device.
+ */
+public class WordPieceTokenizer {
+    public static final String CLS_TOKEN = "[CLS]";
+    public static final String SEP_TOKEN = "[SEP]";
+    public static final String UNK_TOKEN = "[UNK]";
+
+    // Compiled once - String.split/replaceAll would recompile these for every word
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]");
+
+    private final Map<String, Integer> vocab;
+    private final int maxSeqLength;
+    private final Integer clsId;
+    private final Integer sepId;
+    private final Integer unkId;
+
+    public WordPieceTokenizer(Map<String, Integer> vocab, int maxSeqLength) {
+        this.vocab = vocab;
+        this.maxSeqLength = maxSeqLength;
+        this.unkId = vocab.get(UNK_TOKEN);
+        this.clsId = vocab.getOrDefault(CLS_TOKEN, unkId);
+        this.sepId = vocab.getOrDefault(SEP_TOKEN, unkId);
+    }
+
+    /**
+     * Load a vocab.txt (one token per line, id = line number)
+     */
+    public static WordPieceTokenizer load(InputStream vocabStream, int maxSeqLength) throws IOException {
+        Map<String, Integer> vocab = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(vocabStream, StandardCharsets.UTF_8))) {
+            String line;
+            int index = 0;
+            while ((line = reader.readLine()) != null) {
+                vocab.put(line.trim(), index);
+                index++;
+            }
+        }
+        return new WordPieceTokenizer(vocab, maxSeqLength);
+    }
+
+    public int getVocabularySize() {
+        return vocab.size();
+    }
+
+    public int getMaxSeqLength() {
+        return maxSeqLength;
+    }
+
+    /**
+     * Tokenize text to vocabulary ids, including [CLS] and [SEP]
+     */
+    public List<Integer> tokenize(String text) {
+        List<Integer> tokenIds = new ArrayList<>();
+        tokenIds.add(clsId);
+
+        String[] words = WHITESPACE.split(text.toLowerCase().trim());
+        for (String word : words) {
+            word = NON_ALPHANUMERIC.matcher(word).replaceAll("");
+            if (word.isEmpty()) continue;
+
+            Integer id = vocab.get(word);
+            if (id != null) {
+                tokenIds.add(id);
+            } else {
+                tokenizeWordPiece(word, tokenIds);
+            }
+
+            // Stop if we're approaching max length
+            if (tokenIds.size() >= maxSeqLength - 1) break;
+        }
+
+        tokenIds.add(sepId);
+        return tokenIds;
+    }
+
+    /**
+     * Greedy longest-match subword split of one word, appended to tokenIds
+     */
+    private void tokenizeWordPiece(String word, List<Integer> tokenIds) {
+        int start = 0;
+        while (start < word.length()) {
+            int end = word.length();
+            Integer tokenId = null;
+
+            while (start < end) {
+                String subword = word.substring(start, end);
+                if (start > 0) {
+                    subword = "##" + subword; // WordPiece continuation marker
+                }
+                tokenId = vocab.get(subword);
+                if (tokenId != null) break;
+                end--;
+            }
+
+            if (tokenId != null) {
+                tokenIds.add(tokenId);
+                start = end;
+            } else {
+                tokenIds.add(unkId);
+                start++;
+            }
+        }
+    }
+}
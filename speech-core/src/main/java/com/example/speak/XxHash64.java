@@ -0,0 +1,167 @@
+package com.example.speak;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * xxHash64 - fast non-cryptographic content hash
+ *
+ * Used to detect unchanged audio (batch extraction manifest, feature cache).
+ * Output matches the reference XXH64 implementation; short[] input hashes the
+ * same as its 16-bit little-endian PCM bytes, so a WAV data chunk and the samples
+ * decoded from it give the same hash.
+ */
+public final class XxHash64 {
+
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+
+    private XxHash64() {
+    }
+
+    public static long hash(byte[] data, long seed) {
+        return hash(ByteBuffer.wrap(data), seed);
+    }
+
+    /**
+     * Hash the bytes between the buffer's position and limit (position is not changed)
+     */
+    public static long hash(ByteBuffer data, long seed) {
+        ByteBuffer in = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int offset = in.position();
+        int length = in.remaining();
+        int end = offset + length;
+        int i = offset;
+        long h;
+
+        if (length >= 32) {
+            long v1 = seed + P1 + P2;
+            long v2 = seed + P2;
+            long v3 = seed;
+            long v4 = seed - P1;
+            for (int limit = end - 32; i <= limit; i += 32) {
+                v1 = round(v1, in.getLong(i));
+                v2 = round(v2, in.getLong(i + 8));
+                v3 = round(v3, in.getLong(i + 16));
+                v4 = round(v4, in.getLong(i + 24));
+            }
+            h = converge(v1, v2, v3, v4);
+        } else {
+            h = seed + P5;
+        }
+
+        h += length;
+
+        for (; i + 8 <= end; i += 8) {
+            h = mixLong(h, in.getLong(i));
+        }
+        if (i + 4 <= end) {
+            h = mixInt(h, in.getInt(i));
+            i += 4;
+        }
+        for (; i < end; i++) {
+            h = mixByte(h, in.get(i));
+        }
+        return avalanche(h);
+    }
+
+    /**
+     * Hash 16-bit samples as little-endian PCM bytes
+     */
+    public static long hash(short[] samples, int offset, int count, long seed) {
+        long length = count * 2L;
+        int end = offset + count;
+        int i = offset;
+        long h;
+
+        if (length >= 32) {
+            long v1 = seed + P1 + P2;
+            long v2 = seed + P2;
+            long v3 = seed;
+            long v4 = seed - P1;
+            for (int limit = end - 16; i <= limit; i += 16) {
+                v1 = round(v1, longAt(samples, i));
+                v2 = round(v2, longAt(samples, i + 4));
+                v3 = round(v3, longAt(samples, i + 8));
+                v4 = round(v4, longAt(samples, i + 12));
+            }
+            h = converge(v1, v2, v3, v4);
+        } else {
+            h = seed + P5;
+        }
+
+        h += length;
+
+        for (; i + 4 <= end; i += 4) {
+            h = mixLong(h, longAt(samples, i));
+        }
+        if (i + 2 <= end) {
+            h = mixInt(h, (samples[i] & 0xFFFF) | (samples[i + 1] << 16));
+            i += 2;
+        }
+        if (i < end) {
+            h = mixByte(h, (byte) samples[i]);
+            h = mixByte(h, (byte) (samples[i] >> 8));
+        }
+        return avalanche(h);
+    }
+
+    public static long hash(short[] samples, long seed) {
+        return hash(samples, 0, samples.length, seed);
+    }
+
+    public static String toHex(long hash) {
+        String hex = Long.toHexString(hash);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    private static long longAt(short[] s, int i) {
+        return (s[i] & 0xFFFFL) | (s[i + 1] & 0xFFFFL) << 16 | (s[i + 2] & 0xFFFFL) << 32 | (s[i + 3] & 0xFFFFL) << 48;
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * P2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * P1;
+    }
+
+    private static long mergeRound(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * P1 + P4;
+    }
+
+    private static long converge(long v1, long v2, long v3, long v4) {
+        long h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+        h = mergeRound(h, v1);
+        h = mergeRound(h, v2);
+        h = mergeRound(h, v3);
+        return mergeRound(h, v4);
+    }
+
+    private static long mixLong(long h, long lane) {
+        h ^= round(0, lane);
+        return Long.rotateLeft(h, 27) * P1 + P4;
+    }
+
+    private static long mixInt(long h, int lane) {
+        h ^= (lane & 0xFFFFFFFFL) * P1;
+        return Long.rotateLeft(h, 23) * P2 + P3;
+    }
+
+    private static long mixByte(long h, byte b) {
+        h ^= (b & 0xFF) * P5;
+        return Long.rotateLeft(h, 11) * P1;
+    }
+
+    private static long avalanche(long h) {
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        h ^= h >>> 32;
+        return h;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.speak;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for AllocationMonitor attribution, driven by a scripted sampler.
+ */
+public class AllocationMonitorTest {
+
+    /**
+     * Counters moved by hand between samples
+     */
+    private static class FakeSampler implements AllocationMonitor.Sampler {
+        final AllocationMonitor.Sample now = new AllocationMonitor.Sample();
+
+        @Override
+        public void sample(AllocationMonitor.Sample into) {
+            into.gcCount = now.gcCount;
+            into.gcTimeMs = now.gcTimeMs;
+            into.blockingGcCount = now.blockingGcCount;
+            into.blockingGcTimeMs = now.blockingGcTimeMs;
+            into.bytesAllocated = now.bytesAllocated;
+            into.heapUsedBytes = now.heapUsedBytes;
+        }
+
+        void allocate(long bytes) {
+            now.bytesAllocated += bytes;
+            now.heapUsedBytes += bytes;
+        }
+
+        void gc(long ms, boolean blocking, long freedBytes) {
+            now.gcCount++;
+            now.gcTimeMs += ms;
+            if (blocking) {
+                now.blockingGcCount++;
+                now.blockingGcTimeMs += ms;
+            }
+            now.heapUsedBytes -= freedBytes;
+        }
+    }
+
+    @Test
+    public void testStagesAndStreamAreChargedSeparately() {
+        FakeSampler sampler = new FakeSampler();
+        sampler.now.heapUsedBytes = 4096 * 1024;
+        AllocationMonitor monitor = new AllocationMonitor(sampler);
+        monitor.start();
+
+        sampler.allocate(10 * 1024);               // Capture between words
+        monitor.onWordStart();
+        sampler.allocate(100 * 1024);
+        monitor.onStageEnd(PipelineMetrics.Stage.DENOISE, 0, 0);
+        sampler.allocate(300 * 1024);
+        sampler.gc(40, true, 256 * 1024);
+        monitor.onStageEnd(PipelineMetrics.Stage.MFCC, 0, 0);
+        sampler.allocate(2 * 1024);
+        monitor.onStageEnd(PipelineMetrics.Stage.TOTAL, 0, 0);
+        sampler.allocate(20 * 1024);
+
+        AllocationMonitor.Summary summary = monitor.finish();
+        assertEquals(1, summary.getWords());
+        assertEquals(432, summary.getAllocatedKb());
+        assertEquals(402, summary.getMaxWordAllocatedKb());
+        assertEquals(1, summary.getGcCount());
+        assertEquals(40, summary.getBlockingGcTimeMs());
+        assertEquals(1, summary.getWordsWithGc());
+        assertEquals(4096, summary.getHeapStartKb());
+        assertEquals(4096 + 432 - 256, summary.getHeapPeakKb()); // Only seen at samples
+        assertEquals(4096 + 432 - 256, summary.getHeapEndKb());
+
+        Map<String, AllocationMonitor.StageAllocation> stages = summary.getStages();
+        assertEquals(100, stages.get("denoise").getAllocatedKb());
+        assertEquals(300, stages.get("mfcc").getAllocatedKb());
+        assertEquals(1, stages.get("mfcc").getBlockingGcCount());
+        assertEquals(0, stages.get("denoise").getGcCount());
+        assertEquals(2, stages.get("total").getAllocatedKb());
+        assertEquals(30, stages.get(AllocationMonitor.STREAM).getAllocatedKb());
+        assertFalse(stages.containsKey("agc")); // Nothing charged
+        assertSame(summary, monitor.getSummary());
+    }
+
+    @Test
+    public void testStartResetsPreviousSession() {
+        FakeSampler sampler = new FakeSampler();
+        AllocationMonitor monitor = new AllocationMonitor(sampler);
+        monitor.start();
+        monitor.onWordStart();
+        sampler.allocate(64 * 1024);
+        monitor.onStageEnd(PipelineMetrics.Stage.TOTAL, 0, 0);
+        monitor.finish();
+
+        monitor.start();
+        assertNull(monitor.getSummary());
+        monitor.onStageEnd(PipelineMetrics.Stage.AGC, 0, 0);
+        AllocationMonitor.Summary summary = monitor.finish();
+        assertEquals(0, summary.getWords());
+        assertEquals(0, summary.getAllocatedKb());
+        assertTrue(summary.getStages().isEmpty());
+    }
+
+    @Test
+    public void testPipelineMetricsNotifiesListener() {
+        FakeSampler sampler = new FakeSampler();
+        AllocationMonitor monitor = new AllocationMonitor(sampler);
+        PipelineMetrics metrics = new PipelineMetrics();
+        metrics.setStageListener(monitor);
+        monitor.start();
+
+        long t = System.nanoTime();
+        sampler.allocate(8 * 1024);
+        t = metrics.lap(PipelineMetrics.Stage.INFERENCE, t);
+        metrics.lap(PipelineMetrics.Stage.TOTAL, t);
+
+        AllocationMonitor.Summary summary = monitor.finish();
+        assertEquals(8, summary.getStages().get("inference").getAllocatedKb());
+        assertEquals(1, summary.getWords());
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.speak;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for AudioLevelMeter levels and snapshot packing.
+ */
+public class AudioLevelMeterTest {
+
+    @Test
+    public void testUpdate_PublishesRmsAndPeakOfRange() {
+        AudioLevelMeter meter = new AudioLevelMeter();
+        short[] buffer = {9999, 3000, -4000, 3000, -4000, 9999};
+
+        meter.update(buffer, 1, 4); // 3000, -4000, 3000, -4000
+
+        long snapshot = meter.getSnapshot();
+        assertEquals(3535.53f, AudioLevelMeter.rmsOf(snapshot), 0.01f);
+        assertEquals(4000f, AudioLevelMeter.peakOf(snapshot), 0f);
+        assertEquals(1, meter.getUpdateCount());
+    }
+
+    @Test
+    public void testToDb_FullScaleIsZeroAndSilenceIsFloored() {
+        assertEquals(0f, AudioLevelMeter.toDb(AudioLevelMeter.FULL_SCALE), 1e-4f);
+        assertEquals(-6.02f, AudioLevelMeter.toDb(AudioLevelMeter.FULL_SCALE / 2), 0.01f);
+        assertEquals(AudioLevelMeter.MIN_DB, AudioLevelMeter.toDb(0f), 0f);
+
+        AudioLevelMeter meter = new AudioLevelMeter();
+        meter.update(new short[]{Short.MIN_VALUE, Short.MIN_VALUE}, 0, 2);
+        assertEquals(0f, meter.getPeakDb(), 1e-4f);
+        meter.reset();
+        assertEquals(AudioLevelMeter.MIN_DB, meter.getRmsDb(), 0f);
+        assertEquals(0, meter.getUpdateCount());
+    }
+}
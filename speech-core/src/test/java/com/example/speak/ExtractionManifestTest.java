@@ -0,0 +1,88 @@
+package com.example.speak;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ExtractionManifest checkpoints and recovery.
+ */
+public class ExtractionManifestTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testCheckpoint_EntriesSurviveReopen() throws IOException {
+        File file = new File(tempFolder.getRoot(), "job" + ExtractionManifest.FILE_EXTENSION);
+        try (ExtractionManifest manifest = ExtractionManifest.open(file, 1)) {
+            manifest.record(new ExtractionManifest.Entry("1keep_correct.wav", 32044, 1000L, 0xF00DL, true));
+            manifest.record(new ExtractionManifest.Entry("2keep.wav", 100, 2000L, -1L, false));
+            manifest.checkpoint(512);
+            // Replaces the first entry
+            manifest.record(new ExtractionManifest.Entry("1keep_correct.wav", 32046, 3000L, 0xBEEFL, true));
+            manifest.checkpoint(640);
+        }
+
+        try (ExtractionManifest manifest = ExtractionManifest.open(file, 1)) {
+            assertEquals(2, manifest.size());
+            assertEquals(640, manifest.getCheckpointOffset());
+            ExtractionManifest.Entry keep = manifest.get("1keep_correct.wav");
+            assertEquals(32046, keep.size);
+            assertEquals(3000L, keep.lastModified);
+            assertEquals(0xBEEFL, keep.contentHash);
+            assertTrue(keep.hasRow);
+            ExtractionManifest.Entry skipped = manifest.get("2keep.wav");
+            assertEquals(-1L, skipped.contentHash);
+            assertFalse(skipped.hasRow);
+        }
+    }
+
+    @Test
+    public void testReopen_DiscardsRecordsAfterLastCheckpoint() throws IOException {
+        File file = new File(tempFolder.getRoot(), "killed" + ExtractionManifest.FILE_EXTENSION);
+        try (ExtractionManifest manifest = ExtractionManifest.open(file, 1)) {
+            manifest.record(new ExtractionManifest.Entry("a.wav", 10, 1L, 1L, true));
+            manifest.checkpoint(100);
+        }
+        // Simulate a kill mid-batch: an uncommitted record and a torn line
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write("F\tb.wav\t10\t1\t2\trow\nF\tc.wav\t1".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (ExtractionManifest manifest = ExtractionManifest.open(file, 1)) {
+            assertEquals(1, manifest.size());
+            assertNull(manifest.get("b.wav"));
+            assertEquals(100, manifest.getCheckpointOffset());
+            manifest.record(new ExtractionManifest.Entry("d.wav", 10, 1L, 3L, true));
+            manifest.checkpoint(200);
+        }
+
+        try (ExtractionManifest manifest = ExtractionManifest.open(file, 1)) {
+            assertEquals(2, manifest.size());
+            assertNotNull(manifest.get("d.wav"));
+            assertEquals(200, manifest.getCheckpointOffset());
+        }
+    }
+
+    @Test
+    public void testOpen_OtherConfigVersionStartsEmpty() throws IOException {
+        File file = new File(tempFolder.getRoot(), "old" + ExtractionManifest.FILE_EXTENSION);
+        try (ExtractionManifest manifest = ExtractionManifest.open(file, 1)) {
+            manifest.record(new ExtractionManifest.Entry("a.wav", 10, 1L, 1L, true));
+            manifest.checkpoint(100);
+        }
+
+        try (ExtractionManifest manifest = ExtractionManifest.open(file, 2)) {
+            assertEquals(0, manifest.size());
+            assertEquals(0, manifest.getCheckpointOffset());
+        }
+    }
+}
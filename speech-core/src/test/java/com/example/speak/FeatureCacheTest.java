@@ -0,0 +1,71 @@
+package com.example.speak;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for FeatureCache lookup, LRU eviction and persistence.
+ */
+public class FeatureCacheTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static short[] clip(int seed) {
+        short[] samples = new short[1600];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (seed * 31 + i * 7);
+        }
+        return samples;
+    }
+
+    @Test
+    public void testGet_HitRequiresSameContentAndLength() {
+        FeatureCache cache = new FeatureCache(new File(tempFolder.getRoot(), "cache.bin"), 2, 10);
+        short[] audio = clip(1);
+        long key = FeatureCache.key(audio);
+        cache.put(key, audio.length, new float[]{1f, 2f});
+
+        assertArrayEquals(new float[]{1f, 2f}, cache.get(FeatureCache.key(audio.clone()), audio.length), 0f);
+        assertNull(cache.get(key, audio.length - 1));
+        assertNull(cache.get(FeatureCache.key(clip(2)), audio.length));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testPut_EvictsLeastRecentlyUsed() {
+        FeatureCache cache = new FeatureCache(new File(tempFolder.getRoot(), "lru.bin"), 1, 2);
+        cache.put(1L, 100, new float[]{1f});
+        cache.put(2L, 100, new float[]{2f});
+        cache.get(1L, 100); // 2 becomes the eldest
+        cache.put(3L, 100, new float[]{3f});
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(1L, 100));
+        assertNull(cache.get(2L, 100));
+        assertNotNull(cache.get(3L, 100));
+    }
+
+    @Test
+    public void testSave_ReloadKeepsEntriesAndOrder() throws IOException {
+        File file = new File(tempFolder.getRoot(), "sub/persist.bin");
+        FeatureCache cache = new FeatureCache(file, 1, 2);
+        cache.put(1L, 100, new float[]{1f});
+        cache.put(2L, 100, new float[]{2f});
+        cache.get(1L, 100);
+        cache.save();
+
+        FeatureCache reloaded = new FeatureCache(file, 1, 2);
+        assertEquals(2, reloaded.size());
+        reloaded.put(3L, 100, new float[]{3f}); // evicts 2, the least recently used before saving
+        assertNull(reloaded.get(2L, 100));
+        assertArrayEquals(new float[]{1f}, reloaded.get(1L, 100), 0f);
+    }
+}
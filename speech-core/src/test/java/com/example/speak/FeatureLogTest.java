@@ -0,0 +1,158 @@
+package com.example.speak;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for FeatureLog binary rows, reopening and CSV export.
+ */
+public class FeatureLogTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testAppendAndRead_RoundTripsRowsExactly() throws IOException {
+        File file = new File(tempFolder.getRoot(), "features" + FeatureLog.FILE_EXTENSION);
+        float[] first = {1.5f, -0.25f, 3.1415927f};
+        float[] second = {Float.MIN_VALUE, -1e10f, 0f};
+
+        try (FeatureLog log = FeatureLog.open(file, 3)) {
+            log.append("keep", "31keep_correct.wav", 1, first);
+            log.append("keep", null, 0, second);
+        }
+
+        List<String> rows = new ArrayList<>();
+        List<float[]> features = new ArrayList<>();
+        int count = FeatureLog.read(file, (word, source, label, values) -> {
+            rows.add(word + "|" + source + "|" + label);
+            features.add(values.clone());
+        });
+
+        assertEquals(2, count);
+        assertEquals("keep|31keep_correct.wav|1", rows.get(0));
+        assertEquals("keep|null|0", rows.get(1));
+        assertArrayEquals(first, features.get(0), 0f);
+        assertArrayEquals(second, features.get(1), 0f);
+    }
+
+    @Test
+    public void testReopen_AppendsAndReusesDictionary() throws IOException {
+        File file = new File(tempFolder.getRoot(), "reopen" + FeatureLog.FILE_EXTENSION);
+        try (FeatureLog log = FeatureLog.open(file, 2)) {
+            log.append("snail", null, 1, new float[]{1f, 2f});
+        }
+        long sizeAfterFirst = file.length();
+
+        try (FeatureLog log = FeatureLog.open(file, 2)) {
+            log.append("snail", null, 0, new float[]{3f, 4f});
+        }
+
+        // Second row reuses the "snail" dictionary entry: only a row record is added
+        assertEquals(sizeAfterFirst + 1 + 4 + 4 + 1 + 2 * 4, file.length());
+        List<String> words = new ArrayList<>();
+        FeatureLog.read(file, (word, source, label, values) -> words.add(word + label));
+        assertEquals(2, words.size());
+        assertEquals("snail1", words.get(0));
+        assertEquals("snail0", words.get(1));
+    }
+
+    @Test
+    public void testReopen_TruncatesPartialTrailingRecord() throws IOException {
+        File file = new File(tempFolder.getRoot(), "crash" + FeatureLog.FILE_EXTENSION);
+        try (FeatureLog log = FeatureLog.open(file, 2)) {
+            log.append("house", null, 1, new float[]{1f, 2f});
+            log.append("house", null, 1, new float[]{5f, 6f});
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.setLength(raw.length() - 3);
+        }
+
+        try (FeatureLog log = FeatureLog.open(file, 2)) {
+            log.append("garden", null, 0, new float[]{7f, 8f});
+        }
+
+        List<String> words = new ArrayList<>();
+        FeatureLog.read(file, (word, source, label, values) -> words.add(word + values[0]));
+        assertEquals(2, words.size());
+        assertEquals("house1.0", words.get(0));
+        assertEquals("garden7.0", words.get(1));
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpen_DifferentFeatureCount_Throws() throws IOException {
+        File file = new File(tempFolder.getRoot(), "schema" + FeatureLog.FILE_EXTENSION);
+        FeatureLog.open(file, 39).close();
+        FeatureLog.open(file, 13).close();
+    }
+
+    @Test
+    public void testExportCsv_MatchesTrainingScriptLayout() throws IOException {
+        File file = new File(tempFolder.getRoot(), "export" + FeatureLog.FILE_EXTENSION);
+        try (FeatureLog log = FeatureLog.open(file, 2)) {
+            log.append("keep", "31keep_correct.wav", 1, new float[]{0.1234567f, -2f});
+        }
+
+        File csv = tempFolder.newFile("features.csv");
+        assertEquals(1, FeatureLog.exportCsv(file, csv, true));
+
+        List<String> lines = Files.readAllLines(csv.toPath(), StandardCharsets.UTF_8);
+        assertEquals("filename,word,f0,f1,label", lines.get(0));
+        assertEquals("31keep_correct.wav,keep,0.123457,-2.000000,1", lines.get(1));
+    }
+
+    @Test
+    public void testExportLatestCsv_KeepsNewestRowPerListedSource() throws IOException {
+        File file = new File(tempFolder.getRoot(), "rerun" + FeatureLog.FILE_EXTENSION);
+        File csv = new File(tempFolder.getRoot(), "rerun.csv");
+        try (FeatureLog log = FeatureLog.open(file, 1)) {
+            log.append("cat", "b.wav", 1, new float[]{1f});
+            log.append("dog", "a.wav", 0, new float[]{2f});
+            log.append("gone", "c.wav", 1, new float[]{3f});
+            log.append("cat", "b.wav", 0, new float[]{4f}); // re-extracted
+        }
+
+        int rows = FeatureLog.exportLatestCsv(file, csv, Arrays.asList("a.wav", "b.wav", "new.wav"));
+
+        assertEquals(2, rows);
+        List<String> lines = Files.readAllLines(csv.toPath(), StandardCharsets.UTF_8);
+        assertEquals("filename,word,f0,label", lines.get(0));
+        assertEquals("a.wav,dog,2.000000,0", lines.get(1));
+        assertEquals("b.wav,cat,4.000000,0", lines.get(2));
+    }
+
+    @Test
+    public void testOpenAtOffset_DropsRowsAfterCheckpoint() throws IOException {
+        File file = new File(tempFolder.getRoot(), "resume" + FeatureLog.FILE_EXTENSION);
+        long checkpoint;
+        try (FeatureLog log = FeatureLog.open(file, 1)) {
+            log.append("sun", "1.wav", 1, new float[]{1f});
+            log.sync();
+            checkpoint = log.position();
+            log.append("moon", "2.wav", 1, new float[]{2f});
+        }
+
+        try (FeatureLog log = FeatureLog.open(file, 1, checkpoint)) {
+            assertEquals(checkpoint, log.position());
+            log.append("moon", "2.wav", 0, new float[]{3f});
+        }
+
+        List<String> rows = new ArrayList<>();
+        FeatureLog.read(file, (word, source, label, values) -> rows.add(source + label));
+        assertEquals(2, rows.size());
+        assertEquals("1.wav1", rows.get(0));
+        assertEquals("2.wav0", rows.get(1));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.speak;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for FlacEncoder, verified by round-tripping through FlacDecoder.
+ */
+public class FlacEncoderTest {
+
+    private final FlacEncoder encoder = new FlacEncoder(16000);
+
+    @Test
+    public void testRoundTrip_SpeechLikeSignal_IsLossless() throws IOException {
+        short[] samples = speechLike(16000, 1);
+
+        FlacDecoder.Audio decoded = FlacDecoder.decode(encoder.encode(samples));
+
+        assertEquals(16000, decoded.sampleRate);
+        assertArrayEquals(samples, decoded.samples);
+    }
+
+    @Test
+    public void testRoundTrip_BlockBoundaryLengths_IsLossless() throws IOException {
+        int[] lengths = {1, 2, 5, 17, FlacEncoder.BLOCK_SIZE - 1, FlacEncoder.BLOCK_SIZE,
+            FlacEncoder.BLOCK_SIZE + 1, FlacEncoder.BLOCK_SIZE * 3 + 100};
+        for (int length : lengths) {
+            short[] samples = speechLike(length, length);
+            assertArrayEquals("length " + length, samples, FlacDecoder.decode(encoder.encode(samples)).samples);
+        }
+    }
+
+    @Test
+    public void testRoundTrip_SilenceAndFullScaleNoise_IsLossless() throws IOException {
+        short[] silence = new short[5000];
+        assertArrayEquals(silence, FlacDecoder.decode(encoder.encode(silence)).samples);
+
+        // White noise at full scale - encoded verbatim, extremes must survive
+        Random random = new Random(7);
+        short[] noise = new short[5000];
+        for (int i = 0; i < noise.length; i++) {
+            noise[i] = (short) random.nextInt();
+        }
+        noise[0] = Short.MIN_VALUE;
+        noise[1] = Short.MAX_VALUE;
+        assertArrayEquals(noise, FlacDecoder.decode(encoder.encode(noise)).samples);
+    }
+
+    @Test
+    public void testEncode_SpeechLikeSignal_CompressesWellBelowWav() {
+        short[] samples = speechLike(32000, 3);
+
+        byte[] flac = encoder.encode(samples);
+
+        assertTrue("FLAC size " + flac.length + " vs raw " + samples.length * 2,
+            flac.length < samples.length * 2 * 0.7);
+    }
+
+    @Test
+    public void testEncode_EmptyInput_ProducesDecodableStream() throws IOException {
+        assertEquals(0, FlacDecoder.decode(encoder.encode(new short[0])).samples.length);
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecode_CorruptedFrame_FailsCrc() throws IOException {
+        byte[] flac = encoder.encode(speechLike(8000, 5));
+        flac[flac.length / 2] ^= 0x10;
+        FlacDecoder.decode(flac);
+    }
+
+    /**
+     * Harmonics with a slow envelope plus a little noise - roughly voiced speech
+     */
+    private static short[] speechLike(int length, long seed) {
+        Random random = new Random(seed);
+        short[] samples = new short[length];
+        for (int i = 0; i < length; i++) {
+            double t = i / 16000.0;
+            double envelope = 0.5 + 0.5 * Math.sin(2 * Math.PI * 3 * t);
+            double voiced = Math.sin(2 * Math.PI * 140 * t) + 0.5 * Math.sin(2 * Math.PI * 280 * t)
+                + 0.25 * Math.sin(2 * Math.PI * 700 * t);
+            samples[i] = (short) (8000 * envelope * voiced + random.nextGaussian() * 40);
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.speak;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit and concurrency stress tests for PcmRingBuffer.
+ */
+public class PcmRingBufferTest {
+
+    @Test
+    public void testCapacity_RoundsUpToPowerOfTwo() {
+        assertEquals(1024, new PcmRingBuffer(1000).capacity());
+        assertEquals(1024, new PcmRingBuffer(1024).capacity());
+    }
+
+    @Test
+    public void testWrite_StopsWhenFullAndWrapsAround() {
+        PcmRingBuffer ring = new PcmRingBuffer(4);
+        short[] out = new short[4];
+
+        assertEquals(3, ring.write(new short[]{1, 2, 3}, 0, 3));
+        assertEquals(2, ring.read(out, 0, 2));
+        // Two free slots at the end plus two at the start, only three more fit
+        assertEquals(3, ring.write(new short[]{4, 5, 6, 7}, 0, 4));
+        assertEquals(4, ring.available());
+        assertEquals(4, ring.read(out, 0, 4));
+        assertArrayEquals(new short[]{3, 4, 5, 6}, out);
+        assertEquals(0, ring.read(out, 0, 4));
+    }
+
+    @Test
+    public void testRead_DrainsBeforeReportingEndOfStream() throws InterruptedException {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        ring.write(new short[]{9, 8}, 0, 2);
+        ring.close();
+
+        short[] out = new short[8];
+        assertEquals(2, ring.read(out, 0, 8, 10));
+        assertEquals(-1, ring.read(out, 0, 8, 10));
+    }
+
+    @Test
+    public void testTimedRead_ReturnsZeroOnTimeout() throws InterruptedException {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        assertEquals(0, ring.read(new short[4], 0, 4, 20));
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentProducerConsumer_DeliversEverySampleInOrder() throws Exception {
+        final int total = 5_000_000;
+        final PcmRingBuffer ring = new PcmRingBuffer(1024); // Small, so it fills and wraps constantly
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread producer = new Thread(() -> {
+            Random random = new Random(1);
+            short[] chunk = new short[700];
+            int next = 0;
+            while (next < total) {
+                int length = Math.min(1 + random.nextInt(chunk.length), total - next);
+                for (int i = 0; i < length; i++) {
+                    chunk[i] = (short) (next + i);
+                }
+                int offset = 0;
+                while (offset < length) {
+                    int written = ring.write(chunk, offset, length - offset);
+                    if (written == 0) {
+                        Thread.yield();
+                    }
+                    offset += written;
+                }
+                next += length;
+            }
+            ring.close();
+        });
+
+        Thread consumer = new Thread(() -> {
+            Random random = new Random(2);
+            short[] chunk = new short[900];
+            int expected = 0;
+            try {
+                while (true) {
+                    int count = ring.read(chunk, 0, 1 + random.nextInt(chunk.length), 100);
+                    if (count < 0) {
+                        break;
+                    }
+                    for (int i = 0; i < count; i++) {
+                        if (chunk[i] != (short) expected) {
+                            throw new AssertionError("Sample " + expected + " was " + chunk[i]);
+                        }
+                        expected++;
+                    }
+                }
+                if (expected != total) {
+                    throw new AssertionError("Received " + expected + " of " + total + " samples");
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+
+        consumer.start();
+        producer.start();
+        producer.join();
+        consumer.join();
+
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        assertEquals(0, ring.available());
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.speak;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for LatencyHistogram percentiles and PipelineMetrics snapshots.
+ */
+public class PipelineMetricsTest {
+
+    @Test
+    public void testHistogram_PercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10000; value++) {
+            histogram.record(value * 1000); // 1 us .. 10 ms
+        }
+        assertEquals(10000, histogram.getCount());
+        assertEquals(1000, histogram.getMin());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(5_000_500, histogram.getMean());
+        assertWithin(5_000_000, histogram.getValueAtPercentile(50));
+        assertWithin(9_500_000, histogram.getValueAtPercentile(95));
+        assertWithin(9_900_000, histogram.getValueAtPercentile(99));
+        assertEquals(10_000_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testHistogram_BucketsCoverEveryValue() {
+        Random random = new Random(3);
+        for (int i = 0; i < 100000; i++) {
+            long value = random.nextLong() & LatencyHistogram.MAX_VALUE;
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(LatencyHistogram.bucketUpperBound(index) >= value);
+            assertTrue(index == 0 || LatencyHistogram.bucketUpperBound(index - 1) < value);
+        }
+    }
+
+    @Test
+    public void testSnapshot_OnlyRecordedStagesInPipelineOrder() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        metrics.record(PipelineMetrics.Stage.TOTAL, 12_000_000);
+        metrics.record(PipelineMetrics.Stage.MFCC, 4_000_000);
+        metrics.record(PipelineMetrics.Stage.MFCC, 6_000_000);
+
+        Map<String, PipelineMetrics.StageSummary> snapshot = metrics.snapshot();
+        assertArrayEquals(new String[] {"mfcc", "total"}, snapshot.keySet().toArray());
+        PipelineMetrics.StageSummary mfcc = snapshot.get("mfcc");
+        assertEquals(2, mfcc.getCount());
+        assertEquals(5000, mfcc.getMeanUs());
+        assertEquals(6000, mfcc.getMaxUs());
+
+        metrics.reset();
+        assertTrue(metrics.snapshot().isEmpty());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertEquals(expected, actual, expected / 32.0);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.speak;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for RealTimeMonitor real-time factor and overrun accounting.
+ */
+public class RealTimeMonitorTest {
+
+    private static final int SAMPLE_RATE = 16000;
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void testRecordWord_RtfAndDeadlineMisses() {
+        RealTimeMonitor monitor = new RealTimeMonitor(SAMPLE_RATE);
+        monitor.recordWord(250 * MS, SAMPLE_RATE / 2);  // 250 ms for 500 ms of audio
+        monitor.recordWord(600 * MS, SAMPLE_RATE / 2);  // 600 ms for 500 ms - a miss
+
+        RealTimeMonitor.Snapshot snapshot = monitor.snapshot();
+        assertEquals(2, snapshot.getWords());
+        assertEquals(1.2f, snapshot.getLastWordRtf(), 1e-4f);
+        assertEquals(1.2f, snapshot.getMaxWordRtf(), 1e-4f);
+        assertEquals(0.85f, snapshot.getSessionRtf(), 1e-4f);
+        assertEquals(0.85f, snapshot.getRollingRtf(), 1e-4f);
+        assertEquals(1, snapshot.getDeadlineMisses());
+    }
+
+    @Test
+    public void testRollingRtf_OnlyCoversLastWords() {
+        RealTimeMonitor monitor = new RealTimeMonitor(SAMPLE_RATE);
+        for (int i = 0; i < RealTimeMonitor.ROLLING_WORDS; i++) {
+            monitor.recordWord(2000 * MS, SAMPLE_RATE); // RTF 2.0
+        }
+        for (int i = 0; i < RealTimeMonitor.ROLLING_WORDS; i++) {
+            monitor.recordWord(100 * MS, SAMPLE_RATE);  // RTF 0.1
+        }
+
+        RealTimeMonitor.Snapshot snapshot = monitor.snapshot();
+        assertEquals(0.1f, snapshot.getRollingRtf(), 1e-4f);
+        assertEquals(1.05f, snapshot.getSessionRtf(), 1e-4f);
+        assertEquals(2.0f, snapshot.getMaxWordRtf(), 1e-4f);
+        assertEquals(RealTimeMonitor.ROLLING_WORDS, snapshot.getDeadlineMisses());
+    }
+
+    @Test
+    public void testCaptureOverruns_AndReset() {
+        RealTimeMonitor monitor = new RealTimeMonitor(SAMPLE_RATE);
+        monitor.recordRead(1024, 1024);
+        monitor.recordRead(1024, 512);
+        monitor.recordDropped(300);
+        monitor.recordDropped(200);
+        monitor.setLostFrames(160);
+        monitor.recordBacklog(SAMPLE_RATE / 4);
+        monitor.recordBacklog(SAMPLE_RATE / 8);
+
+        RealTimeMonitor.Snapshot snapshot = monitor.snapshot();
+        assertEquals(1, snapshot.getShortReads());
+        assertEquals(500, snapshot.getDroppedSamples());
+        assertEquals(160, snapshot.getLostFrames());
+        assertEquals(250, snapshot.getMaxBacklogMs());
+
+        monitor.reset();
+        snapshot = monitor.snapshot();
+        assertEquals(0, snapshot.getWords());
+        assertEquals(0, snapshot.getShortReads());
+        assertEquals(0, snapshot.getDroppedSamples());
+        assertEquals(0, snapshot.getMaxBacklogMs());
+        assertEquals(0f, snapshot.getRollingRtf(), 0f);
+    }
+}
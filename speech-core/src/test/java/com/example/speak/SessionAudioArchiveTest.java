@@ -0,0 +1,97 @@
+package com.example.speak;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for SessionAudioArchive writing, indexing and crash recovery.
+ */
+public class SessionAudioArchiveTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testClosedArchive_ReadsWordsThroughIndex() throws IOException {
+        File file = new File(tempFolder.getRoot(), "session" + SessionAudioArchive.FILE_EXTENSION);
+        short[] first = tone(4000, 200);
+        short[] second = tone(6000, 330);
+
+        try (SessionAudioArchive archive = SessionAudioArchive.create(file, 16000, "student=abc")) {
+            archive.appendWord(0, "keep", first, true, 0.91f);
+            archive.appendWord(1, "snail", second, false, 0.22f);
+            assertEquals(2, archive.getWordCount());
+            assertTrue(archive.getCompressionRatio() < 1.0f);
+        }
+
+        try (SessionAudioArchive.Reader reader = new SessionAudioArchive.Reader(file)) {
+            assertEquals(16000, reader.getSampleRate());
+            assertEquals("student=abc", reader.getSessionInfo());
+
+            List<SessionAudioArchive.Entry> entries = reader.getEntries();
+            assertEquals(2, entries.size());
+            assertEquals("keep", entries.get(0).word);
+            assertTrue(entries.get(0).predictedCorrect);
+            assertEquals(0.91f, entries.get(0).score, 1e-6f);
+            assertEquals("snail", entries.get(1).word);
+            assertEquals(1, entries.get(1).wordIndex);
+
+            assertArrayEquals(first, reader.readSamples(entries.get(0)));
+            assertArrayEquals(second, reader.readSamples(entries.get(1)));
+        }
+    }
+
+    @Test
+    public void testUnclosedArchive_RecoversCompleteRecords() throws IOException {
+        File file = new File(tempFolder.getRoot(), "killed" + SessionAudioArchive.FILE_EXTENSION);
+        short[] clip = tone(4000, 250);
+
+        // Simulate the app dying mid-session: no close(), last record cut short
+        SessionAudioArchive archive = SessionAudioArchive.create(file, 16000, "");
+        archive.appendWord(0, "the", clip, true, 0.8f);
+        archive.appendWord(1, "garden", clip, true, 0.7f);
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.setLength(raw.length() - 10);
+        }
+
+        try (SessionAudioArchive.Reader reader = new SessionAudioArchive.Reader(file)) {
+            assertEquals(1, reader.getEntries().size());
+            assertEquals("the", reader.getEntries().get(0).word);
+            assertArrayEquals(clip, reader.readSamples(reader.getEntries().get(0)));
+        }
+    }
+
+    @Test
+    public void testExtractWav_WritesReadableClip() throws IOException {
+        File file = new File(tempFolder.getRoot(), "wav" + SessionAudioArchive.FILE_EXTENSION);
+        short[] clip = tone(3200, 440);
+        try (SessionAudioArchive archive = SessionAudioArchive.create(file, 16000, "")) {
+            archive.appendWord(0, "house", clip, true, 0.9f);
+        }
+
+        File wav = tempFolder.newFile("house.wav");
+        try (SessionAudioArchive.Reader reader = new SessionAudioArchive.Reader(file)) {
+            reader.extractWav(reader.getEntries().get(0), wav);
+        }
+
+        try (WavReader reader = WavReader.open(wav, 16000, 1)) {
+            assertArrayEquals(clip, reader.readSamples());
+        }
+    }
+
+    private static short[] tone(int length, double frequency) {
+        short[] samples = new short[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = (short) (6000 * Math.sin(2 * Math.PI * frequency * i / 16000.0));
+        }
+        return samples;
+    }
+}
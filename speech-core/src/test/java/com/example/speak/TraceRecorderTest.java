@@ -0,0 +1,99 @@
+package com.example.speak;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for TraceRecorder's ring, dump format and Chrome trace export.
+ */
+public class TraceRecorderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRegisterReturnsSameIdForSameName() {
+        TraceRecorder trace = new TraceRecorder(4);
+        int segment = trace.register("segment", "sample");
+        int redraw = trace.register("redraw");
+        assertNotEquals(segment, redraw);
+        assertEquals(segment, trace.register("segment", "sample"));
+    }
+
+    @Test
+    public void testRingKeepsNewestEvents() throws IOException {
+        TraceRecorder trace = new TraceRecorder(3);
+        int word = trace.register("word", "index");
+        for (int i = 0; i < 5; i++) {
+            trace.instant(word, i);
+        }
+        assertEquals(3, trace.size());
+        assertEquals(2, trace.getDroppedEvents());
+
+        List<Long> values = new ArrayList<>();
+        File file = folder.newFile("ring" + TraceRecorder.FILE_EXTENSION);
+        assertEquals(3, trace.dump(file));
+        TraceRecorder.read(file, (type, name, argName, threadId, timestampNanos, value) -> values.add(value));
+        assertEquals(List.of(2L, 3L, 4L), values);
+
+        trace.clear();
+        assertEquals(0, trace.size());
+    }
+
+    @Test
+    public void testDumpRoundTrip() throws IOException {
+        TraceRecorder trace = new TraceRecorder(16);
+        int segment = trace.register("segment", "sample");
+        int mfcc = trace.register("mfcc");
+        trace.begin(segment, 1600);
+        trace.complete(mfcc, 1_000_000, 3_500_000);
+        trace.end(segment, 4800);
+
+        File file = folder.newFile("trace" + TraceRecorder.FILE_EXTENSION);
+        trace.dump(file);
+
+        StringBuilder events = new StringBuilder();
+        List<String> threads = TraceRecorder.read(file, (type, name, argName, threadId, timestampNanos, value) ->
+            events.append((char) type).append(' ').append(name).append(' ').append(argName).append(' ')
+                .append(type == TraceRecorder.COMPLETE ? timestampNanos + "+" : "").append(value).append(';'));
+        assertEquals("B segment sample 1600;X mfcc null 1000000+2500000;E segment sample 4800;", events.toString());
+        assertEquals(List.of(Thread.currentThread().getName()), threads);
+    }
+
+    @Test
+    public void testChromeExport() throws IOException {
+        TraceRecorder trace = new TraceRecorder(16);
+        int segment = trace.register("segment", "sample");
+        int backlog = trace.register("backlog", "ms");
+        int stage = trace.register("denoise");
+        long start = System.nanoTime();
+        trace.begin(segment, 320);
+        trace.counter(backlog, 12);
+        trace.complete(stage, start, start + 1_500_000);
+        trace.end(segment);
+
+        File file = folder.newFile("export" + TraceRecorder.FILE_EXTENSION);
+        File json = folder.newFile("export.json");
+        trace.dump(file);
+        assertEquals(4, ChromeTraceExporter.export(file, json));
+
+        String text = new String(Files.readAllBytes(json.toPath()), StandardCharsets.UTF_8);
+        assertTrue(text, text.startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":["));
+        assertTrue(text, text.contains("\"name\":\"segment\",\"ph\":\"B\""));
+        assertTrue(text, text.contains("\"args\":{\"sample\":320}"));
+        assertTrue(text, text.contains("\"args\":{\"ms\":12}"));
+        assertTrue(text, text.contains("\"dur\":1500.000"));
+        assertTrue(text, text.contains("\"ph\":\"M\""));
+        assertFalse(text, text.contains("-9223372036854775808")); // NO_VALUE is not exported
+    }
+}
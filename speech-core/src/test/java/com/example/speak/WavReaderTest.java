@@ -0,0 +1,127 @@
+package com.example.speak;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for WavReader chunk parsing and format validation.
+ */
+public class WavReaderTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private static final short[] SAMPLES = {0, 1000, -1000, 32767, -32768, 42};
+
+    @Test
+    public void testOpen_PlainHeader_ReadsSamples() throws IOException {
+        File file = writeWav(16000, 1, false, SAMPLES.length * 2);
+
+        try (WavReader wav = WavReader.open(file, 16000, 1)) {
+            assertEquals(16000, wav.getSampleRate());
+            assertEquals(1, wav.getChannels());
+            assertEquals(44, wav.getDataOffset());
+            assertEquals(SAMPLES.length, wav.getFrameCount());
+            assertArrayEquals(SAMPLES, wav.readSamples());
+        }
+    }
+
+    @Test
+    public void testOpen_ListChunkBeforeData_SkipsIt() throws IOException {
+        File file = writeWav(16000, 1, true, SAMPLES.length * 2);
+
+        try (WavReader wav = WavReader.open(file, 16000, 1)) {
+            // 12 RIFF + 24 fmt + 8 LIST header + 5 body + 1 pad + 8 data header
+            assertEquals(58, wav.getDataOffset());
+            assertArrayEquals(SAMPLES, wav.readSamples());
+        }
+    }
+
+    @Test
+    public void testGetSamples_MappedBufferIsLittleEndian() throws IOException {
+        File file = writeWav(16000, 1, true, SAMPLES.length * 2);
+
+        try (WavReader wav = WavReader.open(file)) {
+            ShortBuffer samples = wav.getSamples();
+            assertEquals(SAMPLES.length, samples.remaining());
+            assertEquals(1000, samples.get(1));
+            assertEquals(-32768, samples.get(4));
+        }
+    }
+
+    @Test
+    public void testOpen_ZeroDataSize_UsesFileLength() throws IOException {
+        // A recorder killed before patching the header leaves data size 0
+        File file = writeWav(16000, 1, false, 0);
+
+        try (WavReader wav = WavReader.open(file)) {
+            assertArrayEquals(SAMPLES, wav.readSamples());
+        }
+    }
+
+    @Test(expected = WavReader.WavFormatException.class)
+    public void testOpen_WrongSampleRate_Throws() throws IOException {
+        File file = writeWav(44100, 1, false, SAMPLES.length * 2);
+        WavReader.open(file, 16000, 1).close();
+    }
+
+    @Test(expected = WavReader.WavFormatException.class)
+    public void testOpen_WrongChannelCount_Throws() throws IOException {
+        File file = writeWav(16000, 2, false, SAMPLES.length * 2);
+        WavReader.open(file, 16000, 1).close();
+    }
+
+    @Test(expected = WavReader.WavFormatException.class)
+    public void testOpen_NotRiff_Throws() throws IOException {
+        File file = tempFolder.newFile("garbage.wav");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[64]);
+        }
+        WavReader.open(file).close();
+    }
+
+    private File writeWav(int sampleRate, int channels, boolean withListChunk, int declaredDataSize)
+            throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        ByteBuffer fmt = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+        fmt.put("fmt ".getBytes("US-ASCII")).putInt(16);
+        fmt.putShort((short) 1).putShort((short) channels).putInt(sampleRate)
+           .putInt(sampleRate * channels * 2).putShort((short) (channels * 2)).putShort((short) 16);
+        body.write(fmt.array());
+
+        if (withListChunk) {
+            ByteBuffer list = ByteBuffer.allocate(14).order(ByteOrder.LITTLE_ENDIAN);
+            list.put("LIST".getBytes("US-ASCII")).putInt(5).put("INFOx".getBytes("US-ASCII")).put((byte) 0);
+            body.write(list.array());
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(8 + SAMPLES.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        data.put("data".getBytes("US-ASCII")).putInt(declaredDataSize);
+        for (short sample : SAMPLES) {
+            data.putShort(sample);
+        }
+        body.write(data.array());
+
+        ByteBuffer riff = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+        riff.put("RIFF".getBytes("US-ASCII")).putInt(4 + body.size()).put("WAVE".getBytes("US-ASCII"));
+
+        File file = tempFolder.newFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(riff.array());
+            body.writeTo(out);
+        }
+        return file;
+    }
+}
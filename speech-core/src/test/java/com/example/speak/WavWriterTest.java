@@ -0,0 +1,74 @@
+package com.example.speak;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for WavWriter streaming output, read back through WavReader.
+ */
+public class WavWriterTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testWrite_ManyChunks_RoundTripsThroughReader() throws IOException {
+        File file = tempFolder.newFile("stream.wav");
+
+        // Larger than the internal buffer so flushes happen mid-stream
+        short[] chunk = new short[3000];
+        for (int i = 0; i < chunk.length; i++) {
+            chunk[i] = (short) (i * 7 - 10000);
+        }
+        try (WavWriter writer = new WavWriter(file, 16000, 1)) {
+            for (int i = 0; i < 10; i++) {
+                writer.write(chunk, 0, chunk.length);
+            }
+            assertEquals(30000, writer.getSamplesWritten());
+        }
+
+        assertEquals(44 + 30000 * 2, file.length());
+        try (WavReader wav = WavReader.open(file, 16000, 1)) {
+            short[] samples = wav.readSamples();
+            assertEquals(30000, samples.length);
+            for (int i = 0; i < samples.length; i++) {
+                assertEquals(chunk[i % chunk.length], samples[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testWrite_FloatSamples_ClampsOutOfRange() throws IOException {
+        File file = tempFolder.newFile("float.wav");
+
+        try (WavWriter writer = new WavWriter(file, 16000, 1)) {
+            writer.write(new float[]{0f, 0.5f, -0.5f, 1.5f, -1.5f}, 0, 5);
+        }
+
+        try (WavReader wav = WavReader.open(file)) {
+            assertArrayEquals(new short[]{0, 16383, -16383, 32767, -32767}, wav.readSamples());
+        }
+    }
+
+    @Test
+    public void testWrite_OverwritesExistingFile() throws IOException {
+        File file = tempFolder.newFile("reused.wav");
+
+        try (WavWriter writer = new WavWriter(file, 16000, 1)) {
+            writer.write(new short[1000]);
+        }
+        try (WavWriter writer = new WavWriter(file, 16000, 1)) {
+            writer.write(new short[]{1, 2, 3});
+        }
+
+        try (WavReader wav = WavReader.open(file)) {
+            assertArrayEquals(new short[]{1, 2, 3}, wav.readSamples());
+        }
+    }
+}
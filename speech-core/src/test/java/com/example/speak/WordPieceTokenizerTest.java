@@ -0,0 +1,39 @@
+package com.example.speak;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for WordPieceTokenizer on a tiny vocabulary.
+ */
+public class WordPieceTokenizerTest {
+
+    private static WordPieceTokenizer tokenizer(int maxSeqLength) {
+        Map<String, Integer> vocab = new HashMap<>();
+        String[] tokens = {"[PAD]", "[UNK]", "[CLS]", "[SEP]", "the", "cat", "sat", "play", "##ing", "##s"};
+        for (int i = 0; i < tokens.length; i++) {
+            vocab.put(tokens[i], i);
+        }
+        return new WordPieceTokenizer(vocab, maxSeqLength);
+    }
+
+    @Test
+    public void testTokenize_WholeWordsAndSubwords() {
+        assertEquals(Arrays.asList(2, 4, 5, 6, 3), tokenizer(128).tokenize("The cat, sat."));
+        assertEquals(Arrays.asList(2, 7, 8, 7, 9, 3), tokenizer(128).tokenize("  playing\tplays "));
+    }
+
+    @Test
+    public void testTokenize_UnknownCharactersAndLengthLimit() {
+        // "catx": "cat" then no "##x" -> [UNK]
+        assertEquals(Arrays.asList(2, 5, 1, 3), tokenizer(128).tokenize("catx"));
+        assertEquals(Arrays.asList(2, 3), tokenizer(128).tokenize("!!! ..."));
+        // Stops once maxSeqLength - 1 ids are collected, then appends [SEP]
+        assertEquals(Arrays.asList(2, 4, 3), tokenizer(3).tokenize("the cat sat"));
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.speak;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for XxHash64 against the reference XXH64 values.
+ */
+public class XxHash64Test {
+
+    @Test
+    public void testHash_MatchesReferenceVectors() {
+        assertEquals(0xEF46DB3751D8E999L, XxHash64.hash(new byte[0], 0));
+        assertEquals(0x44BC2CF5AD770999L, XxHash64.hash("abc".getBytes(StandardCharsets.US_ASCII), 0));
+        assertEquals(0xFBCEA83C8A378BF1L, XxHash64.hash(
+            "Nobody inspects the spammish repetition".getBytes(StandardCharsets.US_ASCII), 0));
+    }
+
+    @Test
+    public void testHashShorts_EqualsHashOfLittleEndianBytes() {
+        Random random = new Random(7);
+        for (int count = 0; count < 80; count++) {
+            short[] samples = new short[count];
+            byte[] bytes = new byte[count * 2];
+            for (int i = 0; i < count; i++) {
+                samples[i] = (short) random.nextInt();
+                bytes[2 * i] = (byte) samples[i];
+                bytes[2 * i + 1] = (byte) (samples[i] >> 8);
+            }
+            assertEquals("count " + count, XxHash64.hash(bytes, 42), XxHash64.hash(samples, 42));
+        }
+    }
+}